@@ -5,9 +5,16 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
+import uk.ac.ebi.ega.egacryptor.metrics.ProgressReporter;
+import uk.ac.ebi.ega.egacryptor.metrics.StageMetrics;
+import uk.ac.ebi.ega.egacryptor.pipeline.CompositeProcessingListener;
+import uk.ac.ebi.ega.egacryptor.pipeline.CryptographyPipeline;
+import uk.ac.ebi.ega.egacryptor.pipeline.DecryptionPipeline;
+import uk.ac.ebi.ega.egacryptor.resource.ResourcePlan;
 import uk.ac.ebi.ega.egacryptor.runner.EgaCryptorCommandLinerRunner;
 import uk.ac.ebi.ega.egacryptor.service.IFileDiscoveryService;
 import uk.ac.ebi.ega.egacryptor.service.ITaskExecutorService;
+import uk.ac.ebi.ega.egacryptor.verify.Verifier;
 
 @SpringBootApplication
 public class EgaCryptorApplication {
@@ -20,7 +27,15 @@ public class EgaCryptorApplication {
     public EgaCryptorCommandLinerRunner initEgaCryptorCommandLinerRunner(final ITaskExecutorService taskExecutorService,
                                                                          final IFileDiscoveryService fileDiscoveryService,
                                                                          final ApplicationContext applicationContext,
-                                                                         @Value("output.files.path.default") final String defaultOutputFilePath) {
-        return new EgaCryptorCommandLinerRunner(taskExecutorService, fileDiscoveryService, applicationContext, defaultOutputFilePath);
+                                                                         @Value("output.files.path.default") final String defaultOutputFilePath,
+                                                                         final CompositeProcessingListener processingListener,
+                                                                         final CryptographyPipeline cryptographyPipeline,
+                                                                         final DecryptionPipeline decryptionPipeline,
+                                                                         final Verifier verifier,
+                                                                         final ResourcePlan resourcePlan,
+                                                                         final StageMetrics stageMetrics,
+                                                                         final ProgressReporter progressReporter) {
+        return new EgaCryptorCommandLinerRunner(taskExecutorService, fileDiscoveryService, applicationContext, defaultOutputFilePath,
+                processingListener, cryptographyPipeline, decryptionPipeline, verifier, resourcePlan, stageMetrics, progressReporter);
     }
 }
@@ -0,0 +1,144 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.compression;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+
+/**
+ * Skips compression of files which are already compressed. A file is considered incompressible if its
+ * extension is one of the configured extensions, or if the first blocks of the file deflated at the
+ * fastest level don't shrink below the configured ratio. Compressible files are compressed as decided
+ * by the delegate policy.
+ */
+public class AdaptiveCompressionPolicy implements CompressionPolicy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveCompressionPolicy.class);
+
+    private final CompressionPolicy compressionPolicy;
+    private final CompressionAlgorithm incompressibleAlgorithm;
+    private final List<String> incompressibleExtensions;
+    private final int noOfSampleBlocks;
+    private final int sampleBlockSize;
+    private final double ratioThreshold;
+
+    public AdaptiveCompressionPolicy(final CompressionPolicy compressionPolicy,
+                                     final CompressionAlgorithm incompressibleAlgorithm,
+                                     final List<String> incompressibleExtensions,
+                                     final int noOfSampleBlocks,
+                                     final int sampleBlockSize,
+                                     final double ratioThreshold) {
+        if (incompressibleAlgorithm != CompressionAlgorithm.UNCOMPRESSED && incompressibleAlgorithm != CompressionAlgorithm.NONE) {
+            throw new IllegalArgumentException("Incompressible files can only be written as UNCOMPRESSED or NONE");
+        }
+        this.compressionPolicy = compressionPolicy;
+        this.incompressibleAlgorithm = incompressibleAlgorithm;
+        this.incompressibleExtensions = incompressibleExtensions.stream()
+                .map(String::trim)
+                .filter(extension -> !extension.isEmpty())
+                .map(extension -> ".".concat(extension.toLowerCase(Locale.ROOT)))
+                .collect(Collectors.toList());
+        this.noOfSampleBlocks = noOfSampleBlocks;
+        this.sampleBlockSize = sampleBlockSize;
+        this.ratioThreshold = ratioThreshold;
+    }
+
+    @Override
+    public CompressionDecision decide(final FileToProcess fileToProcess) {
+        final String fileName = fileToProcess.getFileToEncryptPath().getFileName().toString().toLowerCase(Locale.ROOT);
+        for (final String incompressibleExtension : incompressibleExtensions) {
+            if (fileName.endsWith(incompressibleExtension)) {
+                return log(fileToProcess, new CompressionDecision(incompressibleAlgorithm, Deflater.NO_COMPRESSION,
+                        "extension ".concat(incompressibleExtension), Double.NaN));
+            }
+        }
+
+        final double sampledRatio;
+        try {
+            sampledRatio = sampleCompressionRatio(fileToProcess);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to sample file {} - {}. File will be compressed", fileToProcess.getFileToEncryptPath(), e.getMessage());
+            return compressionPolicy.decide(fileToProcess);
+        }
+
+        if (sampledRatio >= ratioThreshold) {
+            return log(fileToProcess, new CompressionDecision(incompressibleAlgorithm, Deflater.NO_COMPRESSION,
+                    "sampled ratio above threshold", sampledRatio));
+        }
+        final CompressionDecision compressionDecision = compressionPolicy.decide(fileToProcess);
+        return log(fileToProcess, new CompressionDecision(compressionDecision.getCompressionAlgorithm(),
+                compressionDecision.getCompressionLevel(), compressionDecision.getReason(), sampledRatio));
+    }
+
+    /**
+     * Deflates first blocks of the file at the fastest level.
+     *
+     * @return Compressed size divided by no. of bytes sampled, 1 for an empty file.
+     */
+    private double sampleCompressionRatio(final FileToProcess fileToProcess) throws IOException {
+        final byte[] sampleBlock = new byte[sampleBlockSize];
+        final byte[] compressedBlock = new byte[sampleBlockSize];
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        long sampledBytes = 0;
+        long compressedBytes = 0;
+
+        try (final InputStream inputStream = Files.newInputStream(fileToProcess.getFileToEncryptPath())) {
+            for (int i = 0; i < noOfSampleBlocks; i++) {
+                final int bytesRead = readBlock(inputStream, sampleBlock);
+                if (bytesRead <= 0) {
+                    break;
+                }
+                deflater.reset();
+                deflater.setInput(sampleBlock, 0, bytesRead);
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressedBytes += deflater.deflate(compressedBlock);
+                }
+                sampledBytes += bytesRead;
+            }
+        } finally {
+            deflater.end();
+        }
+        return sampledBytes == 0 ? 1.0 : (double) compressedBytes / sampledBytes;
+    }
+
+    private int readBlock(final InputStream inputStream, final byte[] block) throws IOException {
+        int totalRead = 0;
+        int bytesRead;
+        while (totalRead < block.length && (bytesRead = inputStream.read(block, totalRead, block.length - totalRead)) > 0) {
+            totalRead += bytesRead;
+        }
+        return totalRead;
+    }
+
+    private CompressionDecision log(final FileToProcess fileToProcess, final CompressionDecision compressionDecision) {
+        LOGGER.info("Compression decision for file {} - {}", fileToProcess.getFileToEncryptPath(), compressionDecision);
+        return compressionDecision;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.compression;
+
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses files as configured for their extension. Overrides are given as
+ * {@code extension:ALGORITHM[:level]}, e.g. {@code vcf:BZIP2} or {@code fastq:ZIP:1}. The longest
+ * matching extension wins, so {@code fastq.gz} can be configured apart from {@code gz}.
+ * Files without a matching extension are compressed as decided by the delegate policy.
+ */
+public class ExtensionCompressionPolicy implements CompressionPolicy {
+
+    private final CompressionPolicy compressionPolicy;
+    private final Map<String, CompressionDecision> compressionDecisionByExtension = new LinkedHashMap<>();
+
+    public ExtensionCompressionPolicy(final CompressionPolicy compressionPolicy, final List<String> compressionOverrides) {
+        this.compressionPolicy = compressionPolicy;
+        compressionOverrides.stream()
+                .map(String::trim)
+                .filter(compressionOverride -> !compressionOverride.isEmpty())
+                .map(this::parseCompressionOverride)
+                .sorted(Comparator.comparingInt((Map.Entry<String, CompressionDecision> entry) -> entry.getKey().length()).reversed())
+                .forEach(entry -> compressionDecisionByExtension.put(entry.getKey(), entry.getValue()));
+    }
+
+    @Override
+    public CompressionDecision decide(final FileToProcess fileToProcess) {
+        final String fileName = fileToProcess.getFileToEncryptPath().getFileName().toString().toLowerCase(Locale.ROOT);
+        for (final Map.Entry<String, CompressionDecision> compressionDecisionEntry : compressionDecisionByExtension.entrySet()) {
+            if (fileName.endsWith(compressionDecisionEntry.getKey())) {
+                return compressionDecisionEntry.getValue();
+            }
+        }
+        return compressionPolicy.decide(fileToProcess);
+    }
+
+    private Map.Entry<String, CompressionDecision> parseCompressionOverride(final String compressionOverride) {
+        final String[] fields = compressionOverride.split(":");
+        if (fields.length < 2 || fields.length > 3 || fields[0].trim().isEmpty()) {
+            throw new IllegalArgumentException("Invalid compression override ".concat(compressionOverride)
+                    .concat(". Expected format is extension:ALGORITHM[:level]"));
+        }
+        final String extension = ".".concat(fields[0].trim().toLowerCase(Locale.ROOT));
+        final CompressionAlgorithm compressionAlgorithm = CompressionAlgorithm.valueOf(fields[1].trim().toUpperCase(Locale.ROOT));
+        final int compressionLevel = fields.length == 3 ? Integer.parseInt(fields[2].trim()) : Deflater.DEFAULT_COMPRESSION;
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level ".concat(String.valueOf(compressionLevel))
+                    .concat(" for extension ").concat(extension));
+        }
+        return new AbstractMap.SimpleImmutableEntry<>(extension, new CompressionDecision(compressionAlgorithm, compressionLevel,
+                "extension ".concat(extension), Double.NaN));
+    }
+}
@@ -21,54 +21,519 @@ import org.bouncycastle.openpgp.PGPException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import uk.ac.ebi.ega.egacryptor.compression.AdaptiveCompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.compression.CompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.compression.ExtensionCompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.compression.FixedCompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.constant.BufferType;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionMode;
+import uk.ac.ebi.ega.egacryptor.constant.ConcurrencyMode;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.DigestMode;
+import uk.ac.ebi.ega.egacryptor.constant.ExecutorMode;
+import uk.ac.ebi.ega.egacryptor.constant.InputMode;
+import uk.ac.ebi.ega.egacryptor.constant.PipelineStreamMode;
+import uk.ac.ebi.ega.egacryptor.constant.SchedulingMode;
+import uk.ac.ebi.ega.egacryptor.constant.SymmetricCipher;
 import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculatorFactory;
 import uk.ac.ebi.ega.egacryptor.cryptography.pgp.PGPCryptography;
+import uk.ac.ebi.ega.egacryptor.cryptography.util.PassphraseSupplier;
+import uk.ac.ebi.ega.egacryptor.device.DeviceResolver;
+import uk.ac.ebi.ega.egacryptor.metrics.ProgressMonitor;
+import uk.ac.ebi.ega.egacryptor.metrics.ProgressReporter;
+import uk.ac.ebi.ega.egacryptor.metrics.StageMetrics;
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.output.OutputDirectoryCache;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransactionFactory;
+import uk.ac.ebi.ega.egacryptor.pipeline.CompositeProcessingListener;
 import uk.ac.ebi.ega.egacryptor.pipeline.CryptographyPipeline;
+import uk.ac.ebi.ega.egacryptor.pipeline.CryptographyPipelineOptions;
+import uk.ac.ebi.ega.egacryptor.pipeline.DecryptionPipeline;
 import uk.ac.ebi.ega.egacryptor.pipeline.DefaultCryptographyPipeline;
+import uk.ac.ebi.ega.egacryptor.pipeline.SmallFileCryptographyPipeline;
+import uk.ac.ebi.ega.egacryptor.resource.CgroupLimits;
+import uk.ac.ebi.ega.egacryptor.resource.ResourcePlan;
+import uk.ac.ebi.ega.egacryptor.resource.ResourcePlanner;
+import uk.ac.ebi.ega.egacryptor.scheduling.CompressionCostEstimator;
+import uk.ac.ebi.ega.egacryptor.scheduling.FifoTaskScheduler;
+import uk.ac.ebi.ega.egacryptor.scheduling.FileSizeCostEstimator;
+import uk.ac.ebi.ega.egacryptor.scheduling.LargestFirstTaskScheduler;
+import uk.ac.ebi.ega.egacryptor.scheduling.TaskScheduler;
+import uk.ac.ebi.ega.egacryptor.service.AdaptiveConcurrency;
 import uk.ac.ebi.ega.egacryptor.service.FileDiscoveryService;
 import uk.ac.ebi.ega.egacryptor.service.IFileDiscoveryService;
 import uk.ac.ebi.ega.egacryptor.service.ITaskExecutorService;
+import uk.ac.ebi.ega.egacryptor.service.ParallelFileDiscoveryService;
 import uk.ac.ebi.ega.egacryptor.service.TaskExecutorService;
+import uk.ac.ebi.ega.egacryptor.service.WorkerExecutorFactory;
+import uk.ac.ebi.ega.egacryptor.stream.nio.InputStreamFactory;
+import uk.ac.ebi.ega.egacryptor.stream.pgp.ParallelDeflater;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.DefaultStreamFactory;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStreamFactory;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelinedStreamFactory;
+import uk.ac.ebi.ega.egacryptor.verify.Verifier;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.Deflater;
 
 @Configuration
 public class EgaCryptorConfiguration {
 
+    @Value("${pgp.public.key}")
+    private String publicKeyPath;
+
+    @Value("${pgp.secret.key:}")
+    private String secretKeyPath;
+
     @Value("${pgp.encryption.buffersize:2048}")
     private int bufferSize;
 
+    @Value("${pgp.encryption.cipher:CAST5}")
+    private SymmetricCipher symmetricCipher;
+
+    @Value("${pgp.encryption.provider:BC}")
+    private String dataEncryptionProvider;
+
+    @Value("${pgp.encryption.buffer.pool.size:32}")
+    private int bufferPoolSize;
+
+    @Value("${pgp.input.mode:STREAM}")
+    private InputMode inputMode;
+
+    @Value("${pgp.input.buffersize:4194304}")
+    private int inputBufferSize;
+
+    @Value("${pgp.digest.algorithms:MD5}")
+    private DigestAlgorithm[] digestAlgorithms;
+
+    @Value("${pgp.digest.mode:INLINE}")
+    private DigestMode digestMode;
+
+    @Value("${pgp.digest.buffersize:1048576}")
+    private int digestBufferSize;
+
+    @Value("${pgp.digest.queuesize:4}")
+    private int digestQueueSize;
+
+    @Value("${pgp.output.buffersize:4194304}")
+    private int outputBufferSize;
+
+    @Value("${pgp.output.queuesize:4}")
+    private int outputQueueSize;
+
+    @Value("${pgp.output.extend:false}")
+    private boolean outputExtend;
+
+    @Value("${pgp.output.sync:false}")
+    private boolean outputSync;
+
+    @Value("${verify.input.mode:CHANNEL}")
+    private InputMode verifyInputMode;
+
+    @Value("${verify.buffersize:4194304}")
+    private int verifyBufferSize;
+
+    @Value("${pgp.smallfile.threshold:1048576}")
+    private long smallFileThreshold;
+
+    @Value("${pgp.smallfile.loginterval:1000}")
+    private int smallFileLogInterval;
+
+    @Value("${discovery.threads:1}")
+    private int discoveryThreads;
+
+    @Value("${discovery.ordered:false}")
+    private boolean discoveryOrdered;
+
+    @Value("${discovery.queuesize:1024}")
+    private int discoveryQueueSize;
+
+    @Value("${device.concurrency.limits:}")
+    private String[] deviceConcurrencyLimits;
+
+    @Value("${device.concurrency.default:0}")
+    private int defaultDeviceConcurrencyLimit;
+
+    @Value("${executor.mode:PLATFORM}")
+    private ExecutorMode executorMode;
+
+    @Value("${executor.virtual.workers:64}")
+    private int noOfVirtualWorkers;
+
+    @Value("${executor.virtual.parallelism:0}")
+    private int virtualCarrierParallelism;
+
+    @Value("${executor.concurrency.mode:FIXED}")
+    private ConcurrencyMode concurrencyMode;
+
+    @Value("${executor.concurrency.interval:5000}")
+    private long concurrencyInterval;
+
+    @Value("${executor.concurrency.max:0}")
+    private int maxConcurrency;
+
+    @Value("${executor.concurrency.tolerance:0.05}")
+    private double concurrencyTolerance;
+
+    @Value("${executor.concurrency.decrease:0.75}")
+    private double concurrencyDecreaseFactor;
+
+    @Value("${resource.cgroup.enabled:true}")
+    private boolean cgroupEnabled;
+
+    @Value("${resource.memory.fraction:0.5}")
+    private double memoryFraction;
+
+    @Value("${metrics.enabled:true}")
+    private boolean metricsEnabled;
+
+    @Value("${metrics.json.path:}")
+    private String metricsJsonPath;
+
+    @Value("${metrics.prometheus.path:}")
+    private String metricsPrometheusPath;
+
+    @Value("${progress.interval:30000}")
+    private long progressInterval;
+
+    @Value("${progress.status.path:}")
+    private String progressStatusPath;
+
+    @Value("${scheduling.mode:FIFO}")
+    private SchedulingMode schedulingMode;
+
+    @Value("${scheduling.cost.compression.weight:4}")
+    private double compressionCostWeight;
+
+    @Value("${pipeline.stream.mode:DEFAULT}")
+    private PipelineStreamMode pipelineStreamMode;
+
+    @Value("${pipeline.stream.buffersize:1048576}")
+    private int pipelineStreamBufferSize;
+
+    @Value("${pipeline.stream.queuesize:4}")
+    private int pipelineStreamQueueSize;
+
+    @Value("${pgp.compression.threads:1}")
+    private int compressionThreads;
+
+    @Value("${pgp.compression.blocksize:131072}")
+    private int compressionBlockSize;
+
+    //Command line options --ca, --cl & --co take precedence over properties
+    @Value("${ca:${pgp.compression.algorithm:ZIP}}")
+    private CompressionAlgorithm compressionAlgorithm;
+
+    @Value("${cl:${pgp.compression.level:-1}}")
+    private int compressionLevel;
+
+    @Value("${co:${pgp.compression.overrides:}}")
+    private String[] compressionOverrides;
+
+    @Value("${pgp.compression.mode:FIXED}")
+    private CompressionMode compressionMode;
+
+    @Value("${pgp.compression.adaptive.algorithm:UNCOMPRESSED}")
+    private CompressionAlgorithm incompressibleAlgorithm;
+
+    @Value("${pgp.compression.adaptive.extensions:}")
+    private String[] incompressibleExtensions;
+
+    @Value("${pgp.compression.adaptive.sample.blocks:4}")
+    private int noOfSampleBlocks;
+
+    @Value("${pgp.compression.adaptive.sample.blocksize:65536}")
+    private int sampleBlockSize;
+
+    @Value("${pgp.compression.adaptive.threshold:0.95}")
+    private double compressionRatioThreshold;
+
     @Bean
-    public CryptographyPipeline initDefaultCryptographyPipeline(final Cryptography cryptography) {
+    @Primary
+    public CryptographyPipeline initDefaultCryptographyPipeline(final Cryptography cryptography,
+                                                                final PipelineStreamFactory pipelineStreamFactory,
+                                                                final CompressionPolicy compressionPolicy,
+                                                                final InputStreamFactory inputStreamFactory,
+                                                                final DigestCalculatorFactory digestCalculatorFactory,
+                                                                final OutputTransactionFactory outputTransactionFactory,
+                                                                final CompositeProcessingListener processingListener,
+                                                                final BufferPool bufferPool,
+                                                                final ThroughputMeter throughputMeter,
+                                                                final StageMetrics stageMetrics)
+            throws IOException, PGPException {
         if (bufferSize > 0 && ((bufferSize & (bufferSize - 1)) != 0)) {
             throw new RuntimeException("Buffer size for encryption should be power of 2");
         }
-        return new DefaultCryptographyPipeline(cryptography, bufferSize);
+        //Output directories are listed once for both pipelines
+        final CryptographyPipelineOptions cryptographyPipelineOptions = new CryptographyPipelineOptions(compressionPolicy,
+                digestCalculatorFactory, outputTransactionFactory, processingListener, new OutputDirectoryCache(), stageMetrics);
+        final CryptographyPipeline cryptographyPipeline = new DefaultCryptographyPipeline(cryptography, pipelineStreamFactory,
+                inputStreamFactory, cryptographyPipelineOptions);
+        if (smallFileThreshold <= 0) {
+            return cryptographyPipeline;
+        }
+        if (smallFileLogInterval <= 0) {
+            throw new RuntimeException("Log interval for small files should be greater than 0");
+        }
+        //Small files are encrypted on the processing thread, without pipeline stages or parallel compression
+        final Cryptography inlineCryptography = newPGPCryptography(new DefaultStreamFactory(bufferPool),
+                new ParallelDeflater(1, compressionBlockSize), bufferPool, "");
+        return new SmallFileCryptographyPipeline(cryptographyPipeline, inlineCryptography, cryptographyPipelineOptions,
+                throughputMeter, smallFileThreshold, smallFileLogInterval);
     }
 
     @Bean
-    public ITaskExecutorService initTaskExecutorService(final CryptographyPipeline cryptographyPipeline) {
-        return new TaskExecutorService(cryptographyPipeline);
+    public DecryptionPipeline initDecryptionPipeline(final Cryptography cryptography,
+                                                     final PipelineStreamFactory pipelineStreamFactory,
+                                                     final InputStreamFactory inputStreamFactory,
+                                                     final DigestCalculatorFactory digestCalculatorFactory,
+                                                     final OutputTransactionFactory outputTransactionFactory,
+                                                     final CompositeProcessingListener processingListener,
+                                                     final PassphraseSupplier passphraseSupplier) {
+        return new DecryptionPipeline(cryptography, pipelineStreamFactory, inputStreamFactory, digestCalculatorFactory,
+                outputTransactionFactory, processingListener, passphraseSupplier);
+    }
+
+    @Bean
+    public PassphraseSupplier initPassphraseSupplier(@Value("${pgp.secret.key.passphrase.file:}") final String passphraseFilePath) {
+        return new PassphraseSupplier(passphraseFilePath);
+    }
+
+    @Bean
+    public Verifier initVerifier(final Cryptography cryptography,
+                                 final DigestCalculatorFactory digestCalculatorFactory,
+                                 final PassphraseSupplier passphraseSupplier) {
+        if (verifyBufferSize <= 0) {
+            throw new RuntimeException("Buffer size for verification should be greater than 0");
+        }
+        return new Verifier(cryptography, new InputStreamFactory(verifyInputMode, verifyBufferSize), digestCalculatorFactory,
+                passphraseSupplier, verifyBufferSize);
+    }
+
+    @Bean
+    public CompositeProcessingListener initProcessingListener() {
+        return new CompositeProcessingListener();
+    }
+
+    @Bean
+    public OutputTransactionFactory initOutputTransactionFactory(final ResourcePlan resourcePlan, final ProgressMonitor progressMonitor) {
+        if (outputQueueSize < 0) {
+            throw new RuntimeException("Queue size for output should be 0 or greater");
+        }
+        final int plannedOutputBufferSize = resourcePlan.getBufferSize(BufferType.OUTPUT);
+        final PipelineStreamFactory writeBehindStreamFactory = outputQueueSize == 0 ? new DefaultStreamFactory(plannedOutputBufferSize) :
+                new PipelinedStreamFactory(plannedOutputBufferSize, outputQueueSize, "write-behind-");
+        return new OutputTransactionFactory(writeBehindStreamFactory, outputExtend, outputSync, progressMonitor.getWriteMeter());
+    }
+
+    @Bean
+    public DigestCalculatorFactory initDigestCalculatorFactory(final ResourcePlan resourcePlan) {
+        if (digestMode == DigestMode.ASYNC) {
+            if (digestBufferSize <= 0 || digestQueueSize <= 0) {
+                throw new RuntimeException("Buffer size & queue size for digest should be greater than 0");
+            }
+            return new DigestCalculatorFactory(Arrays.asList(digestAlgorithms),
+                    new PipelinedStreamFactory(resourcePlan.getBufferSize(BufferType.DIGEST), digestQueueSize, "digest-"));
+        }
+        return new DigestCalculatorFactory(Arrays.asList(digestAlgorithms));
+    }
+
+    @Bean
+    public InputStreamFactory initInputStreamFactory(final ThroughputMeter throughputMeter, final ResourcePlan resourcePlan) {
+        if (inputMode != InputMode.STREAM && inputBufferSize <= 0) {
+            throw new RuntimeException("Buffer size for input should be greater than 0");
+        }
+        return new InputStreamFactory(inputMode, resourcePlan.getBufferSize(BufferType.INPUT), throughputMeter);
+    }
+
+    @Bean
+    public ThroughputMeter initThroughputMeter() {
+        return new ThroughputMeter();
+    }
+
+    @Bean
+    public StageMetrics initStageMetrics() {
+        return new StageMetrics(metricsEnabled, metricsJsonPath.isEmpty() ? null : Paths.get(metricsJsonPath),
+                metricsPrometheusPath.isEmpty() ? null : Paths.get(metricsPrometheusPath));
+    }
+
+    @Bean
+    public ProgressMonitor initProgressMonitor(final ThroughputMeter throughputMeter) {
+        return new ProgressMonitor(throughputMeter);
+    }
+
+    @Bean
+    public ProgressReporter initProgressReporter(final ProgressMonitor progressMonitor) {
+        if (progressInterval < 0) {
+            throw new RuntimeException("Progress interval should be 0 or greater");
+        }
+        return new ProgressReporter(progressMonitor, progressInterval, progressStatusPath.isEmpty() ? null : Paths.get(progressStatusPath));
+    }
+
+    @Bean
+    public CompressionPolicy initCompressionPolicy() {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new RuntimeException("Compression level should be between -1 and 9");
+        }
+        CompressionPolicy compressionPolicy = new FixedCompressionPolicy(new CompressionDecision(compressionAlgorithm,
+                compressionLevel, "configured", Double.NaN));
+        if (compressionMode == CompressionMode.ADAPTIVE) {
+            if (noOfSampleBlocks <= 0 || sampleBlockSize <= 0) {
+                throw new RuntimeException("No. of sample blocks & sample block size should be greater than 0");
+            }
+            compressionPolicy = new AdaptiveCompressionPolicy(compressionPolicy, incompressibleAlgorithm, Arrays.asList(incompressibleExtensions),
+                    noOfSampleBlocks, sampleBlockSize, compressionRatioThreshold);
+        }
+        //Explicitly configured extensions are never sampled
+        return new ExtensionCompressionPolicy(compressionPolicy, Arrays.asList(compressionOverrides));
+    }
+
+    @Bean
+    public PipelineStreamFactory initPipelineStreamFactory(final BufferPool bufferPool, final ResourcePlan resourcePlan) {
+        if (pipelineStreamMode == PipelineStreamMode.PIPELINED) {
+            if (pipelineStreamBufferSize <= 0 || pipelineStreamQueueSize <= 0) {
+                throw new RuntimeException("Buffer size & queue size for pipelined stream should be greater than 0");
+            }
+            return new PipelinedStreamFactory(resourcePlan.getBufferSize(BufferType.PIPELINE), pipelineStreamQueueSize);
+        }
+        return new DefaultStreamFactory(bufferPool);
+    }
+
+    /**
+     * Buffers held by each file in progress, which are reduced when buffers of as many files as processors don't
+     * fit in the memory of the cgroup & the JVM.
+     */
+    @Bean
+    public ResourcePlan initResourcePlan() {
+        if (memoryFraction < 0 || memoryFraction > 1) {
+            throw new RuntimeException("Memory fraction should be between 0 and 1");
+        }
+        return new ResourcePlanner(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory(),
+                cgroupEnabled ? CgroupLimits.read() : CgroupLimits.NONE, memoryFraction)
+                .addBuffer(BufferType.INPUT, inputBufferSize, inputMode == InputMode.CHANNEL ? 1 : 0, true)
+                .addBuffer(BufferType.OUTPUT, outputBufferSize, Math.max(1, outputQueueSize), true)
+                //Reading, digest & encryption stages each hand buffers on
+                .addBuffer(BufferType.PIPELINE, pipelineStreamBufferSize,
+                        pipelineStreamMode == PipelineStreamMode.PIPELINED ? 3 * pipelineStreamQueueSize : 0, true)
+                //Digests of both the input & the output file
+                .addBuffer(BufferType.DIGEST, digestBufferSize,
+                        digestMode == DigestMode.ASYNC ? 2 * digestAlgorithms.length * digestQueueSize : 0, true)
+                .addBuffer(BufferType.ENCRYPTION, bufferSize, 2, false)
+                .addBuffer(BufferType.SMALL_FILE, smallFileThreshold, 2, false)
+                .plan();
+    }
+
+    @Bean
+    public BufferPool initBufferPool() {
+        if (bufferSize <= 0 || bufferPoolSize < 0) {
+            throw new RuntimeException("Buffer size for encryption should be greater than 0 & buffer pool size should be 0 or greater");
+        }
+        return new BufferPool(bufferSize, bufferPoolSize);
+    }
+
+    @Bean
+    public ITaskExecutorService initTaskExecutorService(final TaskScheduler taskScheduler,
+                                                        final ThroughputMeter throughputMeter,
+                                                        final ResourcePlan resourcePlan) throws IOException {
+        if (discoveryQueueSize <= 0) {
+            throw new RuntimeException("Queue size for discovery should be greater than 0");
+        }
+        if (defaultDeviceConcurrencyLimit < 0) {
+            throw new RuntimeException("Default concurrency limit of devices should be 0 or greater");
+        }
+        final DeviceResolver deviceResolver = new DeviceResolver(Arrays.asList(deviceConcurrencyLimits), defaultDeviceConcurrencyLimit);
+        if (executorMode == ExecutorMode.VIRTUAL && (noOfVirtualWorkers <= 0 || virtualCarrierParallelism < 0)) {
+            throw new RuntimeException("No. of virtual workers should be greater than 0 & carrier parallelism should be 0 or greater");
+        }
+        AdaptiveConcurrency adaptiveConcurrency = null;
+        if (concurrencyMode == ConcurrencyMode.AUTO) {
+            if (concurrencyInterval <= 0 || maxConcurrency < 0 || concurrencyTolerance < 0 ||
+                    concurrencyDecreaseFactor <= 0 || concurrencyDecreaseFactor >= 1) {
+                throw new RuntimeException("Concurrency interval should be greater than 0, max. concurrency & tolerance " +
+                        "should be 0 or greater & decrease factor should be between 0 and 1");
+            }
+            //Workers mostly wait on reads when more files than cores pay off
+            final int maxWorkers = Math.min(resourcePlan.getMaxWorkers(),
+                    maxConcurrency > 0 ? maxConcurrency : 4 * resourcePlan.getNoOfProcessors());
+            adaptiveConcurrency = new AdaptiveConcurrency(throughputMeter, concurrencyInterval, maxWorkers,
+                    concurrencyTolerance, concurrencyDecreaseFactor);
+        }
+        return new TaskExecutorService(taskScheduler, discoveryQueueSize,
+                deviceResolver.isLimited() ? deviceResolver : null,
+                new WorkerExecutorFactory(executorMode, Math.min(noOfVirtualWorkers, resourcePlan.getMaxWorkers()),
+                        virtualCarrierParallelism), adaptiveConcurrency);
+    }
+
+    @Bean
+    public TaskScheduler initTaskScheduler(final CompressionPolicy compressionPolicy) {
+        switch (schedulingMode) {
+            case LARGEST_FIRST:
+                return new LargestFirstTaskScheduler(new FileSizeCostEstimator());
+            case COST:
+                if (compressionCostWeight < 1) {
+                    throw new RuntimeException("Cost weight of compression should be 1 or greater");
+                }
+                return new LargestFirstTaskScheduler(new CompressionCostEstimator(new FileSizeCostEstimator(),
+                        compressionPolicy, compressionCostWeight));
+            default:
+                return new FifoTaskScheduler();
+        }
     }
 
     @Bean
     public IFileDiscoveryService initFileDiscoveryService() {
-        return new FileDiscoveryService();
+        if (discoveryThreads <= 0) {
+            throw new RuntimeException("No. of threads for discovery should be greater than 0");
+        }
+        return discoveryThreads == 1 ? new FileDiscoveryService(Arrays.asList(digestAlgorithms)) :
+                new ParallelFileDiscoveryService(discoveryThreads, discoveryOrdered, Arrays.asList(digestAlgorithms));
     }
 
     @Bean
-    public Cryptography initPGPCryptography(@Value("${pgp.public.key}") String publicKeyPath) throws IOException, PGPException {
+    public ParallelDeflater initParallelDeflater() {
+        if (compressionThreads > 1 && compressionBlockSize <= 0) {
+            throw new RuntimeException("Block size for parallel compression should be greater than 0");
+        }
+        return new ParallelDeflater(compressionThreads, compressionBlockSize);
+    }
+
+    @Bean
+    public Cryptography initPGPCryptography(final PipelineStreamFactory pipelineStreamFactory,
+                                            final ParallelDeflater parallelDeflater,
+                                            final BufferPool bufferPool) throws IOException, PGPException {
+        return newPGPCryptography(pipelineStreamFactory, parallelDeflater, bufferPool, secretKeyPath);
+    }
+
+    private Cryptography newPGPCryptography(final PipelineStreamFactory pipelineStreamFactory, final ParallelDeflater parallelDeflater,
+                                            final BufferPool bufferPool, final String secretKeyPath) throws IOException, PGPException {
         final Resource resource = new ClassPathResource(publicKeyPath);
 
         if (!resource.exists()) {
             throw new RuntimeException("Public key file ".concat(publicKeyPath).concat(" not found"));
         }
 
-        try (final InputStream inputStream = resource.getInputStream()) {
-            return new PGPCryptography(inputStream, bufferSize);
+        //Secret key is only needed to decrypt & is read from the file system rather than packaged with the application
+        final Path secretKeyFilePath = secretKeyPath.isEmpty() ? null : Paths.get(secretKeyPath);
+        if (secretKeyFilePath != null && !Files.isReadable(secretKeyFilePath)) {
+            throw new RuntimeException("Secret key file ".concat(secretKeyPath).concat(" not found"));
+        }
+
+        try (final InputStream inputStream = resource.getInputStream();
+             final InputStream secretKeyInputStream = secretKeyFilePath == null ? null : Files.newInputStream(secretKeyFilePath)) {
+            return new PGPCryptography(inputStream, bufferPool, pipelineStreamFactory, parallelDeflater,
+                    symmetricCipher, dataEncryptionProvider, secretKeyInputStream);
         }
     }
 }
@@ -0,0 +1,33 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.constant;
+
+public enum BufferType {
+    //Buffer files are read into with pgp.input.mode CHANNEL
+    INPUT,
+    //Write behind buffers of output files
+    OUTPUT,
+    //Buffers between pipeline stages with pipeline.stream.mode PIPELINED
+    PIPELINE,
+    //Buffers handed to digest threads with pgp.digest.mode ASYNC
+    DIGEST,
+    //Buffers of the encryption & compression streams
+    ENCRYPTION,
+    //Content & encrypted message of files encrypted in memory
+    SMALL_FILE
+}
@@ -0,0 +1,43 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.constant;
+
+import org.bouncycastle.bcpg.CompressionAlgorithmTags;
+
+public enum CompressionAlgorithm {
+    //Compressed data packet with deflate (RFC 1951) compressed data
+    ZIP(CompressionAlgorithmTags.ZIP),
+    //Compressed data packet with zlib (RFC 1950) compressed data
+    ZLIB(CompressionAlgorithmTags.ZLIB),
+    //Compressed data packet with bzip2 compressed data
+    BZIP2(CompressionAlgorithmTags.BZIP2),
+    //Compressed data packet with data stored as is
+    UNCOMPRESSED(CompressionAlgorithmTags.UNCOMPRESSED),
+    //No compressed data packet, literal data is encrypted directly
+    NONE(-1);
+
+    private final int algorithmTag;
+
+    CompressionAlgorithm(final int algorithmTag) {
+        this.algorithmTag = algorithmTag;
+    }
+
+    public int getAlgorithmTag() {
+        return algorithmTag;
+    }
+}
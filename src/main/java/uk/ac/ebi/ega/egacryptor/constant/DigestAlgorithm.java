@@ -0,0 +1,41 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.constant;
+
+public enum DigestAlgorithm {
+    MD5("MD5", FileExtensionType.MD5.getFileExtension()),
+    SHA1("SHA-1", ".sha1"),
+    SHA256("SHA-256", ".sha256"),
+    SHA512("SHA-512", ".sha512");
+
+    private final String algorithmName;
+    private final String fileExtension;
+
+    DigestAlgorithm(final String algorithmName, final String fileExtension) {
+        this.algorithmName = algorithmName;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getAlgorithmName() {
+        return algorithmName;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -18,7 +18,7 @@
 package uk.ac.ebi.ega.egacryptor.constant;
 
 public enum FileExtensionType {
-    GPG(".gpg"), MD5(".md5"), JAR(".jar");
+    GPG(".gpg"), MD5(".md5"), JAR(".jar"), PART(".egacryptor.part");
 
     private final String fileExtension;
 
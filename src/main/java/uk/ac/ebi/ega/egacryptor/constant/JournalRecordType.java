@@ -0,0 +1,35 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.constant;
+
+public enum JournalRecordType {
+    //File has been discovered & is waiting to be processed
+    QUEUED,
+    //All discovered files have been queued
+    DISCOVERED,
+    STARTED,
+    //Output files already existed
+    SKIPPED,
+    //Output files have been renamed to their final names
+    COMMITTED,
+    FAILED;
+
+    public boolean isDone() {
+        return this == SKIPPED || this == COMMITTED;
+    }
+}
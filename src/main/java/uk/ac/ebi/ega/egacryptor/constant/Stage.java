@@ -0,0 +1,44 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.constant;
+
+import java.util.Locale;
+
+public enum Stage {
+    //Reading the input file
+    READ,
+    //Digests of the input file
+    PLAINTEXT_DIGEST,
+    //Literal data & compressed data packets
+    COMPRESS,
+    //Encrypted data packet
+    ENCRYPT,
+    //Digests of the .gpg file
+    CIPHERTEXT_DIGEST,
+    //Writing output files
+    WRITE,
+    //Forcing output files to the storage device
+    SYNC;
+
+    /**
+     * @return Name used in metrics reports.
+     */
+    public String getMetricName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
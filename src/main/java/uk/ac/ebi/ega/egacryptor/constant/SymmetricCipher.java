@@ -0,0 +1,53 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.constant;
+
+import org.bouncycastle.bcpg.SymmetricKeyAlgorithmTags;
+
+public enum SymmetricCipher {
+    AES_128(SymmetricKeyAlgorithmTags.AES_128),
+    AES_192(SymmetricKeyAlgorithmTags.AES_192),
+    AES_256(SymmetricKeyAlgorithmTags.AES_256),
+    CAST5(SymmetricKeyAlgorithmTags.CAST5);
+
+    private final int algorithmTag;
+
+    SymmetricCipher(final int algorithmTag) {
+        this.algorithmTag = algorithmTag;
+    }
+
+    public int getAlgorithmTag() {
+        return algorithmTag;
+    }
+
+    public boolean isAES() {
+        return this == AES_128 || this == AES_192 || this == AES_256;
+    }
+
+    /**
+     * @return Cipher with given OpenPGP algorithm tag, null if cipher is not one of these.
+     */
+    public static SymmetricCipher fromAlgorithmTag(final int algorithmTag) {
+        for (final SymmetricCipher symmetricCipher : values()) {
+            if (symmetricCipher.algorithmTag == algorithmTag) {
+                return symmetricCipher;
+            }
+        }
+        return null;
+    }
+}
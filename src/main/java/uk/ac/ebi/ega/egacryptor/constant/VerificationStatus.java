@@ -0,0 +1,33 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.constant;
+
+public enum VerificationStatus {
+    //Calculated digest matches digest file
+    PASS,
+    //Calculated digest doesn't match digest file
+    FAIL,
+    //No digest file to verify against
+    MISSING,
+    //File couldn't be read or decrypted
+    ERROR;
+
+    public boolean isPassed() {
+        return this == PASS;
+    }
+}
@@ -18,13 +18,33 @@
 package uk.ac.ebi.ega.egacryptor.cryptography;
 
 import uk.ac.ebi.ega.egacryptor.exception.CryptographyException;
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.function.Supplier;
 
 public interface Cryptography {
 
     OutputStream encrypt(OutputStream fileOutputStream) throws CryptographyException;
 
+    OutputStream encrypt(OutputStream fileOutputStream, CompressionDecision compressionDecision) throws CryptographyException;
+
+    /**
+     * @param stageTimer Times compression & encryption, null if stages are not timed.
+     */
+    default OutputStream encrypt(OutputStream fileOutputStream, CompressionDecision compressionDecision,
+                                 StageTimer stageTimer) throws CryptographyException {
+        return encrypt(fileOutputStream, compressionDecision);
+    }
+
     InputStream decrypt(InputStream fileToDecryptInputStream, char[] password) throws CryptographyException;
+
+    /**
+     * @param passphraseSupplier Supplies passphrase of the secret key, private keys may be cached per supplier instance.
+     */
+    default InputStream decrypt(InputStream fileToDecryptInputStream, Supplier<char[]> passphraseSupplier) throws CryptographyException {
+        return decrypt(fileToDecryptInputStream, passphraseSupplier.get());
+    }
 }
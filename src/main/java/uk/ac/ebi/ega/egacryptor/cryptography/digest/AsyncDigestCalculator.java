@@ -0,0 +1,87 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.digest;
+
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStreamFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Copies data into a pipeline stage, so that the wrapped calculator is updated on the stage thread
+ * while the caller carries on. {@link #digest()} waits until every byte has been digested.
+ */
+public class AsyncDigestCalculator implements DigestCalculator {
+
+    private final DigestCalculator digestCalculator;
+    private final OutputStream stageOutputStream;
+    private boolean closed;
+
+    public AsyncDigestCalculator(final DigestCalculator digestCalculator, final PipelineStreamFactory pipelineStreamFactory) {
+        this.digestCalculator = digestCalculator;
+        this.stageOutputStream = pipelineStreamFactory.newStage(new OutputStream() {
+            @Override
+            public void write(final int b) {
+                digestCalculator.update(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] bytes, final int off, final int len) {
+                digestCalculator.update(bytes, off, len);
+            }
+        });
+    }
+
+    @Override
+    public void update(final byte[] bytes, final int off, final int len) {
+        try {
+            stageOutputStream.write(bytes, off, len);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<DigestAlgorithm, String> digest() {
+        try {
+            closeStage();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return digestCalculator.digest();
+    }
+
+    @Override
+    public void close() {
+        try {
+            closeStage();
+        } catch (IOException e) {
+            //Digest is not used once calculation has failed
+        }
+    }
+
+    private void closeStage() throws IOException {
+        if (!closed) {
+            closed = true;
+            stageOutputStream.close();
+        }
+    }
+}
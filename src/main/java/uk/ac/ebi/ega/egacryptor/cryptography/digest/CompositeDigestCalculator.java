@@ -0,0 +1,54 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.digest;
+
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CompositeDigestCalculator implements DigestCalculator {
+
+    private final List<DigestCalculator> digestCalculators;
+
+    public CompositeDigestCalculator(final List<DigestCalculator> digestCalculators) {
+        this.digestCalculators = digestCalculators;
+    }
+
+    @Override
+    public void update(final byte[] bytes, final int off, final int len) {
+        for (final DigestCalculator digestCalculator : digestCalculators) {
+            digestCalculator.update(bytes, off, len);
+        }
+    }
+
+    @Override
+    public Map<DigestAlgorithm, String> digest() {
+        final Map<DigestAlgorithm, String> digests = new LinkedHashMap<>();
+        for (final DigestCalculator digestCalculator : digestCalculators) {
+            digests.putAll(digestCalculator.digest());
+        }
+        return digests;
+    }
+
+    @Override
+    public void close() {
+        digestCalculators.forEach(DigestCalculator::close);
+    }
+}
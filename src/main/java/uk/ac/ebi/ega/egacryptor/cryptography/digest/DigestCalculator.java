@@ -0,0 +1,44 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.digest;
+
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+
+import java.util.Map;
+
+/**
+ * Calculates one or more digests over the same bytes.
+ */
+public interface DigestCalculator extends AutoCloseable {
+
+    void update(byte[] bytes, int off, int len);
+
+    /**
+     * Completes the calculation. Calculator must not be updated afterwards.
+     *
+     * @return Lower case hex digest by algorithm, in configured order.
+     */
+    Map<DigestAlgorithm, String> digest();
+
+    /**
+     * Releases any resources held, whether or not {@link #digest()} has been called.
+     */
+    @Override
+    default void close() {
+    }
+}
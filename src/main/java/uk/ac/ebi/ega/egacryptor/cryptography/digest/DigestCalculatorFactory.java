@@ -0,0 +1,71 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.digest;
+
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStreamFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class DigestCalculatorFactory {
+
+    private final List<DigestAlgorithm> digestAlgorithms;
+    private final PipelineStreamFactory pipelineStreamFactory;
+
+    /**
+     * Digests are calculated inline.
+     */
+    public DigestCalculatorFactory(final List<DigestAlgorithm> digestAlgorithms) {
+        this(digestAlgorithms, null);
+    }
+
+    /**
+     * @param pipelineStreamFactory If given, each digest algorithm is calculated in its own stage
+     *                              created by this factory.
+     */
+    public DigestCalculatorFactory(final List<DigestAlgorithm> digestAlgorithms, final PipelineStreamFactory pipelineStreamFactory) {
+        if (digestAlgorithms.isEmpty()) {
+            throw new IllegalArgumentException("At least one digest algorithm is required");
+        }
+        this.digestAlgorithms = Collections.unmodifiableList(digestAlgorithms);
+        this.pipelineStreamFactory = pipelineStreamFactory;
+    }
+
+    public List<DigestAlgorithm> getDigestAlgorithms() {
+        return digestAlgorithms;
+    }
+
+    public DigestCalculator newDigestCalculator() {
+        return newDigestCalculator(digestAlgorithms);
+    }
+
+    /**
+     * @param digestAlgorithms Digests to calculate instead of the configured ones.
+     */
+    public DigestCalculator newDigestCalculator(final List<DigestAlgorithm> digestAlgorithms) {
+        if (pipelineStreamFactory == null) {
+            return new MultiDigestCalculator(digestAlgorithms);
+        }
+        return new CompositeDigestCalculator(digestAlgorithms.stream()
+                .map(digestAlgorithm -> new AsyncDigestCalculator(new MultiDigestCalculator(Collections.singletonList(digestAlgorithm)),
+                        pipelineStreamFactory))
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.digest;
+
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.cryptography.util.Hash;
+
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Updates a {@link MessageDigest} per algorithm with each buffer, so that all digests
+ * are calculated in a single pass over the data.
+ */
+public class MultiDigestCalculator implements DigestCalculator {
+
+    private final Map<DigestAlgorithm, MessageDigest> messageDigests = new LinkedHashMap<>();
+
+    public MultiDigestCalculator(final List<DigestAlgorithm> digestAlgorithms) {
+        digestAlgorithms.forEach(digestAlgorithm -> messageDigests.put(digestAlgorithm, Hash.getMessageDigest(digestAlgorithm)));
+    }
+
+    @Override
+    public void update(final byte[] bytes, final int off, final int len) {
+        for (final MessageDigest messageDigest : messageDigests.values()) {
+            messageDigest.update(bytes, off, len);
+        }
+    }
+
+    @Override
+    public Map<DigestAlgorithm, String> digest() {
+        final Map<DigestAlgorithm, String> digests = new LinkedHashMap<>();
+        messageDigests.forEach((digestAlgorithm, messageDigest) -> digests.put(digestAlgorithm, Hash.normalize(messageDigest)));
+        return digests;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.digest;
+
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+
+import java.util.Map;
+
+/**
+ * Times updates of a digest calculator. With asynchronous digests only handing bytes to the digest threads
+ * is timed.
+ */
+public class TimedDigestCalculator implements DigestCalculator {
+
+    private final DigestCalculator digestCalculator;
+    private final StageTimer stageTimer;
+    private final Stage stage;
+
+    private TimedDigestCalculator(final DigestCalculator digestCalculator, final StageTimer stageTimer, final Stage stage) {
+        this.digestCalculator = digestCalculator;
+        this.stageTimer = stageTimer;
+        this.stage = stage;
+    }
+
+    /**
+     * @return Calculator timing the stage, the given calculator if stages are not timed.
+     */
+    public static DigestCalculator wrap(final DigestCalculator digestCalculator, final StageTimer stageTimer, final Stage stage) {
+        return stageTimer == null ? digestCalculator : new TimedDigestCalculator(digestCalculator, stageTimer, stage);
+    }
+
+    @Override
+    public void update(final byte[] bytes, final int off, final int len) {
+        final long startTime = System.nanoTime();
+        digestCalculator.update(bytes, off, len);
+        stageTimer.record(stage, System.nanoTime() - startTime, len);
+    }
+
+    @Override
+    public Map<DigestAlgorithm, String> digest() {
+        final long startTime = System.nanoTime();
+        final Map<DigestAlgorithm, String> digests = digestCalculator.digest();
+        stageTimer.record(stage, System.nanoTime() - startTime, 0);
+        return digests;
+    }
+
+    @Override
+    public void close() {
+        digestCalculator.close();
+    }
+}
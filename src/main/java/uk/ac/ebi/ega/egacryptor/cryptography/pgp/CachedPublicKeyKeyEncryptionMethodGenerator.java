@@ -0,0 +1,90 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.pgp;
+
+import org.bouncycastle.bcpg.PublicKeyAlgorithmTags;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.operator.PublicKeyKeyEncryptionMethodGenerator;
+import org.bouncycastle.openpgp.operator.jcajce.JcaPGPKeyConverter;
+
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+
+/**
+ * Encrypts session keys with an RSA or ElGamal public key. Unlike JcePublicKeyKeyEncryptionMethodGenerator,
+ * the public key is converted once & each thread reuses its cipher, so the generator can be shared by all
+ * files of a run.
+ */
+public class CachedPublicKeyKeyEncryptionMethodGenerator extends PublicKeyKeyEncryptionMethodGenerator {
+
+    private final PublicKey publicKey;
+    private final SecureRandom secureRandom;
+    private final ThreadLocal<Cipher> cipher;
+
+    public CachedPublicKeyKeyEncryptionMethodGenerator(final PGPPublicKey pgpPublicKey, final Provider provider,
+                                                       final SecureRandom secureRandom) throws PGPException {
+        super(pgpPublicKey);
+        final String transformation = getTransformation(pgpPublicKey.getAlgorithm());
+        this.publicKey = new JcaPGPKeyConverter().setProvider(provider).getPublicKey(pgpPublicKey);
+        this.secureRandom = secureRandom;
+        //Fails early if provider doesn't support the transformation
+        newCipher(transformation, provider);
+        this.cipher = ThreadLocal.withInitial(() -> newCipher(transformation, provider));
+    }
+
+    public static boolean isSupported(final PGPPublicKey pgpPublicKey) {
+        return pgpPublicKey.getAlgorithm() != PublicKeyAlgorithmTags.ECDH;
+    }
+
+    @Override
+    protected byte[] encryptSessionInfo(final PGPPublicKey pgpPublicKey, final byte[] sessionInfo) throws PGPException {
+        try {
+            final Cipher sessionInfoCipher = cipher.get();
+            sessionInfoCipher.init(Cipher.ENCRYPT_MODE, publicKey, secureRandom);
+            return sessionInfoCipher.doFinal(sessionInfo);
+        } catch (GeneralSecurityException e) {
+            throw new PGPException("Unable to encrypt session key - ".concat(e.getMessage()), e);
+        }
+    }
+
+    private static String getTransformation(final int publicKeyAlgorithm) throws PGPException {
+        switch (publicKeyAlgorithm) {
+            case PublicKeyAlgorithmTags.RSA_ENCRYPT:
+            case PublicKeyAlgorithmTags.RSA_GENERAL:
+                return "RSA/ECB/PKCS1Padding";
+            case PublicKeyAlgorithmTags.ELGAMAL_ENCRYPT:
+            case PublicKeyAlgorithmTags.ELGAMAL_GENERAL:
+                return "ElGamal/ECB/PKCS1Padding";
+            default:
+                throw new PGPException("Unsupported public key algorithm ".concat(String.valueOf(publicKeyAlgorithm)));
+        }
+    }
+
+    private static Cipher newCipher(final String transformation, final Provider provider) {
+        try {
+            return Cipher.getInstance(transformation, provider);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cipher ".concat(transformation).concat(" not available from provider ")
+                    .concat(provider.getName()), e);
+        }
+    }
+}
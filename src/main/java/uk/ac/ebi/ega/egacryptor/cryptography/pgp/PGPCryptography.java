@@ -17,25 +17,55 @@
  */
 package uk.ac.ebi.ega.egacryptor.cryptography.pgp;
 
+import com.sun.management.HotSpotDiagnosticMXBean;
+import org.bouncycastle.apache.bzip2.CBZip2InputStream;
+import org.bouncycastle.bcpg.BCPGOutputStream;
+import org.bouncycastle.bcpg.PacketTags;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openpgp.PGPCompressedData;
 import org.bouncycastle.openpgp.PGPCompressedDataGenerator;
+import org.bouncycastle.openpgp.PGPEncryptedDataList;
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPLiteralData;
 import org.bouncycastle.openpgp.PGPLiteralDataGenerator;
+import org.bouncycastle.openpgp.PGPMarker;
+import org.bouncycastle.openpgp.PGPPrivateKey;
 import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyEncryptedData;
+import org.bouncycastle.openpgp.PGPSecretKeyRingCollection;
+import org.bouncycastle.openpgp.PGPUtil;
+import org.bouncycastle.openpgp.jcajce.JcaPGPObjectFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
+import uk.ac.ebi.ega.egacryptor.constant.SymmetricCipher;
 import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
 import uk.ac.ebi.ega.egacryptor.exception.CryptographyException;
 import uk.ac.ebi.ega.egacryptor.exception.pgp.PGPCryptographyException;
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.stream.metrics.TimedOutputStream;
+import uk.ac.ebi.ega.egacryptor.stream.pgp.PGPDecryptedInputStream;
 import uk.ac.ebi.ega.egacryptor.stream.pgp.PGPEncryptedOutputStream;
+import uk.ac.ebi.ega.egacryptor.stream.pgp.PGPInflaterInputStream;
+import uk.ac.ebi.ega.egacryptor.stream.pgp.ParallelDeflater;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStreamFactory;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.security.Provider;
 import java.security.Security;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class PGPCryptography implements Cryptography {
 
@@ -43,38 +73,257 @@ public class PGPCryptography implements Cryptography {
 
     private final PGPPublicKey pgpPublicKey;
     private final int bufferSize;
+    private final BufferPool bufferPool;
+    private final PipelineStreamFactory pipelineStreamFactory;
+    private final ParallelDeflater parallelDeflater;
+    private final SymmetricCipher symmetricCipher;
+    private final Provider dataEncryptionProvider;
+    private final PGPEncryptorFactory pgpEncryptorFactory;
+    private final String dataEncryptionProviderName;
+    private final PGPSecretKeyRingCollection pgpSecretKeyRings;
+    //Extracting a private key runs the key derivation of the passphrase, so it is done once per key & passphrase supplier
+    private final Map<PrivateKeyCacheKey, PGPPrivateKey> pgpPrivateKeys = new ConcurrentHashMap<>();
 
-    public PGPCryptography(final InputStream publicKeyringInputStream, final int bufferSize) throws IOException, PGPException {
-        this.pgpPublicKey = PGPUtils.readPublicKey(publicKeyringInputStream);
-        this.bufferSize = bufferSize;
+    /**
+     * @param bufferPool               Buffers of packet generators, a buffer is released when the encrypted stream
+     *                                 using it is closed.
+     * @param secretKeyringInputStream Secret keyring used to decrypt, null if only used to encrypt.
+     */
+    public PGPCryptography(final InputStream publicKeyringInputStream, final BufferPool bufferPool,
+                           final PipelineStreamFactory pipelineStreamFactory,
+                           final ParallelDeflater parallelDeflater,
+                           final SymmetricCipher symmetricCipher,
+                           final String dataEncryptionProviderName,
+                           final InputStream secretKeyringInputStream) throws IOException, PGPException {
         installProviderIfNeeded();
+        this.pgpPublicKey = PGPUtils.readPublicKey(publicKeyringInputStream);
+        this.bufferSize = bufferPool.getBufferSize();
+        this.bufferPool = bufferPool;
+        this.pipelineStreamFactory = pipelineStreamFactory;
+        this.parallelDeflater = parallelDeflater;
+        this.symmetricCipher = symmetricCipher;
+        this.dataEncryptionProvider = PGPUtils.getDataEncryptionProvider(dataEncryptionProviderName, symmetricCipher);
+        this.dataEncryptionProviderName = dataEncryptionProviderName;
+        this.pgpEncryptorFactory = new PGPEncryptorFactory(pgpPublicKey, symmetricCipher.getAlgorithmTag(),
+                Security.getProvider(BouncyCastleProvider.PROVIDER_NAME), dataEncryptionProvider);
+        this.pgpSecretKeyRings = secretKeyringInputStream == null ? null : PGPUtils.readSecretKeyRings(secretKeyringInputStream);
+        LOGGER.info("Data will be encrypted with {} through provider {}. AES intrinsics {}", symmetricCipher,
+                dataEncryptionProvider.getName(), getAESIntrinsicsOption());
     }
 
     @Override
     public OutputStream encrypt(final OutputStream fileOutputStream) throws CryptographyException {
+        return encrypt(fileOutputStream, CompressionDecision.DEFAULT);
+    }
+
+    @Override
+    public OutputStream encrypt(final OutputStream fileOutputStream, final CompressionDecision compressionDecision)
+            throws CryptographyException {
+        return encrypt(fileOutputStream, compressionDecision, null);
+    }
+
+    /**
+     * Compression is timed from writes to the returned stream & encryption from writes to the encrypted data
+     * packet, each without the time spent writing to the next stage on the same thread.
+     */
+    @Override
+    public OutputStream encrypt(final OutputStream fileOutputStream, final CompressionDecision compressionDecision,
+                                final StageTimer stageTimer) throws CryptographyException {
         try {
-            return doEncrypt(fileOutputStream);
+            return doEncrypt(fileOutputStream, compressionDecision, stageTimer);
         } catch (IOException | PGPException e) {
             LOGGER.error("Error in encryption - {}", e.getMessage());
             throw new PGPCryptographyException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Decrypts message encrypted for a key of the secret keyring. Each decoding step runs as a separate
+     * stage when pipelining is enabled. Closing the returned stream closes the given stream. The private key
+     * is extracted on every call.
+     *
+     * @param password Passphrase of the secret key.
+     * @return Literal data of the message. Integrity of the message is checked at the end of this stream.
+     */
+    @Override
+    public InputStream decrypt(final InputStream fileToDecryptInputStream, final char[] password) throws CryptographyException {
+        return decrypt(fileToDecryptInputStream, keyID -> PGPUtils.extractPrivateKey(pgpSecretKeyRings, keyID, password));
+    }
+
+    /**
+     * Same as decrypting with the passphrase, the private key is extracted once per passphrase supplier.
+     */
     @Override
-    public InputStream decrypt(final InputStream fileToDecryptInputStream, final char[] password) {
-        throw new UnsupportedOperationException();
+    public InputStream decrypt(final InputStream fileToDecryptInputStream,
+                               final Supplier<char[]> passphraseSupplier) throws CryptographyException {
+        return decrypt(fileToDecryptInputStream, keyID -> getPrivateKey(keyID, passphraseSupplier));
+    }
+
+    private InputStream decrypt(final InputStream fileToDecryptInputStream,
+                                final PrivateKeyProvider privateKeyProvider) throws CryptographyException {
+        try {
+            return doDecrypt(fileToDecryptInputStream, privateKeyProvider);
+        } catch (IOException | PGPException e) {
+            LOGGER.error("Error in decryption - {}", e.getMessage());
+            throw new PGPCryptographyException(e.getMessage(), e);
+        }
+    }
+
+    private InputStream doDecrypt(final InputStream fileToDecryptInputStream,
+                                  final PrivateKeyProvider privateKeyProvider) throws IOException, PGPException {
+        if (pgpSecretKeyRings == null) {
+            throw new PGPException("Secret keyring has not been configured");
+        }
+        //Stages are closed if the message can't be opened, so that no read-ahead thread is left behind
+        final InputStream encryptedInputStream = pipelineStreamFactory.newInputStage(fileToDecryptInputStream);
+        InputStream decryptedInputStream = null;
+        try {
+            final JcaPGPObjectFactory pgpObjectFactory = new JcaPGPObjectFactory(PGPUtil.getDecoderStream(encryptedInputStream));
+            Object pgpObject = pgpObjectFactory.nextObject();
+            if (pgpObject instanceof PGPMarker) {
+                pgpObject = pgpObjectFactory.nextObject();
+            }
+            if (!(pgpObject instanceof PGPEncryptedDataList)) {
+                throw new PGPException("Input is not PGP encrypted data");
+            }
+
+            PGPPublicKeyEncryptedData pgpPublicKeyEncryptedData = null;
+            PGPPrivateKey pgpPrivateKey = null;
+            final Iterator<?> encryptedDataIterator = ((PGPEncryptedDataList) pgpObject).getEncryptedDataObjects();
+            while (pgpPrivateKey == null && encryptedDataIterator.hasNext()) {
+                final Object pgpEncryptedData = encryptedDataIterator.next();
+                if (pgpEncryptedData instanceof PGPPublicKeyEncryptedData) {
+                    pgpPublicKeyEncryptedData = (PGPPublicKeyEncryptedData) pgpEncryptedData;
+                    pgpPrivateKey = privateKeyProvider.getPrivateKey(pgpPublicKeyEncryptedData.getKeyID());
+                }
+            }
+            if (pgpPrivateKey == null) {
+                throw new PGPException("Secret key of encrypted data not found in secret keyring");
+            }
+
+            decryptedInputStream = pipelineStreamFactory.newInputStage(pgpPublicKeyEncryptedData.getDataStream(
+                    PGPUtils.getDataDecryptorFactory(pgpPrivateKey, dataEncryptionProviderName)));
+            JcaPGPObjectFactory plainObjectFactory = new JcaPGPObjectFactory(decryptedInputStream);
+            Object message = plainObjectFactory.nextObject();
+            InputStream decompressedInputStream = decryptedInputStream;
+            if (message instanceof PGPCompressedData) {
+                decompressedInputStream = openCompressedData((PGPCompressedData) message);
+                plainObjectFactory = new JcaPGPObjectFactory(decompressedInputStream);
+                message = plainObjectFactory.nextObject();
+            }
+            if (!(message instanceof PGPLiteralData)) {
+                throw new PGPException("Encrypted data doesn't hold literal data");
+            }
+            return new PGPDecryptedInputStream(((PGPLiteralData) message).getInputStream(), decryptedInputStream,
+                    pgpPublicKeyEncryptedData, decompressedInputStream, decryptedInputStream, encryptedInputStream);
+        } catch (IOException | PGPException | RuntimeException e) {
+            closeQuietly(decryptedInputStream);
+            closeQuietly(encryptedInputStream);
+            throw e;
+        }
     }
 
-    private OutputStream doEncrypt(final OutputStream fileOutputStream)
-            throws IOException, PGPException {
-        final OutputStream pgpEncryptedDataGeneratorOutputStream = PGPUtils.getEncryptedGenerator(pgpPublicKey).open(fileOutputStream, new byte[bufferSize]);
-        final PGPCompressedDataGenerator pgpCompressedDataGenerator = new PGPCompressedDataGenerator(PGPCompressedData.ZIP);
-        final OutputStream pgpCompressedDataGeneratorOutputStream = pgpCompressedDataGenerator.open(pgpEncryptedDataGeneratorOutputStream);//Don't close this
+    private void closeQuietly(final InputStream inputStream) {
+        if (inputStream == null) {
+            return;
+        }
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to close stream - {}", e.getMessage());
+        }
+    }
+
+    private InputStream openCompressedData(final PGPCompressedData pgpCompressedData) throws IOException, PGPException {
+        switch (pgpCompressedData.getAlgorithm()) {
+            case PGPCompressedData.ZIP:
+                return new PGPInflaterInputStream(pgpCompressedData.getInputStream(), true, bufferSize);
+            case PGPCompressedData.ZLIB:
+                return new PGPInflaterInputStream(pgpCompressedData.getInputStream(), false, bufferSize);
+            case PGPCompressedData.BZIP2:
+                //Bzip2 stream closes its input at the end of data, which has still to be read to check integrity
+                return new CBZip2InputStream(new FilterInputStream(pgpCompressedData.getInputStream()) {
+                    @Override
+                    public void close() {
+                    }
+                });
+            default:
+                return pgpCompressedData.getDataStream();
+        }
+    }
+
+    /**
+     * Private keys are extracted once per key & passphrase supplier & cached for the lifetime of the supplier's use,
+     * nothing derived from the passphrase is kept. A key is only taken from the cache for the same supplier instance,
+     * a key of any other supplier is checked by extracting the key again.
+     */
+    private PGPPrivateKey getPrivateKey(final long keyID, final Supplier<char[]> passphraseSupplier) throws PGPException {
+        final PrivateKeyCacheKey cacheKey = new PrivateKeyCacheKey(keyID, passphraseSupplier);
+        final PGPPrivateKey cachedPrivateKey = pgpPrivateKeys.get(cacheKey);
+        if (cachedPrivateKey != null) {
+            return cachedPrivateKey;
+        }
+        final PGPPrivateKey extractedPrivateKey = PGPUtils.extractPrivateKey(pgpSecretKeyRings, keyID, passphraseSupplier.get());
+        if (extractedPrivateKey != null) {
+            pgpPrivateKeys.put(cacheKey, extractedPrivateKey);
+        }
+        return extractedPrivateKey;
+    }
+
+    private OutputStream doEncrypt(final OutputStream fileOutputStream, final CompressionDecision compressionDecision,
+                                   final StageTimer stageTimer) throws IOException, PGPException {
+        final List<byte[]> buffers = new ArrayList<>();
+        final OutputStream encryptedDataOutputStream = TimedOutputStream.wrap(fileOutputStream, stageTimer, null, Stage.ENCRYPT);
+        //Encryption runs as a separate stage from compression when pipelining is enabled, so it is timed on its own thread
+        final OutputStream pgpEncryptedDataGeneratorOutputStream = TimedOutputStream.wrap(pipelineStreamFactory.newStage(
+                TimedOutputStream.wrap(pgpEncryptorFactory.newEncryptedDataGenerator().open(encryptedDataOutputStream, acquire(buffers)),
+                        stageTimer, Stage.ENCRYPT, null)), stageTimer, null, Stage.COMPRESS);
+        final OutputStream pgpCompressedDataGeneratorOutputStream = openCompressedData(pgpEncryptedDataGeneratorOutputStream,
+                compressionDecision, buffers);
         final PGPLiteralDataGenerator pgpLiteralDataGenerator = new PGPLiteralDataGenerator();
         final OutputStream pgpLiteralDataGeneratorOutputStream = pgpLiteralDataGenerator.open(pgpCompressedDataGeneratorOutputStream, PGPLiteralData.BINARY, ""
-                , new Date(), new byte[bufferSize]);
-        return new PGPEncryptedOutputStream(pgpLiteralDataGeneratorOutputStream, pgpCompressedDataGenerator,
-                pgpEncryptedDataGeneratorOutputStream);
+                , new Date(), acquire(buffers));
+        return TimedOutputStream.wrap(new PGPEncryptedOutputStream(pgpLiteralDataGeneratorOutputStream,
+                pgpCompressedDataGeneratorOutputStream, pgpEncryptedDataGeneratorOutputStream,
+                () -> buffers.forEach(bufferPool::release), () -> buffers.forEach(bufferPool::discard)), stageTimer, Stage.COMPRESS, null);
+    }
+
+    private byte[] acquire(final List<byte[]> buffers) {
+        final byte[] buffer = bufferPool.acquire();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private OutputStream openCompressedData(final OutputStream pgpEncryptedDataGeneratorOutputStream,
+                                            final CompressionDecision compressionDecision,
+                                            final List<byte[]> buffers) throws IOException, PGPException {
+        switch (compressionDecision.getCompressionAlgorithm()) {
+            case NONE:
+                //Literal data packet is written directly in the encrypted data packet
+                return pgpEncryptedDataGeneratorOutputStream;
+            case ZIP:
+                if (parallelDeflater.isEnabled()) {
+                    //Same packet as written by PGPCompressedDataGenerator, with the deflate stream produced by several threads
+                    final BCPGOutputStream compressedDataPacketOutputStream = new BCPGOutputStream(pgpEncryptedDataGeneratorOutputStream,
+                            PacketTags.COMPRESSED_DATA, acquire(buffers));
+                    compressedDataPacketOutputStream.write(PGPCompressedData.ZIP);
+                    return parallelDeflater.open(compressedDataPacketOutputStream, compressionDecision.getCompressionLevel());
+                }
+                return new PGPCompressedDataGenerator(PGPCompressedData.ZIP, compressionDecision.getCompressionLevel())
+                        .open(pgpEncryptedDataGeneratorOutputStream, acquire(buffers));
+            default:
+                return new PGPCompressedDataGenerator(compressionDecision.getCompressionAlgorithm().getAlgorithmTag(),
+                        compressionDecision.getCompressionLevel()).open(pgpEncryptedDataGeneratorOutputStream, acquire(buffers));
+        }
+    }
+
+    private static String getAESIntrinsicsOption() {
+        try {
+            return ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                    .getVMOption("UseAESIntrinsics").getValue();
+        } catch (RuntimeException | LinkageError e) {
+            return "unknown";
+        }
     }
 
     private void installProviderIfNeeded() {
@@ -82,4 +331,39 @@ public class PGPCryptography implements Cryptography {
             Security.addProvider(new BouncyCastleProvider());
         }
     }
+
+    @FunctionalInterface
+    private interface PrivateKeyProvider {
+        /**
+         * @return Private key, null if the secret keyring doesn't hold the key.
+         */
+        PGPPrivateKey getPrivateKey(final long keyID) throws PGPException;
+    }
+
+    /**
+     * Secret key ID & passphrase supplier, compared by identity.
+     */
+    private static class PrivateKeyCacheKey {
+        private final long keyID;
+        private final Supplier<char[]> passphraseSupplier;
+
+        private PrivateKeyCacheKey(final long keyID, final Supplier<char[]> passphraseSupplier) {
+            this.keyID = keyID;
+            this.passphraseSupplier = passphraseSupplier;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof PrivateKeyCacheKey)) {
+                return false;
+            }
+            final PrivateKeyCacheKey other = (PrivateKeyCacheKey) o;
+            return keyID == other.keyID && passphraseSupplier == other.passphraseSupplier;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(keyID) + System.identityHashCode(passphraseSupplier);
+        }
+    }
 }
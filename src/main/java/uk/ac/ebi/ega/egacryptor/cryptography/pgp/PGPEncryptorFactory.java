@@ -0,0 +1,61 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.pgp;
+
+import org.bouncycastle.openpgp.PGPEncryptedDataGenerator;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.bouncycastle.openpgp.operator.jcajce.JcePGPDataEncryptorBuilder;
+import org.bouncycastle.openpgp.operator.jcajce.JcePublicKeyKeyEncryptionMethodGenerator;
+
+import java.security.Provider;
+import java.security.SecureRandom;
+
+/**
+ * Encryption setup shared by all files of a run. Both builders are thread safe once configured, so
+ * only the session key & the cipher of the data are created per file.
+ */
+public class PGPEncryptorFactory {
+
+    private final JcePGPDataEncryptorBuilder dataEncryptorBuilder;
+    private final PGPKeyEncryptionMethodGenerator keyEncryptionMethodGenerator;
+
+    /**
+     * @param keyEncryptionProvider  Provider encrypting the session key.
+     * @param dataEncryptionProvider Provider encrypting the data.
+     */
+    public PGPEncryptorFactory(final PGPPublicKey pgpPublicKey, final int symmetricKeyAlgorithm,
+                               final Provider keyEncryptionProvider, final Provider dataEncryptionProvider) throws PGPException {
+        //SecureRandom is thread safe, one instance is seeded once for the whole run
+        final SecureRandom secureRandom = new SecureRandom();
+        this.dataEncryptorBuilder = new JcePGPDataEncryptorBuilder(symmetricKeyAlgorithm).
+                setWithIntegrityPacket(true).
+                setSecureRandom(secureRandom).
+                setProvider(dataEncryptionProvider);
+        this.keyEncryptionMethodGenerator = CachedPublicKeyKeyEncryptionMethodGenerator.isSupported(pgpPublicKey) ?
+                new CachedPublicKeyKeyEncryptionMethodGenerator(pgpPublicKey, keyEncryptionProvider, secureRandom) :
+                new JcePublicKeyKeyEncryptionMethodGenerator(pgpPublicKey).setProvider(keyEncryptionProvider).setSecureRandom(secureRandom);
+    }
+
+    public PGPEncryptedDataGenerator newEncryptedDataGenerator() {
+        final PGPEncryptedDataGenerator pgpEncryptedDataGenerator = new PGPEncryptedDataGenerator(dataEncryptorBuilder);
+        pgpEncryptedDataGenerator.addMethod(keyEncryptionMethodGenerator);
+        return pgpEncryptedDataGenerator;
+    }
+}
@@ -19,24 +19,37 @@ package uk.ac.ebi.ega.egacryptor.cryptography.pgp;
 
 import org.bouncycastle.bcpg.PublicKeyAlgorithmTags;
 import org.bouncycastle.bcpg.sig.KeyFlags;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openpgp.PGPEncryptedData;
 import org.bouncycastle.openpgp.PGPEncryptedDataGenerator;
 import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPrivateKey;
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRingCollection;
 import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.PGPSignatureSubpacketVector;
 import org.bouncycastle.openpgp.PGPUtil;
+import org.bouncycastle.openpgp.operator.PGPDataDecryptor;
+import org.bouncycastle.openpgp.operator.PublicKeyDataDecryptorFactory;
 import org.bouncycastle.openpgp.operator.jcajce.JcaKeyFingerprintCalculator;
+import org.bouncycastle.openpgp.operator.jcajce.JcePBESecretKeyDecryptorBuilder;
 import org.bouncycastle.openpgp.operator.jcajce.JcePGPDataEncryptorBuilder;
+import org.bouncycastle.openpgp.operator.jcajce.JcePublicKeyDataDecryptorFactoryBuilder;
 import org.bouncycastle.openpgp.operator.jcajce.JcePublicKeyKeyEncryptionMethodGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.SymmetricCipher;
 
+import javax.crypto.Cipher;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Provider;
 import java.security.SecureRandom;
+import java.security.Security;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -46,6 +59,10 @@ public class PGPUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(PGPUtils.class);
 
     private static final int KEY_FLAGS = 27;
+    //Provider selecting fastest available JCE provider for the symmetric cipher
+    public static final String AUTO_PROVIDER = "AUTO";
+    //JDK provider, AES is accelerated by AES-NI intrinsics of the JVM
+    private static final String SUN_JCE_PROVIDER = "SunJCE";
     private static final List<Integer> MASTER_KEY_CERTIFICATION_TYPES = Arrays.asList(PGPSignature.POSITIVE_CERTIFICATION,
             PGPSignature.CASUAL_CERTIFICATION,
             PGPSignature.NO_CERTIFICATION,
@@ -87,15 +104,107 @@ public class PGPUtils {
     }
 
     public static PGPEncryptedDataGenerator getEncryptedGenerator(final PGPPublicKey pgpPublicKey) {
+        return getEncryptedGenerator(pgpPublicKey, PGPEncryptedData.CAST5, Security.getProvider(BouncyCastleProvider.PROVIDER_NAME));
+    }
+
+    /**
+     * Creates generator encrypting data with given symmetric cipher through given provider. Session key
+     * is always encrypted with the public key through the BC provider.
+     */
+    public static PGPEncryptedDataGenerator getEncryptedGenerator(final PGPPublicKey pgpPublicKey, final int symmetricKeyAlgorithm,
+                                                                  final Provider dataEncryptionProvider) {
         final PGPEncryptedDataGenerator pgpEncryptedDataGenerator = new PGPEncryptedDataGenerator(
-                new JcePGPDataEncryptorBuilder(PGPEncryptedData.CAST5).
+                new JcePGPDataEncryptorBuilder(symmetricKeyAlgorithm).
                         setWithIntegrityPacket(true).
                         setSecureRandom(new SecureRandom()).
-                        setProvider("BC"));
+                        setProvider(dataEncryptionProvider));
         pgpEncryptedDataGenerator.addMethod(new JcePublicKeyKeyEncryptionMethodGenerator(pgpPublicKey).setProvider("BC"));
         return pgpEncryptedDataGenerator;
     }
 
+    public static PGPSecretKeyRingCollection readSecretKeyRings(final InputStream inputStream) throws IOException, PGPException {
+        return new PGPSecretKeyRingCollection(PGPUtil.getDecoderStream(inputStream), new JcaKeyFingerprintCalculator());
+    }
+
+    /**
+     * Extracts private key with given key ID from secret key rings.
+     *
+     * @return Private key, null if key rings hold no key with this ID.
+     * @throws PGPException If passphrase is wrong.
+     */
+    public static PGPPrivateKey extractPrivateKey(final PGPSecretKeyRingCollection pgpSecretKeyRings, final long keyID,
+                                                  final char[] passphrase) throws PGPException {
+        final PGPSecretKey pgpSecretKey = pgpSecretKeyRings.getSecretKey(keyID);
+        if (pgpSecretKey == null) {
+            return null;
+        }
+        return pgpSecretKey.extractPrivateKey(new JcePBESecretKeyDecryptorBuilder().setProvider("BC").build(passphrase));
+    }
+
+    /**
+     * Creates factory decrypting data with the provider resolved by {@link #getDataEncryptionProvider(String, SymmetricCipher)}
+     * for the cipher the data has been encrypted with. Session key is always decrypted through the BC provider.
+     */
+    public static PublicKeyDataDecryptorFactory getDataDecryptorFactory(final PGPPrivateKey pgpPrivateKey,
+                                                                        final String dataEncryptionProviderName) {
+        final PublicKeyDataDecryptorFactory sessionKeyDecryptorFactory = new JcePublicKeyDataDecryptorFactoryBuilder()
+                .setProvider("BC").build(pgpPrivateKey);
+        return new PublicKeyDataDecryptorFactory() {
+            @Override
+            public byte[] recoverSessionData(final int keyAlgorithm, final byte[][] secKeyData) throws PGPException {
+                return sessionKeyDecryptorFactory.recoverSessionData(keyAlgorithm, secKeyData);
+            }
+
+            @Override
+            public PGPDataDecryptor createDataDecryptor(final boolean withIntegrityPacket, final int encAlgorithm,
+                                                        final byte[] key) throws PGPException {
+                final SymmetricCipher symmetricCipher = SymmetricCipher.fromAlgorithmTag(encAlgorithm);
+                final Provider dataDecryptionProvider = symmetricCipher == null ? Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) :
+                        getDataEncryptionProvider(dataEncryptionProviderName, symmetricCipher);
+                return new JcePublicKeyDataDecryptorFactoryBuilder().setProvider("BC").setContentProvider(dataDecryptionProvider)
+                        .build(pgpPrivateKey).createDataDecryptor(withIntegrityPacket, encAlgorithm, key);
+            }
+        };
+    }
+
+    /**
+     * Resolves JCE provider used to encrypt data with given cipher. {@link #AUTO_PROVIDER} selects SunJCE
+     * for AES when available, as it is accelerated by AES-NI on supported CPUs, & BC otherwise.
+     *
+     * @param providerName    Name of the provider or {@link #AUTO_PROVIDER}.
+     * @param symmetricCipher Cipher which has to be supported by provider.
+     * @return Provider supporting the cipher in mode used by OpenPGP with integrity packet.
+     */
+    public static Provider getDataEncryptionProvider(final String providerName, final SymmetricCipher symmetricCipher) {
+        if (AUTO_PROVIDER.equalsIgnoreCase(providerName)) {
+            final Provider sunJceProvider = Security.getProvider(SUN_JCE_PROVIDER);
+            if (symmetricCipher.isAES() && sunJceProvider != null && supportsCipher(sunJceProvider, symmetricCipher)) {
+                return sunJceProvider;
+            }
+            return Security.getProvider(BouncyCastleProvider.PROVIDER_NAME);
+        }
+
+        final Provider provider = Security.getProvider(providerName);
+        if (provider == null) {
+            throw new IllegalArgumentException("Provider ".concat(providerName).concat(" not found"));
+        }
+        if (!supportsCipher(provider, symmetricCipher)) {
+            throw new IllegalArgumentException("Provider ".concat(providerName).concat(" doesn't support cipher ")
+                    .concat(symmetricCipher.name()));
+        }
+        return provider;
+    }
+
+    private static boolean supportsCipher(final Provider provider, final SymmetricCipher symmetricCipher) {
+        try {
+            Cipher.getInstance(PGPUtil.getSymmetricCipherName(symmetricCipher.getAlgorithmTag()).concat("/CFB/NoPadding"), provider);
+            return true;
+        } catch (GeneralSecurityException e) {
+            LOGGER.debug("Provider {} doesn't support cipher {} - {}", provider.getName(), symmetricCipher, e.getMessage());
+            return false;
+        }
+    }
+
     private static boolean isForEncryption(final PGPPublicKey key) {
         if (key.getAlgorithm() == PublicKeyAlgorithmTags.RSA_SIGN ||
                 key.getAlgorithm() == PublicKeyAlgorithmTags.DSA ||
@@ -21,6 +21,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -34,4 +36,12 @@ public class FileUtils {
             outputStream.write(content.getBytes());
         }
     }
+
+    /**
+     * Digest is the first token of the file, so files written by md5sum & similar tools are also accepted.
+     */
+    public static String readDigest(final Path digestFilePath) throws IOException {
+        final String content = new String(Files.readAllBytes(digestFilePath), StandardCharsets.US_ASCII).trim();
+        return content.split("\\s+", 2)[0].toLowerCase();
+    }
 }
@@ -19,6 +19,7 @@ package uk.ac.ebi.ega.egacryptor.cryptography.util;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
 
 import javax.xml.bind.DatatypeConverter;
 import java.security.MessageDigest;
@@ -32,6 +33,10 @@ public class Hash {
         return getHashingAlgorithm("MD5");
     }
 
+    public static MessageDigest getMessageDigest(final DigestAlgorithm digestAlgorithm) {
+        return getHashingAlgorithm(digestAlgorithm.getAlgorithmName());
+    }
+
     private static MessageDigest getHashingAlgorithm(final String algorithm) {
         try {
             return MessageDigest.getInstance(algorithm);
@@ -42,7 +47,7 @@ public class Hash {
     }
 
     public static String normalize(MessageDigest messageDigest) {
-        if ("MD5".equals(messageDigest.getAlgorithm())) {
+        if ("MD5".equals(messageDigest.getAlgorithm()) || messageDigest.getAlgorithm().startsWith("SHA-")) {
             return DatatypeConverter.printHexBinary(messageDigest.digest()).toLowerCase();
         }
         return new String(messageDigest.digest());
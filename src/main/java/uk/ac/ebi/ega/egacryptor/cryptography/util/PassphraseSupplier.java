@@ -0,0 +1,75 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.util;
+
+import java.io.BufferedReader;
+import java.io.Console;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+/**
+ * Passphrase of the secret key, read once when first needed from a file if configured, otherwise from
+ * an environment variable, otherwise from the console.
+ */
+public class PassphraseSupplier implements Supplier<char[]> {
+
+    public static final String PASSPHRASE_ENVIRONMENT_VARIABLE = "EGA_CRYPTOR_PASSPHRASE";
+
+    private final String passphraseFilePath;
+    private char[] passphrase;
+
+    /**
+     * @param passphraseFilePath File holding passphrase in its first line, empty if not used.
+     */
+    public PassphraseSupplier(final String passphraseFilePath) {
+        this.passphraseFilePath = passphraseFilePath;
+    }
+
+    @Override
+    public synchronized char[] get() {
+        if (passphrase == null) {
+            passphrase = readPassphrase();
+        }
+        return passphrase;
+    }
+
+    private char[] readPassphrase() {
+        if (!passphraseFilePath.isEmpty()) {
+            try (final BufferedReader bufferedReader = Files.newBufferedReader(Paths.get(passphraseFilePath), StandardCharsets.UTF_8)) {
+                final String line = bufferedReader.readLine();
+                return line == null ? new char[0] : line.toCharArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read passphrase file ".concat(passphraseFilePath), e);
+            }
+        }
+        final String environmentPassphrase = System.getenv(PASSPHRASE_ENVIRONMENT_VARIABLE);
+        if (environmentPassphrase != null) {
+            return environmentPassphrase.toCharArray();
+        }
+        final Console console = System.console();
+        if (console == null) {
+            throw new IllegalStateException("No passphrase file, environment variable ".concat(PASSPHRASE_ENVIRONMENT_VARIABLE)
+                    .concat(" or console to read passphrase of secret key from"));
+        }
+        return console.readPassword("Passphrase of secret key: ");
+    }
+}
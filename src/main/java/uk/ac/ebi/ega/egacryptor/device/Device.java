@@ -0,0 +1,50 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.device;
+
+/**
+ * Storage device, i.e. file store, files are read from or written to.
+ */
+public class Device {
+
+    private final String name;
+    private final int concurrencyLimit;
+
+    public Device(final String name, final int concurrencyLimit) {
+        this.name = name;
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Maximum no. of files processed on the device at the same time, 0 if not limited.
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "Device{".concat(
+                "name=").concat(name).concat(
+                ", concurrencyLimit=").concat(String.valueOf(concurrencyLimit)).concat("}");
+    }
+}
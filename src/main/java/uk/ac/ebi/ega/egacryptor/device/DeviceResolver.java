@@ -0,0 +1,134 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.device;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the device of a directory & its concurrency limit. Limits are given as {@code path:limit}, where
+ * path is any path on the device, e.g. {@code /mnt/hdd:2}. Devices without a limit of their own get the
+ * default limit. Device of a directory is looked up by its device id, so the file store of each device is
+ * only looked up once, & the last directories resolved are cached.
+ */
+public class DeviceResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceResolver.class);
+
+    private static final int NO_OF_CACHED_DIRECTORIES = 1024;
+
+    private final Map<FileStore, Integer> concurrencyLimits;
+    private final int defaultConcurrencyLimit;
+    private final ConcurrentMap<Object, Device> devicesById = new ConcurrentHashMap<>();
+    private final Map<Path, Device> devicesByDirectory = new LinkedHashMap<Path, Device>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Path, Device> eldest) {
+            return size() > NO_OF_CACHED_DIRECTORIES;
+        }
+    };
+
+    public DeviceResolver(final List<String> concurrencyLimits, final int defaultConcurrencyLimit) throws IOException {
+        this.concurrencyLimits = new HashMap<>();
+        for (final String concurrencyLimit : concurrencyLimits) {
+            if (concurrencyLimit.trim().isEmpty()) {
+                continue;
+            }
+            final int separatorIndex = concurrencyLimit.lastIndexOf(':');
+            if (separatorIndex <= 0) {
+                throw new IllegalArgumentException("Invalid device concurrency limit ".concat(concurrencyLimit)
+                        .concat(". Expected format is path:limit"));
+            }
+            final FileStore fileStore = Files.getFileStore(Paths.get(concurrencyLimit.substring(0, separatorIndex).trim()));
+            final int limit = Integer.parseInt(concurrencyLimit.substring(separatorIndex + 1).trim());
+            if (limit < 0) {
+                throw new IllegalArgumentException("Invalid device concurrency limit ".concat(concurrencyLimit));
+            }
+            this.concurrencyLimits.put(fileStore, limit);
+        }
+        this.defaultConcurrencyLimit = defaultConcurrencyLimit;
+    }
+
+    /**
+     * @return true if at least one device is limited.
+     */
+    public boolean isLimited() {
+        return defaultConcurrencyLimit > 0 || concurrencyLimits.values().stream().anyMatch(limit -> limit > 0);
+    }
+
+    /**
+     * @param directoryPath Directory which may not exist yet, its closest existing parent is resolved then.
+     * @return Device of directory, null if it can't be resolved.
+     */
+    public Device resolve(final Path directoryPath) {
+        synchronized (devicesByDirectory) {
+            final Device device = devicesByDirectory.get(directoryPath);
+            if (device != null) {
+                return device;
+            }
+        }
+        Path existingPath = directoryPath.toAbsolutePath();
+        while (existingPath != null && !Files.exists(existingPath)) {
+            existingPath = existingPath.getParent();
+        }
+        if (existingPath == null) {
+            return null;
+        }
+        try {
+            final Device device = resolveExisting(existingPath);
+            synchronized (devicesByDirectory) {
+                devicesByDirectory.put(directoryPath, device);
+            }
+            return device;
+        } catch (IOException e) {
+            LOGGER.warn("Device of {} couldn't be resolved & will not be limited - {}", directoryPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private Device resolveExisting(final Path path) throws IOException {
+        Object deviceId;
+        try {
+            deviceId = Files.getAttribute(path, "unix:dev");
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            deviceId = null;
+        }
+        if (deviceId != null) {
+            final Device device = devicesById.get(deviceId);
+            if (device != null) {
+                return device;
+            }
+        }
+        final FileStore fileStore = Files.getFileStore(path);
+        return devicesById.computeIfAbsent(deviceId == null ? fileStore : deviceId, id -> {
+            final Device device = new Device(fileStore.toString(), concurrencyLimits.getOrDefault(fileStore, defaultConcurrencyLimit));
+            LOGGER.info("Files on device {} will be processed", device);
+            return device;
+        });
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.JournalRecordType;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.model.ProcessingResult;
+import uk.ac.ebi.ega.egacryptor.pipeline.ProcessingListener;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Append only, tab separated journal of the files processed into an output folder. Each record is
+ * written & flushed as a whole line, a line cut short by a crash is ignored when the journal is read.
+ * Columns are: time, record type, file to encrypt, output folder, bytes read, bytes written,
+ * digests of file to encrypt, digests of encrypted file, message.
+ */
+public class Journal implements ProcessingListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Journal.class);
+
+    //Hidden, so it is never discovered as a file to encrypt
+    public static final String JOURNAL_FILE_NAME = ".egacryptor-journal.tsv";
+
+    static final int NO_OF_COLUMNS = 9;
+
+    private final BufferedWriter bufferedWriter;
+
+    private Journal(final BufferedWriter bufferedWriter) {
+        this.bufferedWriter = bufferedWriter;
+    }
+
+    public static Journal open(final Path outputFolderPath) throws IOException {
+        return new Journal(Files.newBufferedWriter(outputFolderPath.resolve(JOURNAL_FILE_NAME), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    public static JournalState read(final Path outputFolderPath) throws IOException {
+        final Path journalPath = outputFolderPath.resolve(JOURNAL_FILE_NAME);
+        if (!Files.exists(journalPath)) {
+            return new JournalState();
+        }
+        final JournalState journalState = new JournalState();
+        //Reader replaces bytes of a character cut short by a crash instead of failing
+        try (final BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(Files.newInputStream(journalPath),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                journalState.apply(line);
+            }
+        }
+        return journalState;
+    }
+
+    /**
+     * Records a file as it is discovered. Record is flushed with the next record of a processed file.
+     */
+    public synchronized void queued(final FileToProcess fileToProcess) throws IOException {
+        writeRecord(JournalRecordType.QUEUED, fileToProcess, "", "", "", "", "");
+    }
+
+    /**
+     * Records the end of discovery, after all discovered files have been queued.
+     */
+    public synchronized void discovered(final long noOfFiles) throws IOException {
+        writeRecord(JournalRecordType.DISCOVERED, null, "", "", "", "", String.valueOf(noOfFiles));
+        bufferedWriter.flush();
+    }
+
+    @Override
+    public void onStarted(final FileToProcess fileToProcess) {
+        append(JournalRecordType.STARTED, fileToProcess, "", "", "", "", "");
+    }
+
+    @Override
+    public void onSkipped(final FileToProcess fileToProcess) {
+        append(JournalRecordType.SKIPPED, fileToProcess, "", "", "", "", "");
+    }
+
+    @Override
+    public void onCommitted(final FileToProcess fileToProcess, final ProcessingResult processingResult) {
+        append(JournalRecordType.COMMITTED, fileToProcess, String.valueOf(processingResult.getInputSize()),
+                String.valueOf(processingResult.getOutputSize()), toString(processingResult.getInputDigests()),
+                toString(processingResult.getOutputDigests()), "");
+    }
+
+    @Override
+    public void onFailed(final FileToProcess fileToProcess, final Exception exception) {
+        append(JournalRecordType.FAILED, fileToProcess, "", "", "", "", String.valueOf(exception.getMessage()));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        bufferedWriter.close();
+    }
+
+    private synchronized void append(final JournalRecordType journalRecordType, final FileToProcess fileToProcess,
+                                     final String inputSize, final String outputSize, final String inputDigests,
+                                     final String outputDigests, final String message) {
+        try {
+            writeRecord(journalRecordType, fileToProcess, inputSize, outputSize, inputDigests, outputDigests, message);
+            bufferedWriter.flush();
+        } catch (IOException e) {
+            LOGGER.error("Unable to write {} record of {} to journal - {}", journalRecordType, fileToProcess, e.getMessage());
+        }
+    }
+
+    private void writeRecord(final JournalRecordType journalRecordType, final FileToProcess fileToProcess,
+                             final String inputSize, final String outputSize, final String inputDigests,
+                             final String outputDigests, final String message) throws IOException {
+        final String[] columns = {
+                String.valueOf(System.currentTimeMillis()),
+                journalRecordType.name(),
+                fileToProcess == null ? "" : fileToProcess.getFileToEncryptPath().toString(),
+                fileToProcess == null ? "" : fileToProcess.getOutputFilePath().toString(),
+                inputSize, outputSize, inputDigests, outputDigests, message};
+        final StringBuilder line = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            line.append(escape(columns[i]));
+        }
+        bufferedWriter.write(line.append('\n').toString());
+    }
+
+    private static String toString(final Map<DigestAlgorithm, String> digests) {
+        return digests.entrySet().stream().map(digest -> digest.getKey().name().concat("=").concat(digest.getValue()))
+                .collect(Collectors.joining(","));
+    }
+
+    public static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    static String unescape(final String value) {
+        final StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                final char next = value.charAt(++i);
+                unescaped.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
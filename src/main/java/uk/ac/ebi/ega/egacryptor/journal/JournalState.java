@@ -0,0 +1,96 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.journal;
+
+import uk.ac.ebi.ega.egacryptor.constant.JournalRecordType;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * State of each file in a {@link Journal}, as of the last record of the file.
+ */
+public class JournalState {
+
+    private final Map<String, FileState> fileStates = new LinkedHashMap<>();
+    private boolean discoveryComplete;
+
+    JournalState() {
+    }
+
+    void apply(final String line) {
+        final String[] columns = line.split("\t", -1);
+        if (columns.length != Journal.NO_OF_COLUMNS) {
+            return;
+        }
+        final JournalRecordType journalRecordType;
+        try {
+            journalRecordType = JournalRecordType.valueOf(columns[1]);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        switch (journalRecordType) {
+            case DISCOVERED:
+                discoveryComplete = true;
+                return;
+            case QUEUED:
+                discoveryComplete = false;
+                break;
+            default:
+                break;
+        }
+        final String fileToEncryptPath = Journal.unescape(columns[2]);
+        fileStates.put(fileToEncryptPath, new FileState(new FileToProcess(Paths.get(fileToEncryptPath),
+                Paths.get(Journal.unescape(columns[3]))), journalRecordType));
+    }
+
+    /**
+     * @return true if the last discovery recorded has queued all files it found.
+     */
+    public boolean isDiscoveryComplete() {
+        return discoveryComplete;
+    }
+
+    public int getNoOfFiles() {
+        return fileStates.size();
+    }
+
+    /**
+     * @return Files not yet committed or skipped, in the order they have been queued.
+     */
+    public List<FileToProcess> getFilesToResume() {
+        return fileStates.values().stream()
+                .filter(fileState -> !fileState.journalRecordType.isDone())
+                .map(fileState -> fileState.fileToProcess)
+                .collect(Collectors.toList());
+    }
+
+    private static class FileState {
+        private final FileToProcess fileToProcess;
+        private final JournalRecordType journalRecordType;
+
+        private FileState(final FileToProcess fileToProcess, final JournalRecordType journalRecordType) {
+            this.fileToProcess = fileToProcess;
+            this.journalRecordType = journalRecordType;
+        }
+    }
+}
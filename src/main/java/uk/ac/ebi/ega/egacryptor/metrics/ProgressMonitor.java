@@ -0,0 +1,132 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.metrics;
+
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.model.ProcessingResult;
+import uk.ac.ebi.ega.egacryptor.pipeline.ProcessingListener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of a run over all worker threads. Files & bytes expected are added while files are discovered,
+ * bytes read & written are counted by the streams of the pipelines & files done, skipped & failed by the
+ * pipelines' events. Every counter is a {@link LongAdder}, so worker threads don't contend while they count
+ * & the reporter only sums them.
+ */
+public class ProgressMonitor implements ProcessingListener {
+
+    private final ThroughputMeter readMeter;
+    private final ThroughputMeter writeMeter = new ThroughputMeter();
+    private final LongAdder noOfFilesExpected = new LongAdder();
+    private final LongAdder noOfBytesExpected = new LongAdder();
+    private final LongAdder noOfFilesCommitted = new LongAdder();
+    private final LongAdder noOfFilesSkipped = new LongAdder();
+    private final LongAdder noOfBytesSkipped = new LongAdder();
+    private final LongAdder noOfFilesFailed = new LongAdder();
+    private final LongAdder noOfBytesFailed = new LongAdder();
+    private volatile boolean discoveryComplete;
+
+    /**
+     * @param readMeter Counts bytes read by the pipelines.
+     */
+    public ProgressMonitor(final ThroughputMeter readMeter) {
+        this.readMeter = readMeter;
+    }
+
+    /**
+     * @return Meter of bytes written to output files.
+     */
+    public ThroughputMeter getWriteMeter() {
+        return writeMeter;
+    }
+
+    /**
+     * File has been handed to the task executor & is expected to be processed.
+     */
+    public void queued(final FileToProcess fileToProcess) {
+        noOfFilesExpected.increment();
+        noOfBytesExpected.add(fileToProcess.getSize());
+    }
+
+    /**
+     * Every file to process has been queued, the no. of bytes expected is final.
+     */
+    public void discoveryCompleted() {
+        discoveryComplete = true;
+    }
+
+    @Override
+    public void onSkipped(final FileToProcess fileToProcess) {
+        noOfFilesSkipped.increment();
+        noOfBytesSkipped.add(fileToProcess.getSize());
+    }
+
+    @Override
+    public void onCommitted(final FileToProcess fileToProcess, final ProcessingResult processingResult) {
+        noOfFilesCommitted.increment();
+    }
+
+    @Override
+    public void onFailed(final FileToProcess fileToProcess, final Exception exception) {
+        noOfFilesFailed.increment();
+        noOfBytesFailed.add(fileToProcess.getSize());
+    }
+
+    public long getNoOfFilesExpected() {
+        return noOfFilesExpected.sum();
+    }
+
+    public long getNoOfBytesExpected() {
+        return noOfBytesExpected.sum();
+    }
+
+    public long getNoOfBytesRead() {
+        return readMeter.getNoOfBytes();
+    }
+
+    public long getNoOfBytesWritten() {
+        return writeMeter.getNoOfBytes();
+    }
+
+    public long getNoOfFilesCommitted() {
+        return noOfFilesCommitted.sum();
+    }
+
+    public long getNoOfFilesSkipped() {
+        return noOfFilesSkipped.sum();
+    }
+
+    public long getNoOfFilesFailed() {
+        return noOfFilesFailed.sum();
+    }
+
+    public boolean isDiscoveryComplete() {
+        return discoveryComplete;
+    }
+
+    /**
+     * Bytes of failed files are taken as done, including bytes already read before they failed, which
+     * slightly underestimates what is left.
+     *
+     * @return Bytes expected which are neither read, skipped nor part of a failed file.
+     */
+    public long getNoOfBytesRemaining() {
+        return Math.max(0, noOfBytesExpected.sum() - readMeter.getNoOfBytes() - noOfBytesSkipped.sum() - noOfBytesFailed.sum());
+    }
+}
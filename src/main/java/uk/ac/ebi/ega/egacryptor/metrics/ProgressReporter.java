@@ -0,0 +1,176 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs progress of a run every interval from a thread of its own: files done, bytes read & written, current &
+ * average throughput of reads & the time left at the average throughput. The ETA is only known once every file
+ * has been discovered. Optionally progress is also written to a JSON status file, replaced atomically each
+ * interval, which scripts & job schedulers can poll.
+ */
+public class ProgressReporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProgressReporter.class);
+
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double BYTES_PER_MIB = 1024 * 1024;
+    private static final double BYTES_PER_GIB = BYTES_PER_MIB * 1024;
+
+    private final ProgressMonitor progressMonitor;
+    private final long intervalMillis;
+    private final Path statusPath;
+    private long startNanoTime;
+    private long lastNoOfBytes;
+    private long lastNanoTime;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param intervalMillis Interval between reports, 0 to only report at the end of the run.
+     * @param statusPath     Path of the JSON status file, null if not written.
+     */
+    public ProgressReporter(final ProgressMonitor progressMonitor, final long intervalMillis, final Path statusPath) {
+        this.progressMonitor = progressMonitor;
+        this.intervalMillis = intervalMillis;
+        this.statusPath = statusPath;
+        this.startNanoTime = System.nanoTime();
+        this.lastNanoTime = startNanoTime;
+    }
+
+    public ProgressMonitor getProgressMonitor() {
+        return progressMonitor;
+    }
+
+    public void start() {
+        startNanoTime = System.nanoTime();
+        lastNanoTime = startNanoTime;
+        lastNoOfBytes = progressMonitor.getNoOfBytesRead();
+        if (intervalMillis <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "progress-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> report("running"), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reports progress at the end of the run.
+     */
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        report("completed");
+    }
+
+    private synchronized void report(final String state) {
+        try {
+            final long nanoTime = System.nanoTime();
+            final long noOfBytesRead = progressMonitor.getNoOfBytesRead();
+            final double currentBytesPerSecond = (noOfBytesRead - lastNoOfBytes) * NANOS_PER_SECOND / Math.max(1, nanoTime - lastNanoTime);
+            lastNoOfBytes = noOfBytesRead;
+            lastNanoTime = nanoTime;
+            final long elapsedNanos = nanoTime - startNanoTime;
+            LOGGER.info(toSummary(elapsedNanos, currentBytesPerSecond));
+            if (statusPath != null) {
+                StageMetrics.writeAtomically(statusPath, writer -> writeStatus(writer, state, elapsedNanos, currentBytesPerSecond));
+            }
+        } catch (IOException | RuntimeException e) {
+            //Exceptions would cancel the periodic task, progress is not worth failing the run for
+            LOGGER.warn("Unable to report progress - {}", e.getMessage());
+        }
+    }
+
+    String toSummary(final long elapsedNanos, final double currentBytesPerSecond) {
+        final long noOfBytesExpected = progressMonitor.getNoOfBytesExpected();
+        final long noOfBytesRemaining = progressMonitor.getNoOfBytesRemaining();
+        final long etaSeconds = getEtaSeconds(elapsedNanos);
+        return String.format(Locale.ROOT, "Progress: %d of %s%d file(s) done, %d skipped, %d failed. %s of %s read (%.1f%%), %s written. " +
+                        "%.1f MiB/s now, %.1f MiB/s average, ETA %s",
+                progressMonitor.getNoOfFilesCommitted(), progressMonitor.isDiscoveryComplete() ? "" : "at least ",
+                progressMonitor.getNoOfFilesExpected(), progressMonitor.getNoOfFilesSkipped(), progressMonitor.getNoOfFilesFailed(),
+                formatBytes(progressMonitor.getNoOfBytesRead()), formatBytes(noOfBytesExpected),
+                noOfBytesExpected == 0 ? 0 : 100.0 * (noOfBytesExpected - noOfBytesRemaining) / noOfBytesExpected,
+                formatBytes(progressMonitor.getNoOfBytesWritten()), currentBytesPerSecond / BYTES_PER_MIB,
+                getAverageBytesPerSecond(elapsedNanos) / BYTES_PER_MIB,
+                etaSeconds < 0 ? "unknown" : formatDuration(etaSeconds));
+    }
+
+    void writeStatus(final Writer writer, final String state, final long elapsedNanos, final double currentBytesPerSecond)
+            throws IOException {
+        final long etaSeconds = getEtaSeconds(elapsedNanos);
+        writer.write("{\n");
+        writer.write(String.format(Locale.ROOT, "  \"state\": \"%s\",\n", state));
+        writer.write(String.format(Locale.ROOT, "  \"updated\": \"%s\",\n", Instant.now()));
+        writer.write(String.format(Locale.ROOT, "  \"elapsedSeconds\": %.3f,\n", elapsedNanos / NANOS_PER_SECOND));
+        writer.write(String.format(Locale.ROOT, "  \"discoveryComplete\": %b,\n", progressMonitor.isDiscoveryComplete()));
+        writer.write(String.format(Locale.ROOT, "  \"filesExpected\": %d,\n", progressMonitor.getNoOfFilesExpected()));
+        writer.write(String.format(Locale.ROOT, "  \"filesCommitted\": %d,\n", progressMonitor.getNoOfFilesCommitted()));
+        writer.write(String.format(Locale.ROOT, "  \"filesSkipped\": %d,\n", progressMonitor.getNoOfFilesSkipped()));
+        writer.write(String.format(Locale.ROOT, "  \"filesFailed\": %d,\n", progressMonitor.getNoOfFilesFailed()));
+        writer.write(String.format(Locale.ROOT, "  \"bytesExpected\": %d,\n", progressMonitor.getNoOfBytesExpected()));
+        writer.write(String.format(Locale.ROOT, "  \"bytesRead\": %d,\n", progressMonitor.getNoOfBytesRead()));
+        writer.write(String.format(Locale.ROOT, "  \"bytesWritten\": %d,\n", progressMonitor.getNoOfBytesWritten()));
+        writer.write(String.format(Locale.ROOT, "  \"bytesRemaining\": %d,\n", progressMonitor.getNoOfBytesRemaining()));
+        writer.write(String.format(Locale.ROOT, "  \"currentMibPerSecond\": %.1f,\n", currentBytesPerSecond / BYTES_PER_MIB));
+        writer.write(String.format(Locale.ROOT, "  \"averageMibPerSecond\": %.1f,\n", getAverageBytesPerSecond(elapsedNanos) / BYTES_PER_MIB));
+        writer.write(String.format(Locale.ROOT, "  \"etaSeconds\": %s\n", etaSeconds < 0 ? "null" : Long.toString(etaSeconds)));
+        writer.write("}\n");
+    }
+
+    /**
+     * @return Seconds left at the average throughput, -1 if unknown.
+     */
+    long getEtaSeconds(final long elapsedNanos) {
+        final long noOfBytesRemaining = progressMonitor.getNoOfBytesRemaining();
+        if (!progressMonitor.isDiscoveryComplete()) {
+            return -1;
+        }
+        if (noOfBytesRemaining == 0) {
+            return 0;
+        }
+        final double averageBytesPerSecond = getAverageBytesPerSecond(elapsedNanos);
+        return averageBytesPerSecond <= 0 ? -1 : (long) Math.ceil(noOfBytesRemaining / averageBytesPerSecond);
+    }
+
+    private double getAverageBytesPerSecond(final long elapsedNanos) {
+        return progressMonitor.getNoOfBytesRead() * NANOS_PER_SECOND / Math.max(1, elapsedNanos);
+    }
+
+    private static String formatBytes(final long noOfBytes) {
+        return noOfBytes < BYTES_PER_GIB ? String.format(Locale.ROOT, "%.1f MiB", noOfBytes / BYTES_PER_MIB) :
+                String.format(Locale.ROOT, "%.2f GiB", noOfBytes / BYTES_PER_GIB);
+    }
+
+    static String formatDuration(final long seconds) {
+        return String.format(Locale.ROOT, "%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+}
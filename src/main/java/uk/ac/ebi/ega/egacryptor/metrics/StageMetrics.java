@@ -0,0 +1,235 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time spent & bytes handled in each stage over all files of a run, with a histogram of the time each file
+ * spent in each stage. Bucket upper bounds double from 1 ms to about 17 minutes. Written at the end of the run as
+ * a JSON report & as a Prometheus text file, which node_exporter collects from its textfile directory.
+ */
+public class StageMetrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StageMetrics.class);
+
+    static final int NO_OF_BUCKETS = 22;
+
+    private static final String DEFAULT_JSON_REPORT_FILE_NAME = ".egacryptor-metrics.json";
+
+    private static final long FIRST_BUCKET_NANOS = 1000000;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double BYTES_PER_MIB = 1024 * 1024;
+
+    private final boolean enabled;
+    private final Path jsonReportPath;
+    private final Path prometheusReportPath;
+    private final long startNanoTime = System.nanoTime();
+    private final LongAdder noOfFiles = new LongAdder();
+    private final LongAdder[] nanos = newLongAdders();
+    private final LongAdder[] bytes = newLongAdders();
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(Stage.values().length * NO_OF_BUCKETS);
+
+    /**
+     * @param enabled Whether stages of files are timed.
+     */
+    public StageMetrics(final boolean enabled) {
+        this(enabled, null, null);
+    }
+
+    /**
+     * @param jsonReportPath       Path of the JSON report, null for a report in the output folder.
+     * @param prometheusReportPath Path of the Prometheus text file, null if not written.
+     */
+    public StageMetrics(final boolean enabled, final Path jsonReportPath, final Path prometheusReportPath) {
+        this.enabled = enabled;
+        this.jsonReportPath = jsonReportPath;
+        this.prometheusReportPath = prometheusReportPath;
+    }
+
+    /**
+     * @return Timer of the stages of one file, null if stages are not timed.
+     */
+    public StageTimer newStageTimer() {
+        return enabled ? new StageTimer() : null;
+    }
+
+    /**
+     * Adds stages of a processed file.
+     *
+     * @param stageTimer Timer of the file, null if stages are not timed.
+     */
+    public void add(final String fileName, final StageTimer stageTimer) {
+        if (stageTimer == null) {
+            return;
+        }
+        LOGGER.debug("File {} stages: {}", fileName, stageTimer);
+        noOfFiles.increment();
+        for (final Stage stage : Stage.values()) {
+            final long stageNanos = stageTimer.getNanos(stage);
+            final long stageBytes = stageTimer.getBytes(stage);
+            if (stageNanos == 0 && stageBytes == 0) {
+                continue;
+            }
+            nanos[stage.ordinal()].add(stageNanos);
+            bytes[stage.ordinal()].add(stageBytes);
+            bucketCounts.incrementAndGet(stage.ordinal() * NO_OF_BUCKETS + getBucket(stageNanos));
+        }
+    }
+
+    /**
+     * Writes the reports of the run. The JSON report is written to a hidden file of the output folder
+     * unless its path is given, so it isn't uploaded along with the encrypted files.
+     */
+    public void write(final Path outputFolderPath) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        final Path reportPath = jsonReportPath == null ? outputFolderPath.resolve(DEFAULT_JSON_REPORT_FILE_NAME) : jsonReportPath;
+        writeAtomically(reportPath, this::writeJson);
+        if (prometheusReportPath != null) {
+            writeAtomically(prometheusReportPath, this::writePrometheus);
+        }
+        LOGGER.info("Stage metrics of {} file(s) have been written to {}. Slowest stage: {}", noOfFiles.sum(), reportPath,
+                getSlowestStage().getMetricName());
+    }
+
+    void writeJson(final Writer writer) throws IOException {
+        writer.write("{\n");
+        writer.write(String.format(Locale.ROOT, "  \"files\": %d,\n", noOfFiles.sum()));
+        writer.write(String.format(Locale.ROOT, "  \"elapsedSeconds\": %.3f,\n", (System.nanoTime() - startNanoTime) / NANOS_PER_SECOND));
+        writer.write(String.format(Locale.ROOT, "  \"slowestStage\": \"%s\",\n", getSlowestStage().getMetricName()));
+        writer.write("  \"stages\": {\n");
+        final long totalNanos = getTotalNanos();
+        for (final Stage stage : Stage.values()) {
+            final long stageNanos = nanos[stage.ordinal()].sum();
+            final long stageBytes = bytes[stage.ordinal()].sum();
+            writer.write(String.format(Locale.ROOT, "    \"%s\": {\"seconds\": %.3f, \"bytes\": %d, \"mibPerSecond\": %.1f, " +
+                            "\"share\": %.3f, \"histogram\": {", stage.getMetricName(), stageNanos / NANOS_PER_SECOND, stageBytes,
+                    stageNanos == 0 ? 0 : stageBytes / BYTES_PER_MIB / (stageNanos / NANOS_PER_SECOND),
+                    totalNanos == 0 ? 0 : stageNanos / (double) totalNanos));
+            for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++) {
+                writer.write(String.format(Locale.ROOT, "%s\"%s\": %d", bucket == 0 ? "" : ", ", getBucketBound(bucket),
+                        bucketCounts.get(stage.ordinal() * NO_OF_BUCKETS + bucket)));
+            }
+            writer.write(stage.ordinal() == Stage.values().length - 1 ? "}}\n" : "}},\n");
+        }
+        writer.write("  }\n}\n");
+    }
+
+    void writePrometheus(final Writer writer) throws IOException {
+        writer.write("# HELP egacryptor_files_total Files processed.\n# TYPE egacryptor_files_total counter\n");
+        writer.write(String.format(Locale.ROOT, "egacryptor_files_total %d\n", noOfFiles.sum()));
+        writer.write("# HELP egacryptor_stage_bytes_total Bytes handled by each stage.\n# TYPE egacryptor_stage_bytes_total counter\n");
+        for (final Stage stage : Stage.values()) {
+            writer.write(String.format(Locale.ROOT, "egacryptor_stage_bytes_total{stage=\"%s\"} %d\n", stage.getMetricName(),
+                    bytes[stage.ordinal()].sum()));
+        }
+        writer.write("# HELP egacryptor_stage_seconds Time each file spent in each stage.\n# TYPE egacryptor_stage_seconds histogram\n");
+        for (final Stage stage : Stage.values()) {
+            long cumulativeCount = 0;
+            for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++) {
+                cumulativeCount += bucketCounts.get(stage.ordinal() * NO_OF_BUCKETS + bucket);
+                writer.write(String.format(Locale.ROOT, "egacryptor_stage_seconds_bucket{stage=\"%s\",le=\"%s\"} %d\n",
+                        stage.getMetricName(), getBucketBound(bucket), cumulativeCount));
+            }
+            writer.write(String.format(Locale.ROOT, "egacryptor_stage_seconds_sum{stage=\"%s\"} %.6f\n", stage.getMetricName(),
+                    nanos[stage.ordinal()].sum() / NANOS_PER_SECOND));
+            writer.write(String.format(Locale.ROOT, "egacryptor_stage_seconds_count{stage=\"%s\"} %d\n", stage.getMetricName(),
+                    cumulativeCount));
+        }
+    }
+
+    /**
+     * @return Stage files spent the most time in, which limits throughput.
+     */
+    Stage getSlowestStage() {
+        Stage slowestStage = Stage.READ;
+        for (final Stage stage : Stage.values()) {
+            if (nanos[stage.ordinal()].sum() > nanos[slowestStage.ordinal()].sum()) {
+                slowestStage = stage;
+            }
+        }
+        return slowestStage;
+    }
+
+    private long getTotalNanos() {
+        long totalNanos = 0;
+        for (final LongAdder stageNanos : nanos) {
+            totalNanos += stageNanos.sum();
+        }
+        return totalNanos;
+    }
+
+    /**
+     * @return Bucket whose upper bound is the first one at or above the time, the last bucket is unbounded.
+     */
+    static int getBucket(final long elapsedNanos) {
+        int bucket = 0;
+        for (long bound = FIRST_BUCKET_NANOS; bucket < NO_OF_BUCKETS - 1 && elapsedNanos > bound; bound <<= 1) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * @return Upper bound of the bucket in seconds.
+     */
+    private static String getBucketBound(final int bucket) {
+        return bucket == NO_OF_BUCKETS - 1 ? "+Inf" : String.format(Locale.ROOT, "%.3f", (FIRST_BUCKET_NANOS << bucket) / NANOS_PER_SECOND);
+    }
+
+    private static LongAdder[] newLongAdders() {
+        final LongAdder[] longAdders = new LongAdder[Stage.values().length];
+        for (int i = 0; i < longAdders.length; i++) {
+            longAdders[i] = new LongAdder();
+        }
+        return longAdders;
+    }
+
+    /**
+     * Collectors & readers never see a partially written file.
+     */
+    static void writeAtomically(final Path path, final ReportWriter reportWriter) throws IOException {
+        final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (final Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+            reportWriter.write(writer);
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    interface ReportWriter {
+        void write(Writer writer) throws IOException;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.metrics;
+
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time spent & bytes handled in each stage of one file. Stages may be timed on different threads when the
+ * pipeline is pipelined. A stage which writes to the next stage on the same thread excludes the time of the
+ * next stage by subtracting it.
+ */
+public class StageTimer {
+
+    private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+    private final AtomicLongArray bytes = new AtomicLongArray(Stage.values().length);
+
+    public void record(final Stage stage, final long elapsedNanos, final long noOfBytes) {
+        nanos.addAndGet(stage.ordinal(), elapsedNanos);
+        bytes.addAndGet(stage.ordinal(), noOfBytes);
+    }
+
+    /**
+     * Records time of a stage started at the given nano time.
+     *
+     * @param stageTimer Timer of the file, null if stages are not timed.
+     */
+    public static void record(final StageTimer stageTimer, final Stage stage, final long startNanoTime, final long noOfBytes) {
+        if (stageTimer != null) {
+            stageTimer.record(stage, System.nanoTime() - startNanoTime, noOfBytes);
+        }
+    }
+
+    /**
+     * Removes time spent in a next stage from the stage writing to it.
+     */
+    public void subtract(final Stage stage, final long elapsedNanos) {
+        nanos.addAndGet(stage.ordinal(), -elapsedNanos);
+    }
+
+    public long getNanos(final Stage stage) {
+        return Math.max(0, nanos.get(stage.ordinal()));
+    }
+
+    public long getBytes(final Stage stage) {
+        return bytes.get(stage.ordinal());
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        for (final Stage stage : Stage.values()) {
+            if (stringBuilder.length() > 0) {
+                stringBuilder.append(", ");
+            }
+            stringBuilder.append(stage.getMetricName()).append('=').append(getNanos(stage) / 1000000).append(" ms");
+        }
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts bytes read or written by all worker threads, as they are read or written. Threads add to
+ * separate cells, so counting doesn't contend on a shared counter.
+ */
+public class ThroughputMeter {
+
+    private final LongAdder noOfBytes = new LongAdder();
+
+    public void add(final long bytes) {
+        noOfBytes.add(bytes);
+    }
+
+    /**
+     * @return Bytes counted since the meter has been created.
+     */
+    public long getNoOfBytes() {
+        return noOfBytes.sum();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.model;
+
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+
+import java.util.zip.Deflater;
+
+/**
+ * Compression chosen for a single file along with the reason it has been chosen.
+ */
+public class CompressionDecision {
+
+    public static final CompressionDecision DEFAULT = new CompressionDecision(CompressionAlgorithm.ZIP,
+            Deflater.DEFAULT_COMPRESSION, "default", Double.NaN);
+
+    private final CompressionAlgorithm compressionAlgorithm;
+    private final int compressionLevel;
+    private final String reason;
+    private final double sampledRatio;
+
+    public CompressionDecision(final CompressionAlgorithm compressionAlgorithm, final int compressionLevel,
+                               final String reason, final double sampledRatio) {
+        this.compressionAlgorithm = compressionAlgorithm;
+        this.compressionLevel = compressionLevel;
+        this.reason = reason;
+        this.sampledRatio = sampledRatio;
+    }
+
+    public CompressionAlgorithm getCompressionAlgorithm() {
+        return compressionAlgorithm;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return Compressed size divided by original size of the sampled bytes, NaN if file has not been sampled.
+     */
+    public double getSampledRatio() {
+        return sampledRatio;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionDecision{".concat(
+                "compressionAlgorithm=").concat(compressionAlgorithm.name()).concat(
+                ", compressionLevel=").concat(String.valueOf(compressionLevel)).concat(
+                ", reason=").concat(reason).concat(
+                ", sampledRatio=").concat(Double.isNaN(sampledRatio) ? "n/a" : String.format("%.3f", sampledRatio)).concat("}");
+    }
+}
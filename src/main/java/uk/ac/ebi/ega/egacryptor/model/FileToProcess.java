@@ -20,12 +20,23 @@ package uk.ac.ebi.ega.egacryptor.model;
 import java.nio.file.Path;
 
 public class FileToProcess {
+    public static final long UNKNOWN_SIZE = -1;
+
     private final Path fileToEncryptPath;
     private final Path outputFilePath;
+    private final long size;
 
     public FileToProcess(final Path fileToEncryptPath, final Path outputFilePath) {
+        this(fileToEncryptPath, outputFilePath, UNKNOWN_SIZE);
+    }
+
+    /**
+     * @param size Size of file read from its attributes during discovery, UNKNOWN_SIZE if it hasn't been read.
+     */
+    public FileToProcess(final Path fileToEncryptPath, final Path outputFilePath, final long size) {
         this.fileToEncryptPath = fileToEncryptPath;
         this.outputFilePath = outputFilePath;
+        this.size = size;
     }
 
     public FileToProcess(final Path fileToEncryptPath) {
@@ -40,6 +51,14 @@ public class FileToProcess {
         return outputFilePath;
     }
 
+    /**
+     * @return Size of file found during discovery, read from the file system only if it isn't known. 0 if the file
+     * doesn't exist, which fails the file later on.
+     */
+    public long getSize() {
+        return size == UNKNOWN_SIZE ? fileToEncryptPath.toFile().length() : size;
+    }
+
     @Override
     public String toString() {
         return "FileToProcess{".concat(
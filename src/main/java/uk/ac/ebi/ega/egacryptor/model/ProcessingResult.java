@@ -0,0 +1,66 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.model;
+
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+
+import java.util.Map;
+
+public class ProcessingResult {
+    private final long inputSize;
+    private final long outputSize;
+    private final Map<DigestAlgorithm, String> inputDigests;
+    private final Map<DigestAlgorithm, String> outputDigests;
+    private final CompressionDecision compressionDecision;
+    private final long elapsedNanos;
+
+    public ProcessingResult(final long inputSize, final long outputSize, final Map<DigestAlgorithm, String> inputDigests,
+                            final Map<DigestAlgorithm, String> outputDigests, final CompressionDecision compressionDecision,
+                            final long elapsedNanos) {
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+        this.inputDigests = inputDigests;
+        this.outputDigests = outputDigests;
+        this.compressionDecision = compressionDecision;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getInputSize() {
+        return inputSize;
+    }
+
+    public long getOutputSize() {
+        return outputSize;
+    }
+
+    public Map<DigestAlgorithm, String> getInputDigests() {
+        return inputDigests;
+    }
+
+    public Map<DigestAlgorithm, String> getOutputDigests() {
+        return outputDigests;
+    }
+
+    public CompressionDecision getCompressionDecision() {
+        return compressionDecision;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.model;
+
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.VerificationStatus;
+
+import java.nio.file.Path;
+
+public class VerificationResult {
+    private final VerificationStatus verificationStatus;
+    private final Path filePath;
+    private final DigestAlgorithm digestAlgorithm;
+    private final String expectedDigest;
+    private final String actualDigest;
+    private final String message;
+
+    /**
+     * @param filePath Path of the file the digest is of. Plaintext is identified by the original file name.
+     */
+    public VerificationResult(final VerificationStatus verificationStatus, final Path filePath, final DigestAlgorithm digestAlgorithm,
+                              final String expectedDigest, final String actualDigest, final String message) {
+        this.verificationStatus = verificationStatus;
+        this.filePath = filePath;
+        this.digestAlgorithm = digestAlgorithm;
+        this.expectedDigest = expectedDigest;
+        this.actualDigest = actualDigest;
+        this.message = message;
+    }
+
+    public VerificationStatus getVerificationStatus() {
+        return verificationStatus;
+    }
+
+    public Path getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * @return Digest algorithm, null if no digest has been compared.
+     */
+    public DigestAlgorithm getDigestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    public String getExpectedDigest() {
+        return expectedDigest;
+    }
+
+    public String getActualDigest() {
+        return actualDigest;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.output;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Output directories seen during a run. Each directory is created or listed once & the names of the files
+ * it held when first seen are kept, so output files are looked up by name rather than checked for existence
+ * one by one. Files written during the run are not added, as each input file has output files of its own.
+ */
+public class OutputDirectoryCache {
+
+    private final ConcurrentMap<Path, Set<String>> directories = new ConcurrentHashMap<>();
+
+    /**
+     * Creates directory if it doesn't exist.
+     *
+     * @return Names of files which were in the directory when it was first seen, empty if it had to be created.
+     */
+    public Set<String> prepare(final Path directoryPath) throws IOException {
+        try {
+            return directories.computeIfAbsent(directoryPath, this::listFileNames);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Set<String> listFileNames(final Path directoryPath) {
+        try {
+            if (!Files.isDirectory(directoryPath)) {
+                Files.createDirectories(directoryPath);
+                return Collections.emptySet();
+            }
+            final Set<String> fileNames = new HashSet<>();
+            try (final DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directoryPath)) {
+                for (final Path path : directoryStream) {
+                    fileNames.add(path.getFileName().toString());
+                }
+            }
+            return fileNames.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(fileNames);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (DirectoryIteratorException e) {
+            throw new UncheckedIOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+import uk.ac.ebi.ega.egacryptor.stream.nio.FileChannelOutputStream;
+import uk.ac.ebi.ega.egacryptor.stream.nio.MeteredOutputStream;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStreamFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static uk.ac.ebi.ega.egacryptor.constant.FileExtensionType.PART;
+
+/**
+ * Output files of one input file. Every file is written under a temporary name next to its target
+ * and is only renamed to its target name on {@link #commit()}. Files not committed are deleted on
+ * {@link #close()}.
+ */
+public class OutputTransaction implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutputTransaction.class);
+
+    private final PipelineStreamFactory writeBehindStreamFactory;
+    private final boolean extend;
+    private final boolean sync;
+    private final StageTimer stageTimer;
+    private final ThroughputMeter writeMeter;
+    private final Map<Path, Path> tempToTargetPaths = new LinkedHashMap<>();
+    private boolean committed;
+
+    OutputTransaction(final PipelineStreamFactory writeBehindStreamFactory, final boolean extend, final boolean sync,
+                      final StageTimer stageTimer, final ThroughputMeter writeMeter) {
+        this.writeBehindStreamFactory = writeBehindStreamFactory;
+        this.extend = extend;
+        this.sync = sync;
+        this.stageTimer = stageTimer;
+        this.writeMeter = writeMeter;
+    }
+
+    /**
+     * @param expectedSize Size the file is extended to up front, if enabled.
+     */
+    public OutputStream newOutputStream(final File targetFile, final long expectedSize) throws IOException {
+        final Path tempPath = register(targetFile);
+        return writeBehindStreamFactory.newStage(newFileOutputStream(tempPath, extend ? expectedSize : 0));
+    }
+
+    public void write(final File targetFile, final String content) throws IOException {
+        final byte[] bytes = content.getBytes();
+        write(targetFile, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes content with a single write, bypassing the write behind stage.
+     */
+    public void write(final File targetFile, final byte[] bytes, final int off, final int len) throws IOException {
+        try (final OutputStream outputStream = newFileOutputStream(register(targetFile), 0)) {
+            outputStream.write(bytes, off, len);
+        }
+    }
+
+    /**
+     * Renames files in the order they were created, so the file created first is the last one to
+     * appear under its target name.
+     */
+    public void commit() throws IOException {
+        final List<Map.Entry<Path, Path>> entries = new ArrayList<>(tempToTargetPaths.entrySet());
+        Collections.reverse(entries);
+        for (final Map.Entry<Path, Path> entry : entries) {
+            move(entry.getKey(), entry.getValue());
+        }
+        committed = true;
+    }
+
+    @Override
+    public void close() {
+        if (committed) {
+            return;
+        }
+        for (final Path tempPath : tempToTargetPaths.keySet()) {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException e) {
+                LOGGER.error("Unable to delete temporary file {} - {}", tempPath, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Temporary file the target file is written to until commit.
+     */
+    public static File toTempFile(final File targetFile) {
+        return new File(targetFile.getPath().concat(PART.getFileExtension()));
+    }
+
+    /**
+     * Bytes are counted where they are written to the file, behind the write behind stage.
+     */
+    private OutputStream newFileOutputStream(final Path path, final long extendedSize) throws IOException {
+        final OutputStream outputStream = new FileChannelOutputStream(path, extendedSize, sync, stageTimer);
+        return writeMeter == null ? outputStream : new MeteredOutputStream(outputStream, writeMeter);
+    }
+
+    private Path register(final File targetFile) {
+        final Path tempPath = toTempFile(targetFile).toPath();
+        tempToTargetPaths.put(tempPath, targetFile.toPath());
+        return tempPath;
+    }
+
+    private void move(final Path tempPath, final Path targetPath) throws IOException {
+        try {
+            Files.move(tempPath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, targetPath);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.output;
+
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStreamFactory;
+
+public class OutputTransactionFactory {
+
+    private final PipelineStreamFactory writeBehindStreamFactory;
+    private final boolean extend;
+    private final boolean sync;
+    private final ThroughputMeter writeMeter;
+
+    /**
+     * @param writeBehindStreamFactory Stage between the pipeline & each output file, through which
+     *                                 files are written asynchronously in large blocks.
+     * @param extend                   Whether output files are extended up front to their expected size.
+     * @param sync                     Whether output files are forced to the storage device before commit.
+     */
+    public OutputTransactionFactory(final PipelineStreamFactory writeBehindStreamFactory, final boolean extend,
+                                    final boolean sync) {
+        this(writeBehindStreamFactory, extend, sync, null);
+    }
+
+    /**
+     * @param writeMeter Counts bytes written to output files, null if not counted.
+     */
+    public OutputTransactionFactory(final PipelineStreamFactory writeBehindStreamFactory, final boolean extend,
+                                    final boolean sync, final ThroughputMeter writeMeter) {
+        this.writeBehindStreamFactory = writeBehindStreamFactory;
+        this.extend = extend;
+        this.sync = sync;
+        this.writeMeter = writeMeter;
+    }
+
+    public OutputTransaction newOutputTransaction() {
+        return newOutputTransaction(null);
+    }
+
+    /**
+     * @param stageTimer Times writing & syncing output files, null if stages are not timed.
+     */
+    public OutputTransaction newOutputTransaction(final StageTimer stageTimer) {
+        return new OutputTransaction(writeBehindStreamFactory, extend, sync, stageTimer, writeMeter);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.model.ProcessingResult;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Forwards events to the listeners registered at the time. A failing listener doesn't stop others
+ * from being notified, nor the file from being processed.
+ */
+public class CompositeProcessingListener implements ProcessingListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompositeProcessingListener.class);
+
+    private final List<ProcessingListener> processingListeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(final ProcessingListener processingListener) {
+        processingListeners.add(processingListener);
+    }
+
+    public void removeListener(final ProcessingListener processingListener) {
+        processingListeners.remove(processingListener);
+    }
+
+    @Override
+    public void onStarted(final FileToProcess fileToProcess) {
+        notifyListeners(processingListener -> processingListener.onStarted(fileToProcess));
+    }
+
+    @Override
+    public void onSkipped(final FileToProcess fileToProcess) {
+        notifyListeners(processingListener -> processingListener.onSkipped(fileToProcess));
+    }
+
+    @Override
+    public void onCommitted(final FileToProcess fileToProcess, final ProcessingResult processingResult) {
+        notifyListeners(processingListener -> processingListener.onCommitted(fileToProcess, processingResult));
+    }
+
+    @Override
+    public void onFailed(final FileToProcess fileToProcess, final Exception exception) {
+        notifyListeners(processingListener -> processingListener.onFailed(fileToProcess, exception));
+    }
+
+    private void notifyListeners(final Consumer<ProcessingListener> event) {
+        for (final ProcessingListener processingListener : processingListeners) {
+            try {
+                event.accept(processingListener);
+            } catch (RuntimeException e) {
+                LOGGER.error("Error in processing listener {} - {}", processingListener, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.pipeline;
+
+import uk.ac.ebi.ega.egacryptor.compression.CompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculatorFactory;
+import uk.ac.ebi.ega.egacryptor.metrics.StageMetrics;
+import uk.ac.ebi.ega.egacryptor.output.OutputDirectoryCache;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransactionFactory;
+
+/**
+ * Collaborators shared by the encryption pipelines of a run, so that output directories are listed & stages
+ * are collected once for all pipelines.
+ */
+public class CryptographyPipelineOptions {
+
+    private final CompressionPolicy compressionPolicy;
+    private final DigestCalculatorFactory digestCalculatorFactory;
+    private final OutputTransactionFactory outputTransactionFactory;
+    private final ProcessingListener processingListener;
+    private final OutputDirectoryCache outputDirectoryCache;
+    private final StageMetrics stageMetrics;
+
+    /**
+     * @param stageMetrics Collects time spent in each stage of committed files.
+     */
+    public CryptographyPipelineOptions(final CompressionPolicy compressionPolicy,
+                                       final DigestCalculatorFactory digestCalculatorFactory,
+                                       final OutputTransactionFactory outputTransactionFactory,
+                                       final ProcessingListener processingListener,
+                                       final OutputDirectoryCache outputDirectoryCache,
+                                       final StageMetrics stageMetrics) {
+        this.compressionPolicy = compressionPolicy;
+        this.digestCalculatorFactory = digestCalculatorFactory;
+        this.outputTransactionFactory = outputTransactionFactory;
+        this.processingListener = processingListener;
+        this.outputDirectoryCache = outputDirectoryCache;
+        this.stageMetrics = stageMetrics;
+    }
+
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    public DigestCalculatorFactory getDigestCalculatorFactory() {
+        return digestCalculatorFactory;
+    }
+
+    public OutputTransactionFactory getOutputTransactionFactory() {
+        return outputTransactionFactory;
+    }
+
+    public ProcessingListener getProcessingListener() {
+        return processingListener;
+    }
+
+    public OutputDirectoryCache getOutputDirectoryCache() {
+        return outputDirectoryCache;
+    }
+
+    public StageMetrics getStageMetrics() {
+        return stageMetrics;
+    }
+}
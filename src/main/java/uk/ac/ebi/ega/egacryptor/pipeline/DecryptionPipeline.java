@@ -0,0 +1,175 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculator;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculatorFactory;
+import uk.ac.ebi.ega.egacryptor.cryptography.util.FileUtils;
+import uk.ac.ebi.ega.egacryptor.exception.CryptographyException;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.model.ProcessingResult;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransaction;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransactionFactory;
+import uk.ac.ebi.ega.egacryptor.stream.digest.DigestCalculatorInputStream;
+import uk.ac.ebi.ega.egacryptor.stream.digest.DigestCalculatorOutputStream;
+import uk.ac.ebi.ega.egacryptor.stream.nio.InputStreamFactory;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStream;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStreamFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static uk.ac.ebi.ega.egacryptor.constant.FileExtensionType.GPG;
+
+/**
+ * Restores a .gpg file to its original name in the output folder. Digests of the encrypted & the
+ * decrypted data are compared with the digest files next to the .gpg file, where they exist.
+ */
+public class DecryptionPipeline implements CryptographyPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DecryptionPipeline.class);
+
+    private final Cryptography cryptography;
+    private final PipelineStreamFactory pipelineStreamFactory;
+    private final InputStreamFactory inputStreamFactory;
+    private final DigestCalculatorFactory digestCalculatorFactory;
+    private final OutputTransactionFactory outputTransactionFactory;
+    private final ProcessingListener processingListener;
+    private final Supplier<char[]> passphraseSupplier;
+
+    public DecryptionPipeline(final Cryptography cryptography, final PipelineStreamFactory pipelineStreamFactory,
+                              final InputStreamFactory inputStreamFactory, final DigestCalculatorFactory digestCalculatorFactory,
+                              final OutputTransactionFactory outputTransactionFactory,
+                              final ProcessingListener processingListener, final Supplier<char[]> passphraseSupplier) {
+        this.cryptography = cryptography;
+        this.pipelineStreamFactory = pipelineStreamFactory;
+        this.inputStreamFactory = inputStreamFactory;
+        this.digestCalculatorFactory = digestCalculatorFactory;
+        this.outputTransactionFactory = outputTransactionFactory;
+        this.processingListener = processingListener;
+        this.passphraseSupplier = passphraseSupplier;
+    }
+
+    @Override
+    public void process(final FileToProcess fileToProcess) {
+        LOGGER.trace("Decryption process is running");
+        LOGGER.debug("filePathToDecrypt={}", fileToProcess);
+        processingListener.onStarted(fileToProcess);
+        try {
+            final ProcessingResult processingResult = doProcess(fileToProcess);
+            if (processingResult == null) {
+                processingListener.onSkipped(fileToProcess);
+            } else {
+                processingListener.onCommitted(fileToProcess, processingResult);
+            }
+        } catch (CryptographyException | IOException | UncheckedIOException e) {
+            LOGGER.error("Error while executing decryption pipeline - {}", e.getMessage());
+            processingListener.onFailed(fileToProcess, e);
+            throw new RuntimeException("Error while processing request", e);
+        }
+    }
+
+    /**
+     * @return Result of processing, null if file has been skipped.
+     */
+    private ProcessingResult doProcess(final FileToProcess fileToProcess) throws CryptographyException, IOException {
+        final File inputFileGPG = fileToProcess.getFileToEncryptPath().toFile();
+        final Path outputFilePath = fileToProcess.getOutputFilePath();
+        final File outputFolder = outputFilePath.toFile();
+
+        if (!outputFolder.exists() && !outputFolder.mkdirs()) {
+            throw new FileNotFoundException("Path ".concat(outputFolder.getPath()).concat(" doesn't exists. Unable to create path."));
+        }
+
+        final String originalFileName = toOriginalFileName(inputFileGPG.getName());
+        final File outputFile = FileUtils.newEmptyPath().resolve(outputFilePath).resolve(originalFileName).toFile();
+        if (outputFile.exists()) {
+            LOGGER.info("Process skip for file {}. File already exists - {}", inputFileGPG.getPath(), outputFile.getPath());
+            return null;
+        }
+
+        final long startTime = System.nanoTime();
+        long bytesRead;
+        final Map<DigestAlgorithm, String> inputDigests;
+        final Map<DigestAlgorithm, String> outputDigests;
+
+        try (final OutputTransaction outputTransaction = outputTransactionFactory.newOutputTransaction()) {
+            try (final DigestCalculator inputDigestCalculator = digestCalculatorFactory.newDigestCalculator();
+                 final DigestCalculator outputDigestCalculator = digestCalculatorFactory.newDigestCalculator()) {
+                final InputStream digestInputStream = new DigestCalculatorInputStream(inputStreamFactory.newInputStream(inputFileGPG.toPath()),
+                        inputDigestCalculator);
+                final InputStream pgpDecryptedInputStream;
+                try {
+                    pgpDecryptedInputStream = cryptography.decrypt(digestInputStream, passphraseSupplier);//Will be closed in PipelineStream
+                } catch (CryptographyException e) {
+                    digestInputStream.close();
+                    throw e;
+                }
+
+                try (final OutputStream digestOutputStream = new DigestCalculatorOutputStream(pipelineStreamFactory.newStage(
+                        outputTransaction.newOutputStream(outputFile, inputFileGPG.length())), outputDigestCalculator);
+                     final PipelineStream pipelineStream = pipelineStreamFactory.newPipelineStream(pgpDecryptedInputStream, digestOutputStream)) {
+                    LOGGER.info("File {} is being processed", inputFileGPG.getPath());
+                    bytesRead = pipelineStream.execute();
+                }
+                inputDigests = inputDigestCalculator.digest();
+                outputDigests = outputDigestCalculator.digest();
+            }
+            verifyDigests(inputFileGPG.toPath(), inputDigests);
+            verifyDigests(inputFileGPG.toPath().resolveSibling(originalFileName), outputDigests);
+            outputTransaction.commit();
+        }
+        final long elapsedNanos = System.nanoTime() - startTime;
+        LOGGER.info("File {} is successfully decrypted in {} ms. Total bytes written {}. This file has been generated {}", inputFileGPG.getPath(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), bytesRead, outputFile);
+        return new ProcessingResult(inputFileGPG.length(), bytesRead, inputDigests, outputDigests, null, elapsedNanos);
+    }
+
+    private String toOriginalFileName(final String fileNameGPG) {
+        return fileNameGPG.substring(0, fileNameGPG.length() - GPG.getFileExtension().length());
+    }
+
+    /**
+     * @param filePath Path of which digest files, if any, are compared with the calculated digests.
+     */
+    private void verifyDigests(final Path filePath, final Map<DigestAlgorithm, String> digests) throws IOException {
+        for (final Map.Entry<DigestAlgorithm, String> digest : digests.entrySet()) {
+            final Path digestFilePath = filePath.resolveSibling(filePath.getFileName().toString().concat(digest.getKey().getFileExtension()));
+            if (!Files.exists(digestFilePath)) {
+                continue;
+            }
+            final String expectedDigest = FileUtils.readDigest(digestFilePath);
+            if (!expectedDigest.equals(digest.getValue())) {
+                throw new IOException("Digest of ".concat(filePath.toString()).concat(" doesn't match ").concat(digestFilePath.toString())
+                        .concat(". Expected ").concat(expectedDigest).concat(" but was ").concat(digest.getValue()));
+            }
+        }
+    }
+}
@@ -19,90 +19,130 @@ package uk.ac.ebi.ega.egacryptor.pipeline;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.compression.CompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
 import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
-import uk.ac.ebi.ega.egacryptor.cryptography.util.FileUtils;
-import uk.ac.ebi.ega.egacryptor.cryptography.util.Hash;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculator;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculatorFactory;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.TimedDigestCalculator;
 import uk.ac.ebi.ega.egacryptor.exception.CryptographyException;
+import uk.ac.ebi.ega.egacryptor.metrics.StageMetrics;
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
 import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
-import uk.ac.ebi.ega.egacryptor.stream.pipeline.DefaultStream;
+import uk.ac.ebi.ega.egacryptor.model.ProcessingResult;
+import uk.ac.ebi.ega.egacryptor.output.OutputDirectoryCache;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransaction;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransactionFactory;
+import uk.ac.ebi.ega.egacryptor.stream.digest.DigestCalculatorInputStream;
+import uk.ac.ebi.ega.egacryptor.stream.digest.DigestCalculatorOutputStream;
+import uk.ac.ebi.ega.egacryptor.stream.metrics.TimedInputStream;
+import uk.ac.ebi.ega.egacryptor.stream.nio.InputStreamFactory;
 import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStream;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStreamFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.security.DigestInputStream;
-import java.security.DigestOutputStream;
-import java.security.MessageDigest;
-
-import static uk.ac.ebi.ega.egacryptor.constant.FileExtensionType.GPG;
-import static uk.ac.ebi.ega.egacryptor.constant.FileExtensionType.MD5;
-import static uk.ac.ebi.ega.egacryptor.cryptography.util.FileUtils.writeToFile;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class DefaultCryptographyPipeline implements CryptographyPipeline {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCryptographyPipeline.class);
 
-    private final int bufferSize;
     private final Cryptography cryptography;
+    private final PipelineStreamFactory pipelineStreamFactory;
+    private final CompressionPolicy compressionPolicy;
+    private final InputStreamFactory inputStreamFactory;
+    private final DigestCalculatorFactory digestCalculatorFactory;
+    private final OutputTransactionFactory outputTransactionFactory;
+    private final ProcessingListener processingListener;
+    private final OutputDirectoryCache outputDirectoryCache;
+    private final StageMetrics stageMetrics;
 
-    public DefaultCryptographyPipeline(final Cryptography cryptography, final int bufferSize) {
+    public DefaultCryptographyPipeline(final Cryptography cryptography, final PipelineStreamFactory pipelineStreamFactory,
+                                       final InputStreamFactory inputStreamFactory,
+                                       final CryptographyPipelineOptions cryptographyPipelineOptions) {
         this.cryptography = cryptography;
-        this.bufferSize = bufferSize;
+        this.pipelineStreamFactory = pipelineStreamFactory;
+        this.inputStreamFactory = inputStreamFactory;
+        this.compressionPolicy = cryptographyPipelineOptions.getCompressionPolicy();
+        this.digestCalculatorFactory = cryptographyPipelineOptions.getDigestCalculatorFactory();
+        this.outputTransactionFactory = cryptographyPipelineOptions.getOutputTransactionFactory();
+        this.processingListener = cryptographyPipelineOptions.getProcessingListener();
+        this.outputDirectoryCache = cryptographyPipelineOptions.getOutputDirectoryCache();
+        this.stageMetrics = cryptographyPipelineOptions.getStageMetrics();
     }
 
     @Override
     public void process(final FileToProcess fileToProcess) {
         LOGGER.trace("Cryptography process is running");
         LOGGER.debug("filePathToEncrypt={}", fileToProcess);
+        processingListener.onStarted(fileToProcess);
         try {
-            doProcess(fileToProcess);
-        } catch (CryptographyException | IOException e) {
+            final ProcessingResult processingResult = doProcess(fileToProcess);
+            if (processingResult == null) {
+                processingListener.onSkipped(fileToProcess);
+            } else {
+                processingListener.onCommitted(fileToProcess, processingResult);
+            }
+        } catch (CryptographyException | IOException | UncheckedIOException e) {
             LOGGER.error("Error while executing cryptography pipeline - {}", e.getMessage());
+            processingListener.onFailed(fileToProcess, e);
             throw new RuntimeException("Error while processing request", e);
         }
     }
 
-    private void doProcess(final FileToProcess fileToProcess) throws CryptographyException, IOException {
+    /**
+     * @return Result of processing, null if file has been skipped.
+     */
+    private ProcessingResult doProcess(final FileToProcess fileToProcess) throws CryptographyException, IOException {
         final File inputFile = fileToProcess.getFileToEncryptPath().toFile();
         final Path outputFilePath = fileToProcess.getOutputFilePath();
-        final File outputFile = outputFilePath.toFile();
-
-        if (!outputFile.exists() && !outputFile.mkdirs()) {
-            throw new FileNotFoundException("Path ".concat(outputFile.getPath()).concat(" doesn't exists. Unable to create path."));
-        }
-
-        final File outputFileMD5 = FileUtils.newEmptyPath().resolve(outputFilePath).resolve(inputFile.getName().
-                concat(MD5.getFileExtension())).toFile();
-        final File outputFileGPG = FileUtils.newEmptyPath().resolve(outputFilePath).resolve(inputFile.getName().
-                concat(GPG.getFileExtension())).toFile();
-        final File outputFileGPGMD5 = FileUtils.newEmptyPath().resolve(outputFilePath).resolve(inputFile.getName().
-                concat(GPG.getFileExtension().concat(MD5.getFileExtension()))).toFile();
-
-        if (outputFileMD5.exists() || outputFileGPG.exists() || outputFileGPGMD5.exists()) {
-            LOGGER.info("Process skip for file {}. All or some of these files are already exists - {},{},{}", inputFile.getPath(),
-                    outputFileMD5.getPath(), outputFileGPG.getPath(), outputFileGPGMD5.getPath());
-            return;
+        final OutputFiles outputFiles = new OutputFiles(inputFile, outputFilePath, digestCalculatorFactory.getDigestAlgorithms());
+        final File outputFileGPG = outputFiles.getOutputFileGPG();
+        if (!outputFiles.prepare(outputDirectoryCache.prepare(outputFilePath))) {
+            return null;
         }
 
-        final MessageDigest inputStreamMessageDigest = Hash.getMD5();
-        final MessageDigest outputStreamMessageDigest = Hash.getMD5();
-
-        final DigestInputStream digestInputStream = new DigestInputStream(new FileInputStream(inputFile), inputStreamMessageDigest);//Will be closed in PipelineStream
+        final long startTime = System.nanoTime();
+        final CompressionDecision compressionDecision = compressionPolicy.decide(fileToProcess);
         long bytesRead;
+        final Map<DigestAlgorithm, String> inputDigests;
+        final Map<DigestAlgorithm, String> outputDigests;
+        final StageTimer stageTimer = stageMetrics.newStageTimer();
+
+        try (final OutputTransaction outputTransaction = outputTransactionFactory.newOutputTransaction(stageTimer)) {
+            try (final DigestCalculator inputDigestCalculator = TimedDigestCalculator.wrap(digestCalculatorFactory.newDigestCalculator(),
+                    stageTimer, Stage.PLAINTEXT_DIGEST);
+                 final DigestCalculator outputDigestCalculator = TimedDigestCalculator.wrap(digestCalculatorFactory.newDigestCalculator(),
+                         stageTimer, Stage.CIPHERTEXT_DIGEST)) {
+                final InputStream digestInputStream = new DigestCalculatorInputStream(TimedInputStream.wrap(
+                        inputStreamFactory.newInputStream(inputFile.toPath()), stageTimer, Stage.READ),
+                        inputDigestCalculator);//Will be closed in PipelineStream
 
-        try (final DigestOutputStream digestOutputStream = new DigestOutputStream(new FileOutputStream(outputFileGPG), outputStreamMessageDigest)) {
-            final OutputStream pgpEncryptedOutputStream = cryptography.encrypt(digestOutputStream);//Will be closed in PipelineStream
-            try (final PipelineStream pipelineStream = new DefaultStream(digestInputStream, pgpEncryptedOutputStream, bufferSize)) {
-                LOGGER.info("File {} is being processed", inputFile.getPath());
-                bytesRead = pipelineStream.execute();
+                try (final OutputStream digestOutputStream = new DigestCalculatorOutputStream(pipelineStreamFactory.newStage(
+                        outputTransaction.newOutputStream(outputFileGPG, fileToProcess.getSize())), outputDigestCalculator)) {
+                    final OutputStream pgpEncryptedOutputStream = cryptography.encrypt(digestOutputStream, compressionDecision, stageTimer);//Will be closed in PipelineStream
+                    try (final PipelineStream pipelineStream = pipelineStreamFactory.newPipelineStream(digestInputStream, pgpEncryptedOutputStream)) {
+                        LOGGER.info("File {} is being processed", inputFile.getPath());
+                        bytesRead = pipelineStream.execute();
+                    }
+                }
+                inputDigests = inputDigestCalculator.digest();
+                outputDigests = outputDigestCalculator.digest();
             }
+            outputFiles.writeDigestFiles(outputTransaction, inputDigests, outputDigests);
+            outputTransaction.commit();
         }
-        writeToFile(outputFileMD5, Hash.normalize(inputStreamMessageDigest));
-        writeToFile(outputFileGPGMD5, Hash.normalize(outputStreamMessageDigest));
-        LOGGER.info("File {} is successfully encrypted. Total bytes read {}. These files have been generated {},{},{}", inputFile.getPath(), bytesRead,
-                outputFileMD5.getPath(), outputFileGPG.getPath(), outputFileGPGMD5.getPath());
+        final long elapsedNanos = System.nanoTime() - startTime;
+        stageMetrics.add(inputFile.getPath(), stageTimer);
+        LOGGER.info("File {} is successfully encrypted in {} ms with {}. Total bytes read {}. These files have been generated {}", inputFile.getPath(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), compressionDecision, bytesRead, outputFiles);
+        return new ProcessingResult(bytesRead, outputFileGPG.length(), inputDigests, outputDigests, compressionDecision, elapsedNanos);
     }
 }
@@ -0,0 +1,124 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.cryptography.util.FileUtils;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransaction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static uk.ac.ebi.ega.egacryptor.constant.FileExtensionType.GPG;
+
+/**
+ * Output files of an input file, the .gpg file & for each digest algorithm a digest file of the input
+ * file & of the .gpg file. Decides whether the input file is skipped & writes the digest files, the same
+ * way for the streaming & the in memory pipeline.
+ */
+class OutputFiles {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutputFiles.class);
+
+    private final File inputFile;
+    private final Path outputFilePath;
+    private final File outputFileGPG;
+    private final List<File> files;
+
+    OutputFiles(final File inputFile, final Path outputFilePath, final List<DigestAlgorithm> digestAlgorithms) {
+        this.inputFile = inputFile;
+        this.outputFilePath = outputFilePath;
+        this.outputFileGPG = FileUtils.newEmptyPath().resolve(outputFilePath).resolve(inputFile.getName().
+                concat(GPG.getFileExtension())).toFile();
+        final List<File> files = new ArrayList<>();
+        files.add(outputFileGPG);
+        for (final DigestAlgorithm digestAlgorithm : digestAlgorithms) {
+            files.add(toDigestFile(inputFile.getName(), digestAlgorithm));
+            files.add(toDigestFile(outputFileGPG.getName(), digestAlgorithm));
+        }
+        this.files = Collections.unmodifiableList(files);
+    }
+
+    File getOutputFileGPG() {
+        return outputFileGPG;
+    }
+
+    List<File> getFiles() {
+        return files;
+    }
+
+    /**
+     * Deletes output files left by an interrupted commit, so they are regenerated.
+     *
+     * @param existingFileNames Names of files in the output directory before this run.
+     * @return false if file is to be skipped as some of its output files already exist.
+     */
+    boolean prepare(final Set<String> existingFileNames) throws IOException {
+        if (isCommitInterrupted(existingFileNames)) {
+            LOGGER.warn("Previous commit of file {} has been interrupted. Output files will be regenerated", inputFile.getPath());
+            for (final File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        } else if (files.stream().map(File::getName).anyMatch(existingFileNames::contains)) {
+            LOGGER.info("Process skip for file {}. All or some of these files are already exists - {}", inputFile.getPath(),
+                    files);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The .gpg file is renamed last on commit, so digest files next to a temporary .gpg file are
+     * left by a commit which has not completed.
+     */
+    private boolean isCommitInterrupted(final Set<String> existingFileNames) {
+        return !existingFileNames.contains(outputFileGPG.getName()) &&
+                existingFileNames.contains(OutputTransaction.toTempFile(outputFileGPG).getName()) &&
+                files.stream().map(File::getName).anyMatch(existingFileNames::contains);
+    }
+
+    void writeDigestFiles(final OutputTransaction outputTransaction, final Map<DigestAlgorithm, String> inputDigests,
+                          final Map<DigestAlgorithm, String> outputDigests) throws IOException {
+        writeDigestFiles(outputTransaction, inputFile.getName(), inputDigests);
+        writeDigestFiles(outputTransaction, outputFileGPG.getName(), outputDigests);
+    }
+
+    private void writeDigestFiles(final OutputTransaction outputTransaction, final String fileName,
+                                  final Map<DigestAlgorithm, String> digests) throws IOException {
+        for (final Map.Entry<DigestAlgorithm, String> digest : digests.entrySet()) {
+            outputTransaction.write(toDigestFile(fileName, digest.getKey()), digest.getValue());
+        }
+    }
+
+    private File toDigestFile(final String fileName, final DigestAlgorithm digestAlgorithm) {
+        return FileUtils.newEmptyPath().resolve(outputFilePath).resolve(fileName.concat(digestAlgorithm.getFileExtension())).toFile();
+    }
+
+    @Override
+    public String toString() {
+        return files.toString();
+    }
+}
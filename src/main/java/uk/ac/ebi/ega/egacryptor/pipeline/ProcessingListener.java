@@ -0,0 +1,46 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.pipeline;
+
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.model.ProcessingResult;
+
+/**
+ * Notified by {@link CryptographyPipeline} of progress of each file. Methods can be called
+ * concurrently for different files.
+ */
+public interface ProcessingListener {
+
+    default void onStarted(final FileToProcess fileToProcess) {
+    }
+
+    /**
+     * Output files already exist, file has not been processed.
+     */
+    default void onSkipped(final FileToProcess fileToProcess) {
+    }
+
+    /**
+     * All output files have been renamed to their final names.
+     */
+    default void onCommitted(final FileToProcess fileToProcess, final ProcessingResult processingResult) {
+    }
+
+    default void onFailed(final FileToProcess fileToProcess, final Exception exception) {
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.compression.CompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
+import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculator;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculatorFactory;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.TimedDigestCalculator;
+import uk.ac.ebi.ega.egacryptor.exception.CryptographyException;
+import uk.ac.ebi.ega.egacryptor.metrics.StageMetrics;
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.model.ProcessingResult;
+import uk.ac.ebi.ega.egacryptor.output.OutputDirectoryCache;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransaction;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransactionFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encrypts files up to a threshold size in memory. The file is read with one read, the encrypted
+ * message is built in a per thread buffer & written with one write. Output directories are created
+ * or listed once per run & progress is logged once per batch of files. Larger files are passed to
+ * the streaming pipeline.
+ */
+public class SmallFileCryptographyPipeline implements CryptographyPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmallFileCryptographyPipeline.class);
+
+    private final CryptographyPipeline streamingPipeline;
+    private final Cryptography cryptography;
+    private final CompressionPolicy compressionPolicy;
+    private final DigestCalculatorFactory digestCalculatorFactory;
+    private final OutputTransactionFactory outputTransactionFactory;
+    private final ProcessingListener processingListener;
+    private final long smallFileThreshold;
+    private final int logInterval;
+    private final OutputDirectoryCache outputDirectoryCache;
+    private final ThroughputMeter throughputMeter;
+    private final StageMetrics stageMetrics;
+    private final ThreadLocal<MessageBuffer> messageBuffer = ThreadLocal.withInitial(MessageBuffer::new);
+    private final AtomicLong noOfFiles = new AtomicLong();
+    private final AtomicLong noOfBytes = new AtomicLong();
+
+    /**
+     * @param cryptography       Encrypts on the calling thread, without pipeline stages.
+     * @param smallFileThreshold Files up to this size are encrypted in memory.
+     * @param logInterval        No. of files encrypted in memory between progress log messages.
+     * @param throughputMeter    Counts bytes read from small files, as the streaming pipeline counts bytes read
+     *                           through its input streams.
+     */
+    public SmallFileCryptographyPipeline(final CryptographyPipeline streamingPipeline, final Cryptography cryptography,
+                                         final CryptographyPipelineOptions cryptographyPipelineOptions,
+                                         final ThroughputMeter throughputMeter, final long smallFileThreshold,
+                                         final int logInterval) {
+        this.streamingPipeline = streamingPipeline;
+        this.cryptography = cryptography;
+        this.compressionPolicy = cryptographyPipelineOptions.getCompressionPolicy();
+        this.digestCalculatorFactory = cryptographyPipelineOptions.getDigestCalculatorFactory();
+        this.outputTransactionFactory = cryptographyPipelineOptions.getOutputTransactionFactory();
+        this.processingListener = cryptographyPipelineOptions.getProcessingListener();
+        this.outputDirectoryCache = cryptographyPipelineOptions.getOutputDirectoryCache();
+        this.throughputMeter = throughputMeter;
+        this.stageMetrics = cryptographyPipelineOptions.getStageMetrics();
+        this.smallFileThreshold = smallFileThreshold;
+        this.logInterval = logInterval;
+    }
+
+    @Override
+    public void process(final FileToProcess fileToProcess) {
+        final File inputFile = fileToProcess.getFileToEncryptPath().toFile();
+        //0 for a file which doesn't exist, the streaming pipeline reports the error
+        final long fileSize = fileToProcess.getSize();
+        if (fileSize == 0 || fileSize > smallFileThreshold) {
+            streamingPipeline.process(fileToProcess);
+            return;
+        }
+
+        LOGGER.debug("filePathToEncrypt={}", fileToProcess);
+        processingListener.onStarted(fileToProcess);
+        try {
+            final ProcessingResult processingResult = doProcess(fileToProcess, inputFile);
+            if (processingResult == null) {
+                processingListener.onSkipped(fileToProcess);
+            } else {
+                processingListener.onCommitted(fileToProcess, processingResult);
+                logProgress(processingResult.getInputSize());
+            }
+        } catch (CryptographyException | IOException | UncheckedIOException e) {
+            LOGGER.error("Error while executing cryptography pipeline for file {} - {}", inputFile.getPath(), e.getMessage());
+            processingListener.onFailed(fileToProcess, e);
+            throw new RuntimeException("Error while processing request", e);
+        }
+    }
+
+    /**
+     * @return Result of processing, null if file has been skipped.
+     */
+    private ProcessingResult doProcess(final FileToProcess fileToProcess, final File inputFile) throws CryptographyException, IOException {
+        final Path outputFilePath = fileToProcess.getOutputFilePath();
+        final OutputFiles outputFiles = new OutputFiles(inputFile, outputFilePath, digestCalculatorFactory.getDigestAlgorithms());
+        if (!outputFiles.prepare(outputDirectoryCache.prepare(outputFilePath))) {
+            return null;
+        }
+
+        final long startTime = System.nanoTime();
+        final CompressionDecision compressionDecision = compressionPolicy.decide(fileToProcess);
+        final StageTimer stageTimer = stageMetrics.newStageTimer();
+        final long readStartTime = System.nanoTime();
+        final byte[] content = Files.readAllBytes(inputFile.toPath());
+        StageTimer.record(stageTimer, Stage.READ, readStartTime, content.length);
+        throughputMeter.add(content.length);
+        final MessageBuffer message = messageBuffer.get();
+        message.reset();
+        try (final OutputStream pgpEncryptedOutputStream = cryptography.encrypt(message, compressionDecision, stageTimer)) {
+            pgpEncryptedOutputStream.write(content);
+        }
+
+        final Map<DigestAlgorithm, String> inputDigests;
+        final Map<DigestAlgorithm, String> outputDigests;
+        try (final DigestCalculator inputDigestCalculator = TimedDigestCalculator.wrap(digestCalculatorFactory.newDigestCalculator(),
+                stageTimer, Stage.PLAINTEXT_DIGEST);
+             final DigestCalculator outputDigestCalculator = TimedDigestCalculator.wrap(digestCalculatorFactory.newDigestCalculator(),
+                     stageTimer, Stage.CIPHERTEXT_DIGEST)) {
+            inputDigestCalculator.update(content, 0, content.length);
+            outputDigestCalculator.update(message.getBuffer(), 0, message.size());
+            inputDigests = inputDigestCalculator.digest();
+            outputDigests = outputDigestCalculator.digest();
+        }
+
+        try (final OutputTransaction outputTransaction = outputTransactionFactory.newOutputTransaction(stageTimer)) {
+            outputTransaction.write(outputFiles.getOutputFileGPG(), message.getBuffer(), 0, message.size());
+            outputFiles.writeDigestFiles(outputTransaction, inputDigests, outputDigests);
+            outputTransaction.commit();
+        }
+        final long elapsedNanos = System.nanoTime() - startTime;
+        stageMetrics.add(inputFile.getPath(), stageTimer);
+        LOGGER.debug("File {} is successfully encrypted in {} ms with {}", inputFile.getPath(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), compressionDecision);
+        return new ProcessingResult(content.length, message.size(), inputDigests, outputDigests, compressionDecision, elapsedNanos);
+    }
+
+    private void logProgress(final long fileSize) {
+        final long bytes = noOfBytes.addAndGet(fileSize);
+        final long files = noOfFiles.incrementAndGet();
+        if (files % logInterval == 0) {
+            LOGGER.info("{} small files with {} bytes have been encrypted in memory", files, bytes);
+        }
+    }
+
+    /**
+     * Encrypted message of a file, the buffer is reused by the next file of the same thread.
+     */
+    private static class MessageBuffer extends ByteArrayOutputStream {
+        byte[] getBuffer() {
+            return buf;
+        }
+
+        @Override
+        public void close() {
+            //Buffer stays open for the next file
+        }
+    }
+}
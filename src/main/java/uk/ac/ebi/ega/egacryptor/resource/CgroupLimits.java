@@ -0,0 +1,161 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CPU quota & memory limit of the control group of the process, as set by container runtimes & batch schedulers
+ * such as Kubernetes & Slurm. Limits are read from cgroup v2 or v1 under /sys/fs/cgroup, for the cgroup of the
+ * process & each of its parents, so a limit set on the job rather than on the step still applies.
+ */
+public class CgroupLimits {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CgroupLimits.class);
+
+    public static final CgroupLimits NONE = new CgroupLimits(0, 0);
+
+    //cgroup v1 reports no memory limit as a page aligned Long.MAX_VALUE
+    private static final long UNLIMITED_MEMORY = 1L << 62;
+
+    private final double cpuLimit;
+    private final long memoryLimit;
+
+    /**
+     * @param cpuLimit    No. of CPUs the quota allows per period, 0 if not limited.
+     * @param memoryLimit Bytes, 0 if not limited.
+     */
+    public CgroupLimits(final double cpuLimit, final long memoryLimit) {
+        this.cpuLimit = cpuLimit;
+        this.memoryLimit = memoryLimit;
+    }
+
+    public double getCpuLimit() {
+        return cpuLimit;
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public static CgroupLimits read() {
+        return read(Paths.get("/proc/self/cgroup"), Paths.get("/sys/fs/cgroup"));
+    }
+
+    /**
+     * @param procCgroupPath Cgroups of the process, one hierarchy-id:controllers:path per line.
+     * @param cgroupRootPath Mount point of the cgroup file systems.
+     * @return Limits, {@link #NONE} if the process isn't in a cgroup or the cgroup can't be read.
+     */
+    static CgroupLimits read(final Path procCgroupPath, final Path cgroupRootPath) {
+        if (!Files.isReadable(procCgroupPath) || !Files.isDirectory(cgroupRootPath)) {
+            return NONE;
+        }
+        try {
+            final List<String> lines = Files.readAllLines(procCgroupPath);
+            if (Files.exists(cgroupRootPath.resolve("cgroup.controllers"))) {
+                final Path cgroupPath = findCgroupPath(cgroupRootPath, lines, "");
+                return new CgroupLimits(readCpuLimitV2(cgroupRootPath, cgroupPath), readMemoryLimit(cgroupRootPath, cgroupPath, "memory.max"));
+            }
+            final Path cpuRootPath = cgroupRootPath.resolve("cpu");
+            final Path memoryRootPath = cgroupRootPath.resolve("memory");
+            return new CgroupLimits(readCpuLimitV1(cpuRootPath, findCgroupPath(cpuRootPath, lines, "cpu")),
+                    readMemoryLimit(memoryRootPath, findCgroupPath(memoryRootPath, lines, "memory"), "memory.limit_in_bytes"));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to read limits of cgroup, resources are planned from the JVM - " + e.getMessage());
+            return NONE;
+        }
+    }
+
+    /**
+     * Inside a cgroup namespace the cgroup of the process is mounted as the root, otherwise it is found at
+     * its path under the root.
+     *
+     * @param controller Controller of a cgroup v1 hierarchy, empty for the cgroup v2 hierarchy.
+     */
+    private static Path findCgroupPath(final Path rootPath, final List<String> lines, final String controller) {
+        for (final String line : lines) {
+            final String[] fields = line.split(":", 3);
+            if (fields.length < 3) {
+                continue;
+            }
+            final boolean matches = controller.isEmpty() ? fields[1].isEmpty() :
+                    Arrays.asList(fields[1].split(",")).contains(controller);
+            if (matches) {
+                final Path cgroupPath = rootPath.resolve(fields[2].replaceFirst("^/+", ""));
+                return Files.isDirectory(cgroupPath) ? cgroupPath : rootPath;
+            }
+        }
+        return rootPath;
+    }
+
+    private static double readCpuLimitV2(final Path rootPath, final Path cgroupPath) throws IOException {
+        double cpuLimit = 0;
+        for (Path path = cgroupPath; path != null && path.startsWith(rootPath); path = path.getParent()) {
+            final String[] fields = readValue(path.resolve("cpu.max")).split("\\s+");
+            if (fields.length == 2 && !"max".equals(fields[0])) {
+                cpuLimit = min(cpuLimit, Double.parseDouble(fields[0]) / Double.parseDouble(fields[1]));
+            }
+        }
+        return cpuLimit;
+    }
+
+    private static double readCpuLimitV1(final Path rootPath, final Path cgroupPath) throws IOException {
+        double cpuLimit = 0;
+        for (Path path = cgroupPath; path != null && path.startsWith(rootPath); path = path.getParent()) {
+            final String quota = readValue(path.resolve("cpu.cfs_quota_us"));
+            final String period = readValue(path.resolve("cpu.cfs_period_us"));
+            if (!quota.isEmpty() && !period.isEmpty() && Long.parseLong(quota) > 0) {
+                cpuLimit = min(cpuLimit, Double.parseDouble(quota) / Double.parseDouble(period));
+            }
+        }
+        return cpuLimit;
+    }
+
+    private static long readMemoryLimit(final Path rootPath, final Path cgroupPath, final String fileName) throws IOException {
+        long memoryLimit = 0;
+        for (Path path = cgroupPath; path != null && path.startsWith(rootPath); path = path.getParent()) {
+            final String value = readValue(path.resolve(fileName));
+            if (!value.isEmpty() && !"max".equals(value)) {
+                final long limit = Long.parseLong(value);
+                if (limit > 0 && limit < UNLIMITED_MEMORY) {
+                    memoryLimit = memoryLimit == 0 ? limit : Math.min(memoryLimit, limit);
+                }
+            }
+        }
+        return memoryLimit;
+    }
+
+    private static double min(final double limit, final double otherLimit) {
+        return limit == 0 ? otherLimit : Math.min(limit, otherLimit);
+    }
+
+    /**
+     * @return Trimmed content of the file, empty if the file doesn't exist.
+     */
+    private static String readValue(final Path path) throws IOException {
+        return Files.isReadable(path) ? new String(Files.readAllBytes(path)).trim() : "";
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.resource;
+
+import uk.ac.ebi.ega.egacryptor.constant.BufferType;
+
+import java.util.Map;
+
+/**
+ * No. of processors, upper bound of workers & buffer sizes fitting the CPU & memory available to the process.
+ */
+public class ResourcePlan {
+
+    private final int noOfProcessors;
+    private final int maxWorkers;
+    private final Map<BufferType, Long> bufferSizes;
+
+    ResourcePlan(final int noOfProcessors, final int maxWorkers, final Map<BufferType, Long> bufferSizes) {
+        this.noOfProcessors = noOfProcessors;
+        this.maxWorkers = maxWorkers;
+        this.bufferSizes = bufferSizes;
+    }
+
+    /**
+     * @return No. of processors of the JVM, limited by the CPU quota of the cgroup.
+     */
+    public int getNoOfProcessors() {
+        return noOfProcessors;
+    }
+
+    /**
+     * @return No. of files which may be processed at the same time with the planned buffers, Integer.MAX_VALUE
+     * if memory is not planned.
+     */
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    /**
+     * @return Planned size of buffers of the type, which may be smaller than configured.
+     */
+    public int getBufferSize(final BufferType bufferType) {
+        return bufferSizes.get(bufferType).intValue();
+    }
+}
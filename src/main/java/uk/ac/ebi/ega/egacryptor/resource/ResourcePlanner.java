@@ -0,0 +1,127 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.BufferType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Plans workers & buffers from the CPU quota & memory limit of the cgroup. The no. of processors is limited by
+ * the CPU quota, as threads beyond the quota are throttled. Buffers of as many workers as processors have to fit
+ * in a share of the memory of the JVM, which is limited by the memory limit of the cgroup, as a process over the
+ * limit is killed. Until they fit, the resizable buffers taking the most memory are halved, down to 64 KiB. The no. of workers is
+ * then limited to the no. of workers whose buffers fit.
+ */
+public class ResourcePlanner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourcePlanner.class);
+
+    static final long MIN_BUFFER_SIZE = 64 * 1024;
+
+    private final int noOfProcessors;
+    private final long memoryBudget;
+    private final Map<BufferType, Long> bufferSizes = new EnumMap<>(BufferType.class);
+    private final Map<BufferType, Integer> noOfBuffers = new EnumMap<>(BufferType.class);
+    private final Map<BufferType, Boolean> resizable = new EnumMap<>(BufferType.class);
+
+    /**
+     * @param availableProcessors No. of processors of the JVM.
+     * @param maxMemory           Max. memory of the JVM.
+     * @param memoryFraction      Share of memory buffers of workers may take, 0 to not plan memory.
+     */
+    public ResourcePlanner(final int availableProcessors, final long maxMemory, final CgroupLimits cgroupLimits,
+                           final double memoryFraction) {
+        final double cpuLimit = cgroupLimits.getCpuLimit();
+        noOfProcessors = cpuLimit > 0 ? Math.max(1, Math.min(availableProcessors, (int) Math.ceil(cpuLimit))) : availableProcessors;
+        final long memoryLimit = cgroupLimits.getMemoryLimit();
+        final long memory = memoryLimit > 0 ? Math.min(maxMemory, memoryLimit) : maxMemory;
+        memoryBudget = (long) (memory * memoryFraction);
+        LOGGER.info("CPU limit of cgroup: {}, memory limit of cgroup: {}, processors of JVM: {}, max. memory of JVM: {}",
+                cpuLimit > 0 ? String.format("%.2f", cpuLimit) : "none", memoryLimit > 0 ? toMiB(memoryLimit) : "none",
+                availableProcessors, toMiB(maxMemory));
+    }
+
+    /**
+     * @param bufferSize  Configured size of the buffers.
+     * @param noOfBuffers No. of buffers of the type held by a worker, 0 if not used.
+     * @param resizable   Whether buffers may be smaller than configured.
+     */
+    public ResourcePlanner addBuffer(final BufferType bufferType, final long bufferSize, final int noOfBuffers,
+                                     final boolean resizable) {
+        bufferSizes.put(bufferType, bufferSize);
+        this.noOfBuffers.put(bufferType, bufferSize > 0 ? Math.max(0, noOfBuffers) : 0);
+        this.resizable.put(bufferType, resizable);
+        return this;
+    }
+
+    public ResourcePlan plan() {
+        if (memoryBudget <= 0) {
+            LOGGER.info("Resource plan: {} processor(s), memory of workers not planned", noOfProcessors);
+            return new ResourcePlan(noOfProcessors, Integer.MAX_VALUE, new EnumMap<>(bufferSizes));
+        }
+        final Map<BufferType, Long> plannedBufferSizes = new EnumMap<>(bufferSizes);
+        BufferType largestBufferType;
+        while ((long) noOfProcessors * getMemoryPerWorker(plannedBufferSizes) > memoryBudget &&
+                (largestBufferType = findLargestResizableBuffer(plannedBufferSizes)) != null) {
+            plannedBufferSizes.put(largestBufferType, Math.max(MIN_BUFFER_SIZE, plannedBufferSizes.get(largestBufferType) / 2));
+        }
+        final long memoryPerWorker = Math.max(1, getMemoryPerWorker(plannedBufferSizes));
+        final int maxWorkers = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / memoryPerWorker));
+
+        LOGGER.info("Resource plan: {} processor(s), {} for buffers, {} per worker, at most {} worker(s)", noOfProcessors,
+                toMiB(memoryBudget), toMiB(memoryPerWorker), maxWorkers);
+        plannedBufferSizes.forEach((bufferType, bufferSize) -> {
+            if (!bufferSize.equals(bufferSizes.get(bufferType))) {
+                LOGGER.info("{} buffers reduced from {} to {} bytes", bufferType, bufferSizes.get(bufferType), bufferSize);
+            }
+        });
+        return new ResourcePlan(noOfProcessors, maxWorkers, plannedBufferSizes);
+    }
+
+    private long getMemoryPerWorker(final Map<BufferType, Long> plannedBufferSizes) {
+        long memoryPerWorker = 0;
+        for (final Map.Entry<BufferType, Long> entry : plannedBufferSizes.entrySet()) {
+            memoryPerWorker += entry.getValue() * noOfBuffers.get(entry.getKey());
+        }
+        return memoryPerWorker;
+    }
+
+    /**
+     * @return Resizable buffer type taking the most memory of a worker, null if all are at their min. size.
+     */
+    private BufferType findLargestResizableBuffer(final Map<BufferType, Long> plannedBufferSizes) {
+        BufferType largestBufferType = null;
+        long largestMemory = 0;
+        for (final Map.Entry<BufferType, Long> entry : plannedBufferSizes.entrySet()) {
+            final BufferType bufferType = entry.getKey();
+            final long memory = entry.getValue() * noOfBuffers.get(bufferType);
+            if (resizable.get(bufferType) && entry.getValue() > MIN_BUFFER_SIZE && memory > largestMemory) {
+                largestBufferType = bufferType;
+                largestMemory = memory;
+            }
+        }
+        return largestBufferType;
+    }
+
+    private static String toMiB(final long bytes) {
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+}
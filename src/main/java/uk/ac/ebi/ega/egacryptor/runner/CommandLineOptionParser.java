@@ -18,6 +18,7 @@
 package uk.ac.ebi.ega.egacryptor.runner;
 
 import joptsimple.OptionParser;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
 
 public class CommandLineOptionParser {
 
@@ -33,6 +34,22 @@ public class CommandLineOptionParser {
     public static final String UTILIZE_HALF_RESOURCE = "l";
     //User specified no of threads
     public static final String USER_THREADS = "t";
+    //Compression algorithm, overrides pgp.compression.algorithm property
+    public static final String COMPRESSION_ALGORITHM = "ca";
+    //Deflate compression level, overrides pgp.compression.level property
+    public static final String COMPRESSION_LEVEL = "cl";
+    //Per extension compression, overrides pgp.compression.overrides property
+    public static final String COMPRESSION_OVERRIDES = "co";
+    //Resume from journal in output folder
+    public static final String RESUME = "resume";
+    //Decrypt .gpg files instead of encrypting
+    public static final String DECRYPT = "decrypt";
+    //Verify digests of .gpg files instead of encrypting
+    public static final String VERIFY = "verify";
+    //Also verify digests of plaintext, implies verify
+    public static final String VERIFY_PLAINTEXT = "verify-plaintext";
+    //Verification report file
+    public static final String REPORT = "report";
     //Help option
     public static final String OPTIONS_HELP = "h";
     private static final OptionParser optionParser = buildParser();
@@ -54,6 +71,30 @@ public class CommandLineOptionParser {
                 "Application will calculate no. of cores/processors available on machine & will create threads accordingly").
                 withRequiredArg().
                 ofType(Integer.class);
+        parser.accepts(COMPRESSION_ALGORITHM, "Compression algorithm used for the file(s). One of ZIP, ZLIB, BZIP2, UNCOMPRESSED or NONE. " +
+                "NONE doesn't write a compressed data packet. Default is ZIP").
+                withRequiredArg().
+                ofType(CompressionAlgorithm.class);
+        parser.accepts(COMPRESSION_LEVEL, "Compression level from 1 (fastest) to 9 (smallest) for ZIP & ZLIB. 0 stores data as is. " +
+                "Default is -1, the default level of deflate").
+                withRequiredArg().
+                ofType(Integer.class);
+        parser.accepts(COMPRESSION_OVERRIDES, "Comma separated compression for files with given extension in format " +
+                "extension:ALGORITHM[:level] E.g. bam:NONE,vcf:BZIP2,fastq:ZIP:1").
+                withRequiredArg().
+                ofType(String.class);
+        parser.accepts(RESUME, "Resume an interrupted run from the journal in the output folder. Files already committed are skipped " +
+                "& discovery is not repeated if the journal holds a complete discovery. Option i is then ignored");
+        parser.accepts(DECRYPT, "Decrypt the .gpg file(s) found in option i to their original names in the output folder. " +
+                "Requires property pgp.secret.key. Passphrase is read from file in pgp.secret.key.passphrase.file, " +
+                "environment variable EGA_CRYPTOR_PASSPHRASE or the console");
+        parser.accepts(VERIFY, "Verify the .gpg file(s) found in option i against their .gpg digest files, e.g. .gpg.md5. " +
+                "Option t sets the no. of files read in parallel & may exceed the no. of cores");
+        parser.accepts(VERIFY_PLAINTEXT, "Same as option verify & also decrypts the .gpg file(s) in memory to verify the plaintext " +
+                "against the digest files of the original file(s), e.g. .md5. Requires property pgp.secret.key");
+        parser.accepts(REPORT, "Path of the tab separated verification report. Default is egacryptor-verification.tsv in the output folder").
+                withRequiredArg().
+                ofType(String.class);
         parser.accepts(OPTIONS_HELP, "Use this option to get help");
         parser.allowsUnrecognizedOptions();
         return parser;
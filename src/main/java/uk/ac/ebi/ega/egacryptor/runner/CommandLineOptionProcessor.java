@@ -21,6 +21,7 @@ import joptsimple.OptionSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
+import uk.ac.ebi.ega.egacryptor.resource.ResourcePlan;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -31,22 +32,36 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.DECRYPT;
 import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.FILE_TO_ENCRYPT_PATH;
 import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.OUTPUT_FOLDER_PATH;
+import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.REPORT;
+import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.RESUME;
 import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.USER_THREADS;
 import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.UTILIZE_FULL_RESOURCE;
 import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.UTILIZE_HALF_RESOURCE;
 import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.UTILIZE_OPTIMIZE_RESOURCE;
+import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.VERIFY;
+import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.VERIFY_PLAINTEXT;
 
 public class CommandLineOptionProcessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CommandLineOptionProcessor.class);
 
+    private static final String DEFAULT_REPORT_FILE_NAME = "egacryptor-verification.tsv";
+
     private final List<Path> fileToEncryptPaths;
     private final Path outputFolderPath;
     private final int noOfThreads;
-
-    private CommandLineOptionProcessor(final OptionSet optionSet, final Path defaultOutputFilePath) throws FileNotFoundException {
+    private final boolean resume;
+    private final boolean decrypt;
+    private final boolean verify;
+    private final boolean verifyPlaintext;
+    private final Path reportFilePath;
+    private final int noOfVerificationThreads;
+
+    private CommandLineOptionProcessor(final OptionSet optionSet, final Path defaultOutputFilePath,
+                                       final ResourcePlan resourcePlan) throws FileNotFoundException {
         final String userDefinedOutputFilePath = optionSet.valueOf(OUTPUT_FOLDER_PATH).toString();
 
         outputFolderPath = StringUtils.isEmpty(userDefinedOutputFilePath) ? defaultOutputFilePath.normalize().toAbsolutePath() : Paths.get(userDefinedOutputFilePath)
@@ -61,16 +76,26 @@ public class CommandLineOptionProcessor {
 
         fileToEncryptPaths = Arrays.asList(optionSet.valueOf(FILE_TO_ENCRYPT_PATH).toString().split(",")).
                 parallelStream().map(filePath -> Paths.get(filePath.trim()).normalize().toAbsolutePath()).collect(Collectors.toList());
-        noOfThreads = determineNoOfThreads(optionSet);
+        noOfThreads = limitNoOfThreads(determineNoOfThreads(optionSet, resourcePlan.getNoOfProcessors()), resourcePlan.getMaxWorkers());
+        resume = optionSet.has(RESUME);
+        decrypt = optionSet.has(DECRYPT);
+        verifyPlaintext = optionSet.has(VERIFY_PLAINTEXT);
+        verify = verifyPlaintext || optionSet.has(VERIFY);
+        reportFilePath = optionSet.has(REPORT) ? Paths.get(optionSet.valueOf(REPORT).toString()).normalize().toAbsolutePath() :
+                outputFolderPath.resolve(DEFAULT_REPORT_FILE_NAME);
+        noOfVerificationThreads = determineNoOfVerificationThreads(optionSet);
         LOGGER.info("Maximum {} no. of threads will be created to process the file(s)", noOfThreads);
     }
 
-    static CommandLineOptionProcessor processOptions(final OptionSet optionSet, final Path defaultOutputFilePath) throws IOException {
-        return new CommandLineOptionProcessor(optionSet, defaultOutputFilePath);
+    static CommandLineOptionProcessor processOptions(final OptionSet optionSet, final Path defaultOutputFilePath,
+                                                     final ResourcePlan resourcePlan) throws IOException {
+        return new CommandLineOptionProcessor(optionSet, defaultOutputFilePath, resourcePlan);
     }
 
-    private int determineNoOfThreads(final OptionSet optionSet) {
-        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+    /**
+     * @param availableProcessors No. of processors, limited by the CPU quota of the cgroup.
+     */
+    private int determineNoOfThreads(final OptionSet optionSet, final int availableProcessors) {
         LOGGER.info("Application has detected {} no. of cores/processors. Threads will be created based on option provided", availableProcessors);
 
         if (availableProcessors == 1) {
@@ -102,6 +127,28 @@ public class CommandLineOptionProcessor {
         return 1;
     }
 
+    /**
+     * @param maxWorkers No. of files whose buffers fit in memory.
+     */
+    private int limitNoOfThreads(final int noOfThreads, final int maxWorkers) {
+        if (noOfThreads > maxWorkers) {
+            LOGGER.warn("Buffers of {} files don't fit in memory. Application will process at most {} file(s) at the same time",
+                    noOfThreads, maxWorkers);
+            return maxWorkers;
+        }
+        return noOfThreads;
+    }
+
+    /**
+     * Verification mostly waits for storage, so threads given by the user aren't limited by the no. of cores.
+     */
+    private int determineNoOfVerificationThreads(final OptionSet optionSet) {
+        if (optionSet.has(USER_THREADS)) {
+            return Math.max(1, Integer.parseInt(optionSet.valueOf(USER_THREADS).toString()));
+        }
+        return noOfThreads;
+    }
+
     public List<Path> getFileToEncryptPaths() {
         return fileToEncryptPaths;
     }
@@ -113,4 +160,28 @@ public class CommandLineOptionProcessor {
     public int getNoOfThreads() {
         return noOfThreads;
     }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public boolean isDecrypt() {
+        return decrypt;
+    }
+
+    public boolean isVerify() {
+        return verify;
+    }
+
+    public boolean isVerifyPlaintext() {
+        return verifyPlaintext;
+    }
+
+    public Path getReportFilePath() {
+        return reportFilePath;
+    }
+
+    public int getNoOfVerificationThreads() {
+        return noOfVerificationThreads;
+    }
 }
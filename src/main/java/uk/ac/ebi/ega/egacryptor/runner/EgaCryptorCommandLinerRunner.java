@@ -26,16 +26,32 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
+import uk.ac.ebi.ega.egacryptor.constant.VerificationStatus;
 import uk.ac.ebi.ega.egacryptor.cryptography.pgp.PGPCryptography;
+import uk.ac.ebi.ega.egacryptor.journal.Journal;
+import uk.ac.ebi.ega.egacryptor.journal.JournalState;
+import uk.ac.ebi.ega.egacryptor.metrics.ProgressMonitor;
+import uk.ac.ebi.ega.egacryptor.metrics.ProgressReporter;
+import uk.ac.ebi.ega.egacryptor.metrics.StageMetrics;
 import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.pipeline.CompositeProcessingListener;
+import uk.ac.ebi.ega.egacryptor.pipeline.CryptographyPipeline;
+import uk.ac.ebi.ega.egacryptor.resource.ResourcePlan;
+import uk.ac.ebi.ega.egacryptor.service.FileToProcessSource;
 import uk.ac.ebi.ega.egacryptor.service.IFileDiscoveryService;
 import uk.ac.ebi.ega.egacryptor.service.ITaskExecutorService;
+import uk.ac.ebi.ega.egacryptor.verify.VerificationPipeline;
+import uk.ac.ebi.ega.egacryptor.verify.VerificationReport;
+import uk.ac.ebi.ega.egacryptor.verify.Verifier;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import static uk.ac.ebi.ega.egacryptor.runner.CommandLineOptionParser.OPTIONS_HELP;
 
@@ -47,15 +63,36 @@ public class EgaCryptorCommandLinerRunner implements CommandLineRunner {
     private final IFileDiscoveryService fileDiscoveryService;
     private final ApplicationContext applicationContext;
     private final Path defaultOutputFilePath;
+    private final CompositeProcessingListener processingListener;
+    private final CryptographyPipeline cryptographyPipeline;
+    private final CryptographyPipeline decryptionPipeline;
+    private final Verifier verifier;
+    private final ResourcePlan resourcePlan;
+    private final StageMetrics stageMetrics;
+    private final ProgressReporter progressReporter;
 
     public EgaCryptorCommandLinerRunner(final ITaskExecutorService taskExecutorService,
                                         final IFileDiscoveryService fileDiscoveryService,
                                         final ApplicationContext applicationContext,
-                                        final String defaultOutputFilePath) {
+                                        final String defaultOutputFilePath,
+                                        final CompositeProcessingListener processingListener,
+                                        final CryptographyPipeline cryptographyPipeline,
+                                        final CryptographyPipeline decryptionPipeline,
+                                        final Verifier verifier,
+                                        final ResourcePlan resourcePlan,
+                                        final StageMetrics stageMetrics,
+                                        final ProgressReporter progressReporter) {
         this.taskExecutorService = taskExecutorService;
         this.fileDiscoveryService = fileDiscoveryService;
         this.applicationContext = applicationContext;
         this.defaultOutputFilePath = Paths.get(defaultOutputFilePath);
+        this.processingListener = processingListener;
+        this.cryptographyPipeline = cryptographyPipeline;
+        this.decryptionPipeline = decryptionPipeline;
+        this.verifier = verifier;
+        this.resourcePlan = resourcePlan;
+        this.stageMetrics = stageMetrics;
+        this.progressReporter = progressReporter;
     }
 
     @Override
@@ -70,8 +107,9 @@ public class EgaCryptorCommandLinerRunner implements CommandLineRunner {
             }
 
             final CommandLineOptionProcessor commandLineOptionProcessor = CommandLineOptionProcessor
-                    .processOptions(optionSet, defaultOutputFilePath);
-            terminateApplication(() -> doRun(commandLineOptionProcessor));
+                    .processOptions(optionSet, defaultOutputFilePath, resourcePlan);
+            terminateApplication(() -> commandLineOptionProcessor.isVerify() ? doVerify(commandLineOptionProcessor) :
+                    doRun(commandLineOptionProcessor));
         } catch (OptionException e) {
             LOGGER.error("Passed invalid command line arguments");
             optionParser.printHelpOn(System.out);
@@ -81,13 +119,25 @@ public class EgaCryptorCommandLinerRunner implements CommandLineRunner {
 
     private int doRun(final CommandLineOptionProcessor parser) {
         LOGGER.info("Process started at {} ---------------", new Date());
-        try {
-            final List<FileToProcess> fileToProcessList = fileDiscoveryService.discoverFilesRecursively(parser.getFileToEncryptPaths(),
-                    parser.getOutputFolderPath());
-            if (parser.getNoOfThreads() == 1) {
-                taskExecutorService.execute(fileToProcessList);
-            } else {
-                taskExecutorService.execute(fileToProcessList, parser.getNoOfThreads());
+        try (final Journal journal = Journal.open(parser.getOutputFolderPath())) {
+            final JournalState journalState = parser.isResume() ? readJournal(parser) : null;
+            final ProgressMonitor progressMonitor = progressReporter.getProgressMonitor();
+            processingListener.addListener(journal);
+            processingListener.addListener(progressMonitor);
+            progressReporter.start();
+            try {
+                if (journalState != null) {
+                    execute(parser, resumeFiles(journalState));
+                } else {
+                    execute(parser, discoverFiles(parser, journal));
+                }
+            } finally {
+                processingListener.removeListener(journal);
+                processingListener.removeListener(progressMonitor);
+                progressReporter.stop();
+            }
+            if (!parser.isDecrypt()) {
+                stageMetrics.write(parser.getOutputFolderPath());
             }
             LOGGER.info("Process completed at {} ---------------", new Date());
             return ApplicationStatus.SUCCESS.getValue();
@@ -97,6 +147,87 @@ public class EgaCryptorCommandLinerRunner implements CommandLineRunner {
         }
     }
 
+    private int doVerify(final CommandLineOptionProcessor parser) {
+        LOGGER.info("Verification started at {} ---------------", new Date());
+        try (final VerificationReport verificationReport = VerificationReport.create(parser.getReportFilePath())) {
+            final VerificationPipeline verificationPipeline = new VerificationPipeline(verifier, verificationReport,
+                    parser.isVerifyPlaintext());
+            final long noOfFiles = taskExecutorService.execute(verificationPipeline, fileToProcessConsumer -> fileDiscoveryService
+                            .discoverEncryptedFilesRecursively(parser.getFileToEncryptPaths(), parser.getOutputFolderPath(), fileToProcessConsumer),
+                    parser.getNoOfVerificationThreads());
+            LOGGER.info("Verification of {} file(s) completed at {}. {} digest(s) passed, {} failed, {} missing, {} error(s). Report {}",
+                    noOfFiles, new Date(), verificationReport.getNoOfResults(VerificationStatus.PASS),
+                    verificationReport.getNoOfResults(VerificationStatus.FAIL), verificationReport.getNoOfResults(VerificationStatus.MISSING),
+                    verificationReport.getNoOfResults(VerificationStatus.ERROR), parser.getReportFilePath());
+            return verificationReport.isPassed() ? ApplicationStatus.SUCCESS.getValue() : ApplicationStatus.VERIFICATION_FAILED.getValue();
+        } catch (Exception e) {
+            LOGGER.error("Error while running an application - ", e);
+            return ApplicationStatus.APPLICATION_FAILED.getValue();
+        }
+    }
+
+    private long execute(final CommandLineOptionProcessor parser, final FileToProcessSource fileToProcessSource) throws IOException {
+        return parser.isDecrypt() ? taskExecutorService.execute(decryptionPipeline, fileToProcessSource, parser.getNoOfThreads()) :
+                taskExecutorService.execute(cryptographyPipeline, fileToProcessSource, parser.getNoOfThreads());
+    }
+
+    /**
+     * Files are handed to the task executor & recorded in the journal & the progress while they are discovered.
+     * End of discovery is recorded as soon as the last file has been handed over, so that a run which stops
+     * while processing is resumed from the journal.
+     */
+    private FileToProcessSource discoverFiles(final CommandLineOptionProcessor parser, final Journal journal) {
+        final ProgressMonitor progressMonitor = progressReporter.getProgressMonitor();
+        return fileToProcessConsumer -> {
+            final LongAdder noOfFiles = new LongAdder();
+            final Consumer<FileToProcess> journalingConsumer = fileToProcess -> {
+                try {
+                    journal.queued(fileToProcess);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                noOfFiles.increment();
+                progressMonitor.queued(fileToProcess);
+                fileToProcessConsumer.accept(fileToProcess);
+            };
+            if (parser.isDecrypt()) {
+                fileDiscoveryService.discoverEncryptedFilesRecursively(parser.getFileToEncryptPaths(), parser.getOutputFolderPath(),
+                        journalingConsumer);
+            } else {
+                fileDiscoveryService.discoverFilesRecursively(parser.getFileToEncryptPaths(), parser.getOutputFolderPath(),
+                        journalingConsumer);
+            }
+            journal.discovered(noOfFiles.sum());
+            progressMonitor.discoveryCompleted();
+        };
+    }
+
+    /**
+     * @return State of the journal, null if its last discovery is incomplete & files have to be discovered again.
+     */
+    private JournalState readJournal(final CommandLineOptionProcessor parser) throws IOException {
+        final JournalState journalState = Journal.read(parser.getOutputFolderPath());
+        if (!journalState.isDiscoveryComplete()) {
+            LOGGER.warn("Journal in {} has no complete discovery. File(s) will be discovered again", parser.getOutputFolderPath());
+            return null;
+        }
+        return journalState;
+    }
+
+    private FileToProcessSource resumeFiles(final JournalState journalState) {
+        final List<FileToProcess> fileToProcessList = journalState.getFilesToResume();
+        LOGGER.info("Resuming from journal. {} of {} file(s) are not yet committed & will be processed", fileToProcessList.size(),
+                journalState.getNoOfFiles());
+        final ProgressMonitor progressMonitor = progressReporter.getProgressMonitor();
+        return fileToProcessConsumer -> {
+            for (final FileToProcess fileToProcess : fileToProcessList) {
+                progressMonitor.queued(fileToProcess);
+                fileToProcessConsumer.accept(fileToProcess);
+            }
+            progressMonitor.discoveryCompleted();
+        };
+    }
+
     private void terminateApplication(final ExitCodeGenerator exitCodeGenerator) {
         System.exit(SpringApplication.exit(applicationContext, exitCodeGenerator));
     }
@@ -104,7 +235,8 @@ public class EgaCryptorCommandLinerRunner implements CommandLineRunner {
     private enum ApplicationStatus {
         SUCCESS(0),
         APPLICATION_FAILED(1),
-        INVALID_COMMANDLINE_ARGUMENTS(2);
+        INVALID_COMMANDLINE_ARGUMENTS(2),
+        VERIFICATION_FAILED(3);
 
         private final int value;
 
@@ -0,0 +1,56 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.scheduling;
+
+import uk.ac.ebi.ega.egacryptor.compression.CompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+/**
+ * Estimates cost of a file as its size, weighted by compressionWeight if the compression policy decides
+ * to compress it. Files which are stored as is cost only reading, encrypting & writing, which is
+ * several times cheaper per byte than deflating them.
+ * Note that an adaptive compression policy samples every file while it is being scheduled.
+ */
+public class CompressionCostEstimator implements TaskCostEstimator {
+
+    private final TaskCostEstimator sizeCostEstimator;
+    private final CompressionPolicy compressionPolicy;
+    private final double compressionWeight;
+
+    public CompressionCostEstimator(final TaskCostEstimator sizeCostEstimator, final CompressionPolicy compressionPolicy,
+                                    final double compressionWeight) {
+        this.sizeCostEstimator = sizeCostEstimator;
+        this.compressionPolicy = compressionPolicy;
+        this.compressionWeight = compressionWeight;
+    }
+
+    @Override
+    public double estimateCost(final FileToProcess fileToProcess) {
+        final double sizeCost = sizeCostEstimator.estimateCost(fileToProcess);
+        if (sizeCost == 0) {
+            return 0;
+        }
+        final CompressionAlgorithm compressionAlgorithm = compressionPolicy.decide(fileToProcess).getCompressionAlgorithm();
+        return isCompressed(compressionAlgorithm) ? sizeCost * compressionWeight : sizeCost;
+    }
+
+    private boolean isCompressed(final CompressionAlgorithm compressionAlgorithm) {
+        return compressionAlgorithm != CompressionAlgorithm.UNCOMPRESSED && compressionAlgorithm != CompressionAlgorithm.NONE;
+    }
+}
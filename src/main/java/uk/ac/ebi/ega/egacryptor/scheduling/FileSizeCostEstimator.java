@@ -0,0 +1,32 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.scheduling;
+
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+/**
+ * Estimates cost of a file as its size in bytes, as found during discovery. A file which doesn't
+ * exist costs 0 & fails & is reported when it's processed.
+ */
+public class FileSizeCostEstimator implements TaskCostEstimator {
+
+    @Override
+    public double estimateCost(final FileToProcess fileToProcess) {
+        return fileToProcess.getSize();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Orders files by estimated cost, most expensive first (longest processing time first). Large files
+ * start while every thread is still busy & the small files fill in the gaps at the end of the run,
+ * instead of one large file discovered last keeping a single thread busy after the others are idle.
+ * Files of equal cost keep the order they have been discovered in.
+ */
+public class LargestFirstTaskScheduler implements TaskScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LargestFirstTaskScheduler.class);
+
+    private final TaskCostEstimator taskCostEstimator;
+
+    public LargestFirstTaskScheduler(final TaskCostEstimator taskCostEstimator) {
+        this.taskCostEstimator = taskCostEstimator;
+    }
+
+    @Override
+    public List<FileToProcess> schedule(final List<FileToProcess> fileToProcessList) {
+        final long start = System.nanoTime();
+        //Cost is estimated once per file as it may need to read the file
+        final List<FileToProcess> scheduledFileToProcessList = fileToProcessList
+                .stream()
+                .map(fileToProcess -> new AbstractMap.SimpleImmutableEntry<>(fileToProcess,
+                        taskCostEstimator.estimateCost(fileToProcess)))
+                .sorted(Comparator.comparingDouble((Map.Entry<FileToProcess, Double> entry) -> entry.getValue()).reversed())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        LOGGER.debug("{} file(s) have been scheduled in {} ms", scheduledFileToProcessList.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return scheduledFileToProcessList;
+    }
+
+    @Override
+    public TaskCostEstimator getTaskCostEstimator() {
+        return taskCostEstimator;
+    }
+}
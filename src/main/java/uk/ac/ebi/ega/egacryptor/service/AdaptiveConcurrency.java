@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+
+/**
+ * Settings of the controller tuning the no. of files processed at the same time from the measured throughput.
+ */
+public class AdaptiveConcurrency {
+
+    private final ThroughputMeter throughputMeter;
+    private final long intervalMillis;
+    private final int maxWorkers;
+    private final double tolerance;
+    private final double decreaseFactor;
+
+    /**
+     * @param throughputMeter Counts bytes read by the pipelines.
+     * @param intervalMillis  Time between two decisions.
+     * @param maxWorkers      Upper bound of the no. of files processed at the same time.
+     * @param tolerance       Relative change of throughput between two intervals which is considered noise.
+     * @param decreaseFactor  Factor by which the no. of files processed at the same time is cut when
+     *                        throughput drops.
+     */
+    public AdaptiveConcurrency(final ThroughputMeter throughputMeter, final long intervalMillis, final int maxWorkers,
+                               final double tolerance, final double decreaseFactor) {
+        this.throughputMeter = throughputMeter;
+        this.intervalMillis = intervalMillis;
+        this.maxWorkers = maxWorkers;
+        this.tolerance = tolerance;
+        this.decreaseFactor = decreaseFactor;
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    /**
+     * @param noOfWorkers No. of worker threads taking files from the task queue.
+     */
+    AdaptiveConcurrencyController newController(final TaskQueue taskQueue, final int initialConcurrencyLimit,
+                                                final int noOfWorkers) {
+        return new AdaptiveConcurrencyController(taskQueue, throughputMeter, intervalMillis,
+                Math.min(initialConcurrencyLimit, noOfWorkers), noOfWorkers, tolerance, decreaseFactor);
+    }
+}
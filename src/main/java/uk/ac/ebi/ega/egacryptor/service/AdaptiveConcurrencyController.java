@@ -0,0 +1,149 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunes the no. of files processed at the same time by hill climbing on the throughput measured each
+ * interval. While throughput grows by more than the tolerance the limit keeps moving one file in the same
+ * direction. When throughput drops by more than the tolerance the limit is cut by the decrease factor. When
+ * throughput doesn't change, a step up which didn't pay off is taken back, a step down is kept for one interval
+ * & otherwise one more file is tried. When throughput grows while the limit has been kept, a climb is started
+ * with one more file.
+ * Intervals in which fewer files are in progress than the limit, e.g. while discovery is behind or devices
+ * are at their limit, say nothing about the limit & are skipped.
+ */
+class AdaptiveConcurrencyController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyController.class);
+
+    private static final double BYTES_PER_MIB = 1024 * 1024;
+
+    private final TaskQueue taskQueue;
+    private final ThroughputMeter throughputMeter;
+    private final long intervalMillis;
+    private final int maxConcurrencyLimit;
+    private final double tolerance;
+    private final double decreaseFactor;
+    private int concurrencyLimit;
+    private int direction;
+    private double lastThroughput = Double.NaN;
+    private long lastNoOfBytes;
+    private long lastNanoTime;
+    private ScheduledExecutorService scheduler;
+
+    AdaptiveConcurrencyController(final TaskQueue taskQueue, final ThroughputMeter throughputMeter, final long intervalMillis,
+                                  final int initialConcurrencyLimit, final int maxConcurrencyLimit, final double tolerance,
+                                  final double decreaseFactor) {
+        this.taskQueue = taskQueue;
+        this.throughputMeter = throughputMeter;
+        this.intervalMillis = intervalMillis;
+        this.concurrencyLimit = Math.max(1, initialConcurrencyLimit);
+        this.maxConcurrencyLimit = maxConcurrencyLimit;
+        this.tolerance = tolerance;
+        this.decreaseFactor = decreaseFactor;
+    }
+
+    void start() {
+        LOGGER.info("Concurrency is tuned every {} ms between 1 & {} file(s), starting with {} file(s)", intervalMillis,
+                maxConcurrencyLimit, concurrencyLimit);
+        taskQueue.setConcurrencyLimit(concurrencyLimit);
+        lastNoOfBytes = throughputMeter.getNoOfBytes();
+        lastNanoTime = System.nanoTime();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "concurrency-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::adjust, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void adjust() {
+        try {
+            final long noOfBytes = throughputMeter.getNoOfBytes();
+            final long nanoTime = System.nanoTime();
+            final double throughput = (noOfBytes - lastNoOfBytes) * TimeUnit.SECONDS.toNanos(1) /
+                    (double) Math.max(1, nanoTime - lastNanoTime);
+            lastNoOfBytes = noOfBytes;
+            lastNanoTime = nanoTime;
+            final boolean saturated = taskQueue.getNoOfActiveFiles() >= concurrencyLimit;
+            taskQueue.setConcurrencyLimit(nextConcurrencyLimit(throughput, saturated));
+        } catch (RuntimeException e) {
+            //Exceptions would cancel the periodic task
+            LOGGER.error("Error while tuning concurrency - " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param throughput Bytes per second read during the last interval.
+     * @param saturated  Whether as many files as the limit have been in progress at the end of the interval.
+     * @return No. of files processed at the same time during the next interval.
+     */
+    int nextConcurrencyLimit(final double throughput, final boolean saturated) {
+        final double throughputMiB = throughput / BYTES_PER_MIB;
+        if (!saturated) {
+            LOGGER.info("Throughput {} MiB/s with fewer files in progress than the limit, keeping {} file(s)",
+                    format(throughputMiB), concurrencyLimit);
+            lastThroughput = Double.NaN;
+            direction = 0;
+            return concurrencyLimit;
+        }
+
+        final double change = Double.isNaN(lastThroughput) ? Double.NaN : (throughput - lastThroughput) / Math.max(1, lastThroughput);
+        final int previousConcurrencyLimit = concurrencyLimit;
+        final String decision;
+        if (change < -tolerance) {
+            decision = "dropped";
+            concurrencyLimit = Math.max(1, Math.min(concurrencyLimit - 1, (int) (concurrencyLimit * decreaseFactor)));
+        } else if (change > tolerance && direction != 0) {
+            decision = "grew";
+            concurrencyLimit += direction;
+        } else if (change > tolerance) {
+            decision = "grew with the same limit, trying one more file";
+            concurrencyLimit++;
+        } else if (direction > 0) {
+            decision = "didn't grow";
+            concurrencyLimit--;
+        } else if (direction < 0) {
+            decision = "didn't change";
+        } else {
+            decision = Double.isNaN(change) ? "measured" : "didn't change";
+            concurrencyLimit++;
+        }
+        concurrencyLimit = Math.max(1, Math.min(maxConcurrencyLimit, concurrencyLimit));
+        direction = Integer.signum(concurrencyLimit - previousConcurrencyLimit);
+        lastThroughput = throughput;
+        LOGGER.info("Throughput {} MiB/s {} with {} file(s) in progress, limit set to {} file(s)", format(throughputMiB),
+                decision, previousConcurrencyLimit, concurrencyLimit);
+        return concurrencyLimit;
+    }
+
+    private static String format(final double value) {
+        return String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entries of a directory read with a single listing, along with their attributes & the names of all entries.
+ * Attributes are read once per entry without following links, like {@link Files#walk} does.
+ */
+class DirectoryListing {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryListing.class);
+
+    private final List<Path> paths = new ArrayList<>();
+    private final List<BasicFileAttributes> attributes = new ArrayList<>();
+    private final Set<String> fileNames = new HashSet<>();
+
+    private DirectoryListing() {
+    }
+
+    static DirectoryListing list(final Path directoryPath) throws IOException {
+        return list(directoryPath, path -> Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+    }
+
+    /**
+     * Entries whose attributes can't be read, e.g. files deleted while the directory is listed, are left out
+     * of the listing but their names are kept.
+     */
+    static DirectoryListing list(final Path directoryPath, final AttributesReader attributesReader) throws IOException {
+        final DirectoryListing directoryListing = new DirectoryListing();
+        try (final DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directoryPath)) {
+            for (final Path path : directoryStream) {
+                directoryListing.fileNames.add(path.getFileName().toString());
+                try {
+                    directoryListing.attributes.add(attributesReader.read(path));
+                    directoryListing.paths.add(path);
+                } catch (IOException e) {
+                    LOGGER.error("Invalid file {}. - {}", path.toString(), e.getMessage());
+                }
+            }
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        }
+        return directoryListing;
+    }
+
+    int size() {
+        return paths.size();
+    }
+
+    Path getPath(final int index) {
+        return paths.get(index);
+    }
+
+    BasicFileAttributes getAttributes(final int index) {
+        return attributes.get(index);
+    }
+
+    /**
+     * @return Names of all entries of the directory, including hidden files & entries whose attributes couldn't be read.
+     */
+    Set<String> getFileNames() {
+        return fileNames;
+    }
+
+    @FunctionalInterface
+    interface AttributesReader {
+        BasicFileAttributes read(final Path path) throws IOException;
+    }
+}
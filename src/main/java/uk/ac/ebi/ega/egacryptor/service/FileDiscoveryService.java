@@ -19,81 +19,212 @@ package uk.ac.ebi.ega.egacryptor.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
 import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
 
-import static java.nio.file.Files.isDirectory;
 import static java.nio.file.Files.isHidden;
 import static java.nio.file.Files.isRegularFile;
-import static java.nio.file.Files.walk;
+import static java.nio.file.Files.readAttributes;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
 import static uk.ac.ebi.ega.egacryptor.constant.FileExtensionType.GPG;
-import static uk.ac.ebi.ega.egacryptor.constant.FileExtensionType.MD5;
 import static uk.ac.ebi.ega.egacryptor.constant.FileExtensionType.containsFileExtension;
 
 public class FileDiscoveryService implements IFileDiscoveryService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileDiscoveryService.class);
 
-    @SuppressWarnings("unchecked")
+    private final List<String> outputFileExtensions = new ArrayList<>();
+    private final List<String> digestFileExtensions = new ArrayList<>();
+
+    public FileDiscoveryService() {
+        this(Collections.singletonList(DigestAlgorithm.MD5));
+    }
+
+    /**
+     * @param digestAlgorithms Digests calculated by the pipeline, whose files next to a file mean it has been encrypted before.
+     */
+    public FileDiscoveryService(final List<DigestAlgorithm> digestAlgorithms) {
+        outputFileExtensions.add(GPG.getFileExtension());
+        for (final DigestAlgorithm digestAlgorithm : digestAlgorithms) {
+            outputFileExtensions.add(digestAlgorithm.getFileExtension());
+            outputFileExtensions.add(GPG.getFileExtension().concat(digestAlgorithm.getFileExtension()));
+            digestFileExtensions.add(digestAlgorithm.getFileExtension());
+        }
+    }
+
     @Override
     public List<FileToProcess> discoverFilesRecursively(final List<Path> rootFilePaths, final Path outputFilePath) {
-        LOGGER.trace("Executing file discovery service");
+        final List<FileToProcess> retrievedFilePaths = new ArrayList<>();
+        discoverFilesRecursively(rootFilePaths, outputFilePath, retrievedFilePaths::add);
+        return retrievedFilePaths;
+    }
 
+    @Override
+    public List<FileToProcess> discoverEncryptedFilesRecursively(final List<Path> rootFilePaths, final Path outputFilePath) {
         final List<FileToProcess> retrievedFilePaths = new ArrayList<>();
-        rootFilePaths.stream().map(rootFilePath -> {
+        discoverEncryptedFilesRecursively(rootFilePaths, outputFilePath, retrievedFilePaths::add);
+        return retrievedFilePaths;
+    }
+
+    @Override
+    public void discoverFilesRecursively(final List<Path> rootFilePaths, final Path outputFilePath,
+                                         final Consumer<FileToProcess> fileToProcessConsumer) {
+        LOGGER.trace("Executing file discovery service");
+        discoverFilesRecursively(rootFilePaths, outputFilePath, this::isFileToEncrypt, fileToProcessConsumer);
+    }
+
+    @Override
+    public void discoverEncryptedFilesRecursively(final List<Path> rootFilePaths, final Path outputFilePath,
+                                                  final Consumer<FileToProcess> fileToProcessConsumer) {
+        LOGGER.trace("Executing encrypted file discovery service");
+        discoverFilesRecursively(rootFilePaths, outputFilePath, this::isFileToDecrypt, fileToProcessConsumer);
+    }
+
+    private void discoverFilesRecursively(final List<Path> rootFilePaths, final Path outputFilePath,
+                                          final FileFilter fileFilter, final Consumer<FileToProcess> fileToProcessConsumer) {
+        for (final Path rootFilePath : rootFilePaths) {
             try {
-                return discoverFiles(rootFilePath, outputFilePath);
-            } catch (IOException e) {
+                discoverFiles(rootFilePath, outputFilePath, fileFilter, fileToProcessConsumer);
+            } catch (IOException | UncheckedIOException e) {
                 LOGGER.error("Error in file discovery - {}", e.getMessage());
             }
-            return Collections.emptyList();
-        }).forEach(eachRetrievedFilePaths -> retrievedFilePaths.addAll((List<? extends FileToProcess>) eachRetrievedFilePaths));
-        return retrievedFilePaths;
+        }
     }
 
-    private List<FileToProcess> discoverFiles(final Path rootFilePath, final Path outputFilePath) throws IOException {
-        return walk(rootFilePath).filter(path -> {
-            try {
-                LOGGER.debug("FilePath {}", path);
-                if (isRegularFile(path) && !isHidden(path) && !isDirectory(path) && !containsFileExtension(path.toString())) {
-                    final String originalFilePath = path.toString();
-                    final File md5File = new File(originalFilePath.concat(MD5.getFileExtension()));
-                    final File gpgFile = new File(originalFilePath.concat(GPG.getFileExtension()));
-                    final File gpgMd5File = new File(originalFilePath.concat(GPG.getFileExtension().concat(MD5.getFileExtension())));
-
-                    if (gpgFile.exists() || md5File.exists() || gpgMd5File.exists()) {
-                        LOGGER.info("Process skip for file {}. All or some of these files are already exists - {},{},{}", originalFilePath, md5File.getPath(),
-                                gpgFile.getPath(), gpgMd5File.getPath());
-                        return false;
-                    }
-                    return true;
-                }
-            } catch (IOException e) {
-                LOGGER.error("Invalid file {}. - {}", path.toString(), e.getMessage());
+    /**
+     * Walks the tree of given root & hands each file passing the filter to the consumer, in the order
+     * {@link java.nio.file.Files#walk} would find them.
+     */
+    protected void discoverFiles(final Path rootFilePath, final Path outputFilePath, final FileFilter fileFilter,
+                                 final Consumer<FileToProcess> fileToProcessConsumer) throws IOException {
+        final BasicFileAttributes rootAttributes = readAttributes(rootFilePath, BasicFileAttributes.class, NOFOLLOW_LINKS);
+        if (!rootAttributes.isDirectory()) {
+            if (isFileToProcess(rootFilePath, rootAttributes, null, fileFilter)) {
+                fileToProcessConsumer.accept(calculateOutputPath(rootFilePath, rootFilePath, outputFilePath, rootAttributes));
             }
+            return;
+        }
+        discoverDirectory(rootFilePath, rootFilePath, outputFilePath, fileFilter, fileToProcessConsumer);
+    }
+
+    private void discoverDirectory(final Path directoryPath, final Path rootFilePath, final Path outputFilePath,
+                                   final FileFilter fileFilter, final Consumer<FileToProcess> fileToProcessConsumer) {
+        final DirectoryListing directoryListing = listDirectory(directoryPath);
+        if (directoryListing == null) {
+            return;
+        }
+        for (int i = 0; i < directoryListing.size(); i++) {
+            final Path path = directoryListing.getPath(i);
+            if (directoryListing.getAttributes(i).isDirectory()) {
+                discoverDirectory(path, rootFilePath, outputFilePath, fileFilter, fileToProcessConsumer);
+            } else if (isFileToProcess(path, directoryListing.getAttributes(i), directoryListing.getFileNames(), fileFilter)) {
+                fileToProcessConsumer.accept(calculateOutputPath(rootFilePath, path, outputFilePath, directoryListing.getAttributes(i)));
+            }
+        }
+    }
+
+    /**
+     * @return Listing of directory, null if it couldn't be listed.
+     */
+    protected DirectoryListing listDirectory(final Path directoryPath) {
+        try {
+            return DirectoryListing.list(directoryPath);
+        } catch (IOException e) {
+            LOGGER.error("Error in file discovery of directory {} - {}", directoryPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param fileNames Names of all files in the directory of the file, null if directory has not been listed.
+     */
+    protected boolean isFileToProcess(final Path path, final BasicFileAttributes attributes, final Set<String> fileNames,
+                                      final FileFilter fileFilter) {
+        try {
+            LOGGER.debug("FilePath {}", path);
+            //Links are followed to their target like isRegularFile does, other files are checked from their attributes
+            final boolean regularFile = attributes.isSymbolicLink() ? isRegularFile(path) : attributes.isRegularFile();
+            return regularFile && !isHidden(path) && fileFilter.test(path, fileNames);
+        } catch (IOException e) {
+            LOGGER.error("Invalid file {}. - {}", path.toString(), e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Files which have been encrypted before, i.e. with .gpg or digest files of any configured algorithm next to them, are skipped. Names of these
+     * files are looked up in the listing of the directory rather than checked one by one on the file system. Digest files are only skipped for
+     * the configured algorithms, other files with digest extensions are encrypted like any file.
+     */
+    private boolean isFileToEncrypt(final Path path, final Set<String> fileNames) {
+        if (containsFileExtension(path.toString()) || isDigestFile(path)) {
             return false;
-        }).map(validFilePath -> calculateOutputPath(rootFilePath, validFilePath, outputFilePath)
-        ).collect(Collectors.toList());
+        }
+        final String fileName = path.getFileName().toString();
+        for (final String outputFileExtension : outputFileExtensions) {
+            final String outputFileName = fileName.concat(outputFileExtension);
+            if (exists(path, fileNames, outputFileName)) {
+                LOGGER.info("Process skip for file {}. File {} already exists", path, path.resolveSibling(outputFileName));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isDigestFile(final Path path) {
+        final String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (final String digestFileExtension : digestFileExtensions) {
+            if (fileName.endsWith(digestFileExtension)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private FileToProcess calculateOutputPath(final Path rootFilePath, final Path subFilePath, final Path outputFilePath) {
+    private boolean exists(final Path path, final Set<String> fileNames, final String siblingFileName) {
+        return fileNames == null ? path.resolveSibling(siblingFileName).toFile().exists() : fileNames.contains(siblingFileName);
+    }
+
+    private boolean isFileToDecrypt(final Path path, final Set<String> fileNames) {
+        return path.getFileName().toString().endsWith(GPG.getFileExtension());
+    }
+
+    /**
+     * @param attributes Attributes of the file read during discovery, which give its size unless it's a link.
+     */
+    protected FileToProcess calculateOutputPath(final Path rootFilePath, final Path subFilePath, final Path outputFilePath,
+                                                final BasicFileAttributes attributes) {
+        //Attributes of a link are those of the link itself, size of its target is read when needed
+        final long size = attributes.isSymbolicLink() ? FileToProcess.UNKNOWN_SIZE : attributes.size();
         if (outputFilePath.toString().isEmpty()) {
-            return new FileToProcess(subFilePath);
+            return new FileToProcess(subFilePath, subFilePath.getParent(), size);
         }
 
         final Path subPathMinusRootPath;
         if (!subFilePath.equals(rootFilePath) &&
                 ((subPathMinusRootPath = subFilePath.subpath(rootFilePath.getNameCount(), subFilePath.getNameCount()))).getParent() != null) {
             final Path newOutputFilePath = outputFilePath.resolve(subPathMinusRootPath.getParent());
-            return new FileToProcess(subFilePath, newOutputFilePath);
+            return new FileToProcess(subFilePath, newOutputFilePath, size);
         }
-        return new FileToProcess(subFilePath, outputFilePath);
+        return new FileToProcess(subFilePath, outputFilePath, size);
+    }
+
+    @FunctionalInterface
+    protected interface FileFilter {
+        /**
+         * @param fileNames Names of all files in the directory of the file, null if directory has not been listed.
+         */
+        boolean test(final Path path, final Set<String> fileNames);
     }
 }
@@ -0,0 +1,32 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Source of files which hands each file to the consumer as soon as it has been found, without
+ * keeping the files found so far.
+ */
+@FunctionalInterface
+public interface FileToProcessSource {
+    void forEach(final Consumer<FileToProcess> fileToProcessConsumer) throws IOException;
+}
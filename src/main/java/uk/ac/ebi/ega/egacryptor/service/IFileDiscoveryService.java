@@ -22,7 +22,25 @@ import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IFileDiscoveryService {
     List<FileToProcess> discoverFilesRecursively(final List<Path> filePaths, final Path outputFilePath) throws IOException;
+
+    /**
+     * Discovers .gpg files to decrypt. Output path of a file is where its original file is restored.
+     */
+    List<FileToProcess> discoverEncryptedFilesRecursively(final List<Path> filePaths, final Path outputFilePath) throws IOException;
+
+    /**
+     * Hands each file to encrypt to the consumer while the file tree is being walked.
+     */
+    void discoverFilesRecursively(final List<Path> filePaths, final Path outputFilePath,
+                                  final Consumer<FileToProcess> fileToProcessConsumer) throws IOException;
+
+    /**
+     * Hands each .gpg file to decrypt to the consumer while the file tree is being walked.
+     */
+    void discoverEncryptedFilesRecursively(final List<Path> filePaths, final Path outputFilePath,
+                                           final Consumer<FileToProcess> fileToProcessConsumer) throws IOException;
 }
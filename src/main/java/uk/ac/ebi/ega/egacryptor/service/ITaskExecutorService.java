@@ -18,11 +18,14 @@
 package uk.ac.ebi.ega.egacryptor.service;
 
 import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.pipeline.CryptographyPipeline;
 
+import java.io.IOException;
 import java.util.List;
 
 public interface ITaskExecutorService {
-    void execute(final List<FileToProcess> fileToProcessList);
+    void execute(final CryptographyPipeline cryptographyPipeline, final List<FileToProcess> fileToProcessList, int noOfThreads);
 
-    void execute(final List<FileToProcess> fileToProcessList, int noOfThreads);
+    long execute(final CryptographyPipeline cryptographyPipeline, final FileToProcessSource fileToProcessSource, int noOfThreads)
+            throws IOException;
 }
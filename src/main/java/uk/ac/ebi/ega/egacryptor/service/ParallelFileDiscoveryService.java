@@ -0,0 +1,189 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Walks each root with a fork/join task per directory, so directories are listed in parallel. On network file
+ * systems, where each listing is a round trip, discovery time is then bounded by the depth of the tree rather
+ * than by its no. of directories. Like {@link Files#walk}, symbolic links to directories are not followed.
+ * Files are handed to the consumer on the calling thread, one at a time, as soon as they can be handed over.
+ * <p>
+ * Unordered, files are handed over in no particular order. Walking threads put files in a bounded queue
+ * drained by the calling thread & wait while the queue is full, so a slow consumer holds back the walk
+ * rather than the memory growing. Ordered, files of a root are handed over in the order
+ * {@link FileDiscoveryService} would find them, each file as soon as the directories listed before it have
+ * been handed over. Listings are kept until their files have been handed over.
+ */
+public class ParallelFileDiscoveryService extends FileDiscoveryService {
+
+    private static final int QUEUE_SIZE = 1024;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final int parallelism;
+    private final boolean ordered;
+
+    public ParallelFileDiscoveryService(final int parallelism, final boolean ordered) {
+        this(parallelism, ordered, Collections.singletonList(DigestAlgorithm.MD5));
+    }
+
+    public ParallelFileDiscoveryService(final int parallelism, final boolean ordered, final List<DigestAlgorithm> digestAlgorithms) {
+        super(digestAlgorithms);
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+    }
+
+    @Override
+    protected void discoverFiles(final Path rootFilePath, final Path outputFilePath, final FileFilter fileFilter,
+                                 final Consumer<FileToProcess> fileToProcessConsumer) throws IOException {
+        //Roots which are files, or don't exist, are left to the sequential walk
+        if (!Files.isDirectory(rootFilePath, LinkOption.NOFOLLOW_LINKS)) {
+            super.discoverFiles(rootFilePath, outputFilePath, fileFilter, fileToProcessConsumer);
+            return;
+        }
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try {
+            if (ordered) {
+                handOver(forkJoinPool.invoke(new DirectoryTask(rootFilePath, rootFilePath, outputFilePath, fileFilter, null)),
+                        fileToProcessConsumer);
+            } else {
+                final BlockingQueue<FileToProcess> fileToProcessQueue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+                drain(forkJoinPool.submit(new DirectoryTask(rootFilePath, rootFilePath, outputFilePath, fileFilter,
+                        fileToProcessQueue)), fileToProcessQueue, fileToProcessConsumer);
+            }
+        } finally {
+            //Interrupts walking threads waiting for the queue if the consumer failed
+            forkJoinPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Hands over files & files of sub directories in walk order, waiting for each sub directory to be listed.
+     */
+    private void handOver(final List<Object> entries, final Consumer<FileToProcess> fileToProcessConsumer) {
+        for (final Object entry : entries) {
+            if (entry instanceof DirectoryTask) {
+                handOver(((DirectoryTask) entry).join(), fileToProcessConsumer);
+            } else {
+                fileToProcessConsumer.accept((FileToProcess) entry);
+            }
+        }
+    }
+
+    /**
+     * Hands over files of the queue until the walk is done & the queue is empty.
+     */
+    private void drain(final ForkJoinTask<List<Object>> walkTask, final BlockingQueue<FileToProcess> fileToProcessQueue,
+                       final Consumer<FileToProcess> fileToProcessConsumer) {
+        try {
+            //Files put before the walk is done are in the queue once it is seen done
+            while (!(walkTask.isDone() && fileToProcessQueue.isEmpty())) {
+                final FileToProcess fileToProcess = fileToProcessQueue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (fileToProcess != null) {
+                    fileToProcessConsumer.accept(fileToProcess);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for discovered files", e);
+        }
+        //Rethrows an error of the walk
+        walkTask.join();
+    }
+
+    private class DirectoryTask extends RecursiveTask<List<Object>> {
+
+        private final Path directoryPath;
+        private final Path rootFilePath;
+        private final Path outputFilePath;
+        private final FileFilter fileFilter;
+        private final BlockingQueue<FileToProcess> fileToProcessQueue;
+
+        /**
+         * @param fileToProcessQueue Queue files are put in, null to return them in walk order.
+         */
+        private DirectoryTask(final Path directoryPath, final Path rootFilePath, final Path outputFilePath,
+                              final FileFilter fileFilter, final BlockingQueue<FileToProcess> fileToProcessQueue) {
+            this.directoryPath = directoryPath;
+            this.rootFilePath = rootFilePath;
+            this.outputFilePath = outputFilePath;
+            this.fileFilter = fileFilter;
+            this.fileToProcessQueue = fileToProcessQueue;
+        }
+
+        /**
+         * @return Files & sub directory tasks of the directory in the order they have been listed, otherwise an
+         * empty list once files of the directory & its sub directories have been put in the queue.
+         */
+        @Override
+        protected List<Object> compute() {
+            final DirectoryListing directoryListing = listDirectory(directoryPath);
+            if (directoryListing == null) {
+                return Collections.emptyList();
+            }
+            final List<Object> entries = new ArrayList<>();
+            for (int i = 0; i < directoryListing.size(); i++) {
+                final Path path = directoryListing.getPath(i);
+                if (directoryListing.getAttributes(i).isDirectory()) {
+                    entries.add(new DirectoryTask(path, rootFilePath, outputFilePath, fileFilter, fileToProcessQueue).fork());
+                } else if (isFileToProcess(path, directoryListing.getAttributes(i), directoryListing.getFileNames(), fileFilter)) {
+                    final FileToProcess fileToProcess = calculateOutputPath(rootFilePath, path, outputFilePath,
+                            directoryListing.getAttributes(i));
+                    if (fileToProcessQueue == null) {
+                        entries.add(fileToProcess);
+                    } else {
+                        put(fileToProcess);
+                    }
+                }
+            }
+            if (fileToProcessQueue == null) {
+                return entries;
+            }
+            for (final Object entry : entries) {
+                ((DirectoryTask) entry).join();
+            }
+            return Collections.emptyList();
+        }
+
+        private void put(final FileToProcess fileToProcess) {
+            try {
+                fileToProcessQueue.put(fileToProcess);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while handing over discovered files", e);
+            }
+        }
+    }
+}
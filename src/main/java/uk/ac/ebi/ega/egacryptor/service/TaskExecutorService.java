@@ -19,53 +19,87 @@ package uk.ac.ebi.ega.egacryptor.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.device.DeviceResolver;
 import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
 import uk.ac.ebi.ega.egacryptor.pipeline.CryptographyPipeline;
+import uk.ac.ebi.ega.egacryptor.scheduling.TaskCostEstimator;
+import uk.ac.ebi.ega.egacryptor.scheduling.TaskScheduler;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public class TaskExecutorService implements ITaskExecutorService {
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskExecutorService.class);
-    private final CryptographyPipeline cryptographyPipeline;
 
-    public TaskExecutorService(final CryptographyPipeline cryptographyPipeline) {
-        this.cryptographyPipeline = cryptographyPipeline;
-    }
+    private final TaskScheduler taskScheduler;
+    private final int discoveryQueueSize;
+    private final DeviceResolver deviceResolver;
+    private final WorkerExecutorFactory workerExecutorFactory;
+    private final AdaptiveConcurrency adaptiveConcurrency;
 
     /**
-     * Executes process as sequential stream.
-     *
-     * @param fileToProcessList List of files to process.
+     * @param deviceResolver Resolves devices of files to limit the no. of files processed at the same time on
+     *                       each device, null if devices are not limited.
+     * @param adaptiveConcurrency Tunes the no. of files processed at the same time from the measured throughput,
+     *                            starting from the no. of threads, null to process as many files as threads.
      */
-    @Override
-    public void execute(final List<FileToProcess> fileToProcessList) {
-        LOGGER.trace("Sequential task executor is running");
-        LOGGER.debug("File to process list size={}", fileToProcessList.size());
-        fileToProcessList.forEach(cryptographyPipeline::process);
+    public TaskExecutorService(final TaskScheduler taskScheduler, final int discoveryQueueSize,
+                               final DeviceResolver deviceResolver, final WorkerExecutorFactory workerExecutorFactory,
+                               final AdaptiveConcurrency adaptiveConcurrency) {
+        this.taskScheduler = taskScheduler;
+        this.discoveryQueueSize = discoveryQueueSize;
+        this.deviceResolver = deviceResolver;
+        this.workerExecutorFactory = workerExecutorFactory;
+        this.adaptiveConcurrency = adaptiveConcurrency;
     }
 
     /**
-     * Executes process in parallel based on thread specified by user or
-     * calculated by application based on no. of cores/processors.
+     * Executes given pipeline in parallel based on thread specified by user or calculated by application based
+     * on no. of cores/processors, as sequential stream with a single thread. Files are submitted in the order
+     * decided by the task scheduler.
      *
      * @param fileToProcessList List of files to process.
      * @param noOfThreads No of threads to process list of files.
      */
     @Override
-    public void execute(final List<FileToProcess> fileToProcessList, final int noOfThreads) {
+    public void execute(final CryptographyPipeline cryptographyPipeline, final List<FileToProcess> fileToProcessList,
+                        final int noOfThreads) {
+        if (noOfThreads == 1 && adaptiveConcurrency == null) {
+            LOGGER.trace("Sequential task executor is running");
+            LOGGER.debug("File to process list size={}", fileToProcessList.size());
+            fileToProcessList.forEach(cryptographyPipeline::process);
+            return;
+        }
         LOGGER.trace("Parallel task executor is running");
         LOGGER.debug("File to process list size={}, No of threads={}", fileToProcessList.size(), noOfThreads);
+        if (fileToProcessList.isEmpty()) {
+            return;
+        }
 
-        final int noOfThreadsToCreate = Math.min(fileToProcessList.size(), noOfThreads);
-        LOGGER.info("Based on file count, {} no. of threads will process the file(s)", noOfThreads);
+        final int noOfThreadsToCreate = Math.min(fileToProcessList.size(), getNoOfWorkers(noOfThreads));
+        LOGGER.info("Based on file count, {} no. of threads will process the file(s)", noOfThreadsToCreate);
 
-        final ExecutorService executor = Executors.newFixedThreadPool(noOfThreadsToCreate);
-        final List<? extends Future<String>> futureList = fileToProcessList
+        if (deviceResolver != null || adaptiveConcurrency != null) {
+            final List<FileToProcess> scheduledFileToProcessList = taskScheduler.schedule(fileToProcessList);
+            try {
+                //Files of a list have already been ordered
+                process(cryptographyPipeline, scheduledFileToProcessList::forEach, noOfThreadsToCreate,
+                        workerExecutorFactory.getNoOfWorkers(noOfThreads), null);
+            } catch (IOException e) {
+                //Files of a list are not read by the source
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+        final ExecutorService executor = workerExecutorFactory.newFixedThreadPool(noOfThreadsToCreate);
+        final List<? extends Future<String>> futureList = taskScheduler.schedule(fileToProcessList)
                 .stream()
                 .map(fileToProcess -> executor.submit(() -> cryptographyPipeline
                         .process(fileToProcess), fileToProcess.getFileToEncryptPath().toString()))
@@ -80,4 +114,113 @@ public class TaskExecutorService implements ITaskExecutorService {
         }
         executor.shutdownNow();
     }
+
+    /**
+     * Executes given pipeline on files as they are discovered. A single thread processes each file as soon
+     * as it is found. Otherwise discovery hands files to the worker threads through a queue of at most
+     * discoveryQueueSize files & waits while the queue is full, so processing starts with the first file
+     * found & memory doesn't grow with the no. of files. If the task scheduler orders files by cost, files
+     * are ordered among those waiting in the queue. With adaptive concurrency files are always processed
+     * by worker threads, as the no. of threads is only the starting point.
+     *
+     * @return No. of files discovered.
+     */
+    @Override
+    public long execute(final CryptographyPipeline cryptographyPipeline, final FileToProcessSource fileToProcessSource,
+                        final int noOfThreads) throws IOException {
+        final LongAdder noOfFiles = new LongAdder();
+        if (noOfThreads == 1 && adaptiveConcurrency == null) {
+            LOGGER.trace("Sequential task executor is running");
+            fileToProcessSource.forEach(fileToProcess -> {
+                noOfFiles.increment();
+                cryptographyPipeline.process(fileToProcess);
+            });
+            return noOfFiles.sum();
+        }
+        LOGGER.trace("Streaming task executor is running");
+        final int noOfWorkers = getNoOfWorkers(noOfThreads);
+        LOGGER.info("{} no. of threads will process the file(s) while they are discovered", noOfWorkers);
+        return process(cryptographyPipeline, fileToProcessSource, noOfWorkers, workerExecutorFactory.getNoOfWorkers(noOfThreads),
+                taskScheduler.getTaskCostEstimator());
+    }
+
+    /**
+     * With adaptive concurrency threads are created up to the upper bound, the controller limits how many of
+     * them take files.
+     */
+    private int getNoOfWorkers(final int noOfThreads) {
+        return adaptiveConcurrency == null ? workerExecutorFactory.getNoOfWorkers(noOfThreads) : adaptiveConcurrency.getMaxWorkers();
+    }
+
+    /**
+     * Worker threads process files through a task queue, which holds at most discoveryQueueSize files & limits
+     * the no. of files processed at the same time on each device & on all devices.
+     *
+     * @param initialConcurrencyLimit No. of files processed at the same time when tuned by adaptive concurrency.
+     * @param taskCostEstimator       Orders files waiting in the queue, null to keep the order they have been put in.
+     */
+    private long process(final CryptographyPipeline cryptographyPipeline, final FileToProcessSource fileToProcessSource,
+                         final int noOfThreads, final int initialConcurrencyLimit,
+                         final TaskCostEstimator taskCostEstimator) throws IOException {
+        final TaskQueue taskQueue = new TaskQueue(deviceResolver, discoveryQueueSize, taskCostEstimator);
+        final AdaptiveConcurrencyController controller = adaptiveConcurrency == null ? null :
+                adaptiveConcurrency.newController(taskQueue, initialConcurrencyLimit, noOfThreads);
+        if (controller != null) {
+            controller.start();
+        }
+        final ExecutorService executor = workerExecutorFactory.newFixedThreadPool(noOfThreads);
+        final List<Future<?>> futureList = new ArrayList<>();
+        for (int i = 0; i < noOfThreads; i++) {
+            futureList.add(executor.submit(() -> processQueue(cryptographyPipeline, taskQueue)));
+        }
+
+        final LongAdder noOfFiles = new LongAdder();
+        try {
+            fileToProcessSource.forEach(fileToProcess -> {
+                put(taskQueue, fileToProcess);
+                noOfFiles.increment();
+            });
+            taskQueue.close();
+            for (final Future<?> future : futureList) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Error while waiting for worker threads - " + e.getMessage(), e);
+        } finally {
+            //Interrupts workers only if discovery failed before the queue has been closed
+            executor.shutdownNow();
+            if (controller != null) {
+                controller.stop();
+            }
+        }
+        LOGGER.debug("{} file(s) have been discovered & processed", noOfFiles.sum());
+        return noOfFiles.sum();
+    }
+
+    private void processQueue(final CryptographyPipeline cryptographyPipeline, final TaskQueue taskQueue) {
+        try {
+            TaskQueue.Task task;
+            while ((task = taskQueue.take()) != null) {
+                final FileToProcess fileToProcess = task.getFileToProcess();
+                try {
+                    cryptographyPipeline.process(fileToProcess);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error while processing file " + fileToProcess.getFileToEncryptPath() + " - " + e.getMessage(), e);
+                } finally {
+                    taskQueue.release(task);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void put(final TaskQueue taskQueue, final FileToProcess fileToProcess) {
+        try {
+            taskQueue.put(fileToProcess);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for worker threads", e);
+        }
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import uk.ac.ebi.ega.egacryptor.device.Device;
+import uk.ac.ebi.ega.egacryptor.device.DeviceResolver;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.scheduling.TaskCostEstimator;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue of files shared by worker threads, which limits the no. of files processed at the same time
+ * on each device. Files are grouped by the devices of their input & output directories. A worker takes the
+ * first file of the groups whose devices both have a free slot, so files on a busy device don't hold up files
+ * on other devices. Files are taken in the order they have been put or, with a cost estimator, most expensive
+ * first. Files are only ordered among those waiting in the queue, so files are processed while they are
+ * still being discovered. The no. of files processed at the same time on all devices may be limited & changed
+ * while files are processed.
+ */
+class TaskQueue {
+    private static final Comparator<Task> TASK_ORDER = Comparator.comparingDouble((Task task) -> task.cost).reversed()
+            .thenComparingLong(task -> task.sequence);
+
+    private final DeviceResolver deviceResolver;
+    private final int capacity;
+    private final TaskCostEstimator taskCostEstimator;
+    private final Lock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition changed = lock.newCondition();
+    private final Map<List<Device>, Queue<Task>> tasksByDevices = new HashMap<>();
+    private final Map<Device, Integer> noOfActiveTasks = new HashMap<>();
+    private int size;
+    private long sequence;
+    private int noOfActiveFiles;
+    private int concurrencyLimit;
+    private boolean closed;
+
+    /**
+     * @param deviceResolver Resolves devices of files, null if devices are not limited.
+     */
+    TaskQueue(final DeviceResolver deviceResolver, final int capacity) {
+        this(deviceResolver, capacity, null);
+    }
+
+    /**
+     * @param taskCostEstimator Estimates cost of files to take the most expensive file first, null to take
+     *                          files in the order they have been put.
+     */
+    TaskQueue(final DeviceResolver deviceResolver, final int capacity, final TaskCostEstimator taskCostEstimator) {
+        this.deviceResolver = deviceResolver;
+        this.capacity = capacity;
+        this.taskCostEstimator = taskCostEstimator;
+    }
+
+    /**
+     * Waits while the queue is full.
+     */
+    void put(final FileToProcess fileToProcess) throws InterruptedException {
+        //Devices & cost are resolved before locking as they may need to read the file system
+        final List<Device> devices = deviceResolver == null ? Arrays.asList(null, null) :
+                Arrays.asList(deviceResolver.resolve(fileToProcess.getFileToEncryptPath().toAbsolutePath().getParent()),
+                        deviceResolver.resolve(fileToProcess.getOutputFilePath()));
+        final double cost = taskCostEstimator == null ? 0 : taskCostEstimator.estimateCost(fileToProcess);
+        lock.lockInterruptibly();
+        try {
+            while (size >= capacity) {
+                notFull.await();
+            }
+            tasksByDevices.computeIfAbsent(devices, key -> taskCostEstimator == null ? new ArrayDeque<>() :
+                    new PriorityQueue<>(TASK_ORDER)).add(new Task(fileToProcess, devices, cost, sequence++));
+            size++;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Files already taken are not interrupted when the limit is lowered, workers wait until the no. of files
+     * in progress is below the limit.
+     *
+     * @param concurrencyLimit No. of files processed at the same time, 0 for no limit.
+     */
+    void setConcurrencyLimit(final int concurrencyLimit) {
+        lock.lock();
+        try {
+            this.concurrencyLimit = concurrencyLimit;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return No. of files taken & not yet released.
+     */
+    int getNoOfActiveFiles() {
+        lock.lock();
+        try {
+            return noOfActiveFiles;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return No. of files waiting to be taken.
+     */
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * No more files will be put.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a file can be processed. The file has to be released once processed.
+     *
+     * @return Task of the file, null if queue has been closed & all files have been taken.
+     */
+    Task take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                final Queue<Task> tasks = isBelowConcurrencyLimit() ? getFirstAvailableTasks() : null;
+                if (tasks != null) {
+                    final Task task = tasks.poll();
+                    if (tasks.isEmpty()) {
+                        tasksByDevices.remove(task.devices);
+                    }
+                    forEachDevice(task.devices, device -> noOfActiveTasks.merge(device, 1, Integer::sum));
+                    size--;
+                    noOfActiveFiles++;
+                    notFull.signal();
+                    return task;
+                }
+                if (closed && size == 0) {
+                    return null;
+                }
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(final Task task) {
+        lock.lock();
+        try {
+            forEachDevice(task.devices, device -> noOfActiveTasks.merge(device, -1, Integer::sum));
+            noOfActiveFiles--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Group whose devices have a free slot & whose next file comes first, null if there is none.
+     */
+    private Queue<Task> getFirstAvailableTasks() {
+        Queue<Task> firstTasks = null;
+        for (final Queue<Task> tasks : tasksByDevices.values()) {
+            final Task task = tasks.peek();
+            if (isAvailable(task.devices) && (firstTasks == null || TASK_ORDER.compare(task, firstTasks.peek()) < 0)) {
+                firstTasks = tasks;
+            }
+        }
+        return firstTasks;
+    }
+
+    private boolean isBelowConcurrencyLimit() {
+        return concurrencyLimit == 0 || noOfActiveFiles < concurrencyLimit;
+    }
+
+    private boolean isAvailable(final List<Device> devices) {
+        for (final Device device : devices) {
+            if (device != null && device.getConcurrencyLimit() > 0 &&
+                    noOfActiveTasks.getOrDefault(device, 0) >= device.getConcurrencyLimit()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A file read & written on the same device takes a single slot of the device.
+     */
+    private void forEachDevice(final List<Device> devices, final Consumer<Device> deviceConsumer) {
+        final Device inputDevice = devices.get(0);
+        final Device outputDevice = devices.get(1);
+        if (inputDevice != null) {
+            deviceConsumer.accept(inputDevice);
+        }
+        if (outputDevice != null && outputDevice != inputDevice) {
+            deviceConsumer.accept(outputDevice);
+        }
+    }
+
+    static class Task {
+        private final FileToProcess fileToProcess;
+        private final List<Device> devices;
+        private final double cost;
+        private final long sequence;
+
+        private Task(final FileToProcess fileToProcess, final List<Device> devices, final double cost, final long sequence) {
+            this.fileToProcess = fileToProcess;
+            this.devices = devices;
+            this.cost = cost;
+            this.sequence = sequence;
+        }
+
+        FileToProcess getFileToProcess() {
+            return fileToProcess;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.ExecutorMode;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the executors of worker threads processing files. In virtual mode on Java 21+, each file in progress
+ * has a virtual thread of its own & the no. of workers is the no. of files in progress, rather than the no.
+ * of cores, so a worker blocked on a read from a remote mount doesn't hold a core. Compression & encryption
+ * still run on the carrier threads of the virtual thread scheduler, which are bounded by the no. of cores or
+ * by carrierParallelism. Virtual threads are created through reflection, so the application still runs on
+ * Java 8 with a pool of platform threads.
+ */
+public class WorkerExecutorFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerExecutorFactory.class);
+
+    private static final String CARRIER_PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+    private final ThreadFactory virtualThreadFactory;
+    private final int noOfVirtualWorkers;
+
+    public WorkerExecutorFactory() {
+        this(ExecutorMode.PLATFORM, 0, 0);
+    }
+
+    /**
+     * @param noOfVirtualWorkers  No. of files processed at the same time in virtual mode.
+     * @param carrierParallelism No. of carrier threads of virtual threads, 0 for the no. of cores.
+     */
+    public WorkerExecutorFactory(final ExecutorMode executorMode, final int noOfVirtualWorkers, final int carrierParallelism) {
+        this.noOfVirtualWorkers = noOfVirtualWorkers;
+        if (executorMode == ExecutorMode.VIRTUAL) {
+            //Carrier threads are sized when the first virtual thread is created
+            if (carrierParallelism > 0 && System.getProperty(CARRIER_PARALLELISM_PROPERTY) == null) {
+                System.setProperty(CARRIER_PARALLELISM_PROPERTY, String.valueOf(carrierParallelism));
+            }
+            virtualThreadFactory = newVirtualThreadFactory();
+        } else {
+            virtualThreadFactory = null;
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtualThreadFactory != null;
+    }
+
+    /**
+     * @param noOfThreads No. of threads given by the user or calculated from the no. of cores.
+     * @return No. of workers to process files with.
+     */
+    public int getNoOfWorkers(final int noOfThreads) {
+        return isVirtual() ? Math.max(noOfThreads, noOfVirtualWorkers) : noOfThreads;
+    }
+
+    public ExecutorService newFixedThreadPool(final int noOfWorkers) {
+        return isVirtual() ? Executors.newFixedThreadPool(noOfWorkers, virtualThreadFactory) : Executors.newFixedThreadPool(noOfWorkers);
+    }
+
+    private static ThreadFactory newVirtualThreadFactory() {
+        try {
+            //Thread.ofVirtual().name("worker-", 0).factory()
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object namedBuilder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "worker-", 0L);
+            final Method factory = builderClass.getMethod("factory");
+            final ThreadFactory threadFactory = (ThreadFactory) factory.invoke(namedBuilder);
+            LOGGER.info("Files will be processed by virtual threads");
+            return threadFactory;
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Virtual threads need Java 21 or later, running on Java {}. Files will be processed by platform threads",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.digest;
+
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculator;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+public class DigestCalculatorInputStream extends FilterInputStream {
+
+    private final DigestCalculator digestCalculator;
+
+    public DigestCalculatorInputStream(final InputStream inputStream, final DigestCalculator digestCalculator) {
+        super(inputStream);
+        this.digestCalculator = digestCalculator;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = in.read();
+        if (b != -1) {
+            update(new byte[]{(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        final int bytesRead = in.read(bytes, off, len);
+        if (bytesRead > 0) {
+            update(bytes, off, bytesRead);
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void update(final byte[] bytes, final int off, final int len) throws IOException {
+        try {
+            digestCalculator.update(bytes, off, len);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.digest;
+
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculator;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+public class DigestCalculatorOutputStream extends FilterOutputStream {
+
+    private final DigestCalculator digestCalculator;
+
+    public DigestCalculatorOutputStream(final OutputStream outputStream, final DigestCalculator digestCalculator) {
+        super(outputStream);
+        this.digestCalculator = digestCalculator;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        out.write(b);
+        update(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int off, final int len) throws IOException {
+        out.write(bytes, off, len);
+        update(bytes, off, len);
+    }
+
+    private void update(final byte[] bytes, final int off, final int len) throws IOException {
+        try {
+            digestCalculator.update(bytes, off, len);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.metrics;
+
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Times reads of a stage.
+ */
+public class TimedInputStream extends FilterInputStream {
+
+    private final StageTimer stageTimer;
+    private final Stage stage;
+
+    private TimedInputStream(final InputStream inputStream, final StageTimer stageTimer, final Stage stage) {
+        super(inputStream);
+        this.stageTimer = stageTimer;
+        this.stage = stage;
+    }
+
+    /**
+     * @return Stream timing the stage, the given stream if stages are not timed.
+     */
+    public static InputStream wrap(final InputStream inputStream, final StageTimer stageTimer, final Stage stage) {
+        return stageTimer == null ? inputStream : new TimedInputStream(inputStream, stageTimer, stage);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final long startTime = System.nanoTime();
+        final int value = super.read();
+        stageTimer.record(stage, System.nanoTime() - startTime, value == -1 ? 0 : 1);
+        return value;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final long startTime = System.nanoTime();
+        final int noOfBytes = super.read(b, off, len);
+        stageTimer.record(stage, System.nanoTime() - startTime, Math.max(0, noOfBytes));
+        return noOfBytes;
+    }
+}
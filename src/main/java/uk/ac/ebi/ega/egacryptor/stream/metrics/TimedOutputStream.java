@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.metrics;
+
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Times writes, flushes & close of a stage, including the stages it writes to on the same thread. The time
+ * is added to the stage & subtracted from the stage writing to this one.
+ */
+public class TimedOutputStream extends FilterOutputStream {
+
+    private final StageTimer stageTimer;
+    private final Stage stage;
+    private final Stage callerStage;
+
+    /**
+     * @param stage       Stage timed, null to only subtract the time from the caller stage.
+     * @param callerStage Stage writing to this stream on the same thread, null if none.
+     */
+    private TimedOutputStream(final OutputStream outputStream, final StageTimer stageTimer, final Stage stage,
+                              final Stage callerStage) {
+        super(outputStream);
+        this.stageTimer = stageTimer;
+        this.stage = stage;
+        this.callerStage = callerStage;
+    }
+
+    /**
+     * @return Stream timing the stage, the given stream if stages are not timed.
+     */
+    public static OutputStream wrap(final OutputStream outputStream, final StageTimer stageTimer, final Stage stage,
+                                    final Stage callerStage) {
+        return stageTimer == null ? outputStream : new TimedOutputStream(outputStream, stageTimer, stage, callerStage);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        final long startTime = System.nanoTime();
+        out.write(b);
+        record(startTime, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        final long startTime = System.nanoTime();
+        out.write(b, off, len);
+        record(startTime, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        final long startTime = System.nanoTime();
+        out.flush();
+        record(startTime, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        final long startTime = System.nanoTime();
+        try {
+            out.close();
+        } finally {
+            record(startTime, 0);
+        }
+    }
+
+    private void record(final long startTime, final long noOfBytes) {
+        final long elapsedNanos = System.nanoTime() - startTime;
+        if (stage != null) {
+            stageTimer.record(stage, elapsedNanos, noOfBytes);
+        }
+        if (callerStage != null) {
+            stageTimer.subtract(callerStage, elapsedNanos);
+        }
+    }
+}
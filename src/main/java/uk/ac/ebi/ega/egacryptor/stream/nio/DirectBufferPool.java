@@ -0,0 +1,61 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.nio;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Direct buffers of one size, reused by the files read one after the other. Direct buffers are expensive to
+ * allocate & are only freed by the garbage collector, so allocating one per file would hold on to memory outside
+ * the heap long after the file has been read. A new buffer is allocated if none is free, so the pool holds as many
+ * buffers as files have been read at the same time. Buffers are zeroed when they are released.
+ */
+class DirectBufferPool {
+
+    private final int bufferSize;
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+
+    DirectBufferPool(final int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    ByteBuffer acquire() {
+        final ByteBuffer byteBuffer = freeBuffers.poll();
+        if (byteBuffer != null) {
+            return byteBuffer;
+        }
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Buffer must not be used after it has been released.
+     */
+    void release(final ByteBuffer byteBuffer) {
+        byteBuffer.clear();
+        while (byteBuffer.remaining() >= Long.BYTES) {
+            byteBuffer.putLong(0);
+        }
+        while (byteBuffer.hasRemaining()) {
+            byteBuffer.put((byte) 0);
+        }
+        byteBuffer.clear();
+        freeBuffers.offer(byteBuffer);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through a {@link FileChannel} into a large direct buffer, so that the file is read
+ * with one system call per buffer whatever the size of the reads done on this stream. The buffer is taken
+ * from a pool & returned on close.
+ */
+public class FileChannelInputStream extends InputStream {
+
+    private final FileChannel fileChannel;
+    private final DirectBufferPool directBufferPool;
+    private ByteBuffer byteBuffer;
+    private boolean endOfFile;
+
+    FileChannelInputStream(final Path path, final DirectBufferPool directBufferPool) throws IOException {
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        this.directBufferPool = directBufferPool;
+        this.byteBuffer = directBufferPool.acquire();
+        this.byteBuffer.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return byteBuffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        final int bytesToCopy = Math.min(len, byteBuffer.remaining());
+        byteBuffer.get(bytes, off, bytesToCopy);
+        return bytesToCopy;
+    }
+
+    @Override
+    public int available() {
+        return byteBuffer == null ? 0 : byteBuffer.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            fileChannel.close();
+        } finally {
+            if (byteBuffer != null) {
+                directBufferPool.release(byteBuffer);
+                byteBuffer = null;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (byteBuffer == null) {
+            throw new IOException("Stream closed");
+        }
+        if (byteBuffer.hasRemaining()) {
+            return true;
+        }
+        if (endOfFile) {
+            return false;
+        }
+        byteBuffer.clear();
+        while (byteBuffer.hasRemaining()) {
+            if (fileChannel.read(byteBuffer) < 0) {
+                endOfFile = true;
+                break;
+            }
+        }
+        byteBuffer.flip();
+        return byteBuffer.hasRemaining();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.nio;
+
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
+import uk.ac.ebi.ega.egacryptor.metrics.StageTimer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a file through a {@link FileChannel}. The file can be extended up front to the expected size by
+ * writing its last byte, which leaves a sparse file & reserves no blocks. It is truncated to the bytes
+ * actually written on close.
+ */
+public class FileChannelOutputStream extends OutputStream {
+
+    private final FileChannel fileChannel;
+    private final boolean sync;
+    private final StageTimer stageTimer;
+
+    /**
+     * @param extendedSize Expected size of the file, 0 to not extend the file.
+     * @param sync         Whether content is forced to the storage device on close.
+     */
+    public FileChannelOutputStream(final Path path, final long extendedSize, final boolean sync) throws IOException {
+        this(path, extendedSize, sync, null);
+    }
+
+    /**
+     * @param stageTimer Times writes & forcing content to the storage device, null if stages are not timed.
+     */
+    public FileChannelOutputStream(final Path path, final long extendedSize, final boolean sync,
+                                   final StageTimer stageTimer) throws IOException {
+        this.stageTimer = stageTimer;
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.sync = sync;
+        if (extendedSize > 0) {
+            //Positional write, doesn't move the channel position
+            fileChannel.write(ByteBuffer.wrap(new byte[1]), extendedSize - 1);
+        }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int off, final int len) throws IOException {
+        final long startTime = System.nanoTime();
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, off, len);
+        while (byteBuffer.hasRemaining()) {
+            fileChannel.write(byteBuffer);
+        }
+        StageTimer.record(stageTimer, Stage.WRITE, startTime, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!fileChannel.isOpen()) {
+            return;
+        }
+        try {
+            if (fileChannel.size() > fileChannel.position()) {
+                fileChannel.truncate(fileChannel.position());
+            }
+            if (sync) {
+                final long startTime = System.nanoTime();
+                fileChannel.force(true);
+                StageTimer.record(stageTimer, Stage.SYNC, startTime, fileChannel.position());
+            }
+        } finally {
+            fileChannel.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.nio;
+
+import uk.ac.ebi.ega.egacryptor.constant.InputMode;
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Opens files to be encrypted as configured by {@link InputMode}.
+ */
+public class InputStreamFactory {
+
+    private final InputMode inputMode;
+    private final ThroughputMeter throughputMeter;
+    private final DirectBufferPool directBufferPool;
+
+    /**
+     * @param inputMode  How files are read.
+     * @param bufferSize Size of direct buffer for {@link InputMode#CHANNEL}. Not used by {@link InputMode#STREAM}, files are
+     *                   mapped in windows of {@link MappedFileInputStream#DEFAULT_WINDOW_SIZE} by {@link InputMode#MMAP}.
+     */
+    public InputStreamFactory(final InputMode inputMode, final int bufferSize) {
+        this(inputMode, bufferSize, null);
+    }
+
+    /**
+     * @param throughputMeter Counts bytes read from files, null if not counted.
+     */
+    public InputStreamFactory(final InputMode inputMode, final int bufferSize, final ThroughputMeter throughputMeter) {
+        this.inputMode = inputMode;
+        this.throughputMeter = throughputMeter;
+        this.directBufferPool = inputMode == InputMode.CHANNEL ? new DirectBufferPool(bufferSize) : null;
+    }
+
+    public InputStream newInputStream(final Path path) throws IOException {
+        final InputStream inputStream = openInputStream(path);
+        return throughputMeter == null ? inputStream : new MeteredInputStream(inputStream, throughputMeter);
+    }
+
+    private InputStream openInputStream(final Path path) throws IOException {
+        switch (inputMode) {
+            case CHANNEL:
+                return new FileChannelInputStream(path, directBufferPool);
+            case MMAP:
+                return new MappedFileInputStream(path, MappedFileInputStream.DEFAULT_WINDOW_SIZE);
+            default:
+                return new FileInputStream(path.toFile());
+        }
+    }
+}
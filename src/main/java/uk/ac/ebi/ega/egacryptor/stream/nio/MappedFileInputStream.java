@@ -0,0 +1,96 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file by mapping consecutive windows of it into memory. Mappings are only released once their
+ * buffers are garbage collected, so windows have to be large: with small windows a large file would need
+ * more mappings than the kernel allows a process (vm.max_map_count) before the next collection. Pages are
+ * read by the kernel's read ahead as the window is read sequentially.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    /**
+     * 1 GiB, a 1 TiB file is read in 1024 mappings.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private final FileChannel fileChannel;
+    private final long fileSize;
+    private final int windowSize;
+    private long windowPosition;
+    private MappedByteBuffer mappedByteBuffer;
+
+    public MappedFileInputStream(final Path path, final int windowSize) throws IOException {
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = fileChannel.size();
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!map()) {
+            return -1;
+        }
+        return mappedByteBuffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!map()) {
+            return -1;
+        }
+        final int bytesToCopy = Math.min(len, mappedByteBuffer.remaining());
+        mappedByteBuffer.get(bytes, off, bytesToCopy);
+        return bytesToCopy;
+    }
+
+    @Override
+    public int available() {
+        return mappedByteBuffer == null ? 0 : mappedByteBuffer.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mappedByteBuffer = null;
+        fileChannel.close();
+    }
+
+    private boolean map() throws IOException {
+        if (mappedByteBuffer != null && mappedByteBuffer.hasRemaining()) {
+            return true;
+        }
+        if (windowPosition >= fileSize) {
+            return false;
+        }
+        final long mappedSize = Math.min(windowSize, fileSize - windowPosition);
+        mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, windowPosition, mappedSize);
+        windowPosition += mappedSize;
+        return true;
+    }
+}
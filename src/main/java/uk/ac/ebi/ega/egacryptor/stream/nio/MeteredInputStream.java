@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.nio;
+
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Adds bytes read to a throughput meter.
+ */
+public class MeteredInputStream extends FilterInputStream {
+
+    private final ThroughputMeter throughputMeter;
+
+    public MeteredInputStream(final InputStream inputStream, final ThroughputMeter throughputMeter) {
+        super(inputStream);
+        this.throughputMeter = throughputMeter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int value = super.read();
+        if (value != -1) {
+            throughputMeter.add(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int noOfBytes = super.read(b, off, len);
+        if (noOfBytes > 0) {
+            throughputMeter.add(noOfBytes);
+        }
+        return noOfBytes;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long noOfBytes = super.skip(n);
+        throughputMeter.add(noOfBytes);
+        return noOfBytes;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.nio;
+
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Adds bytes written to a throughput meter.
+ */
+public class MeteredOutputStream extends FilterOutputStream {
+
+    private final ThroughputMeter throughputMeter;
+
+    public MeteredOutputStream(final OutputStream outputStream, final ThroughputMeter throughputMeter) {
+        super(outputStream);
+        this.throughputMeter = throughputMeter;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        out.write(b);
+        throughputMeter.add(1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        //FilterOutputStream would write byte by byte
+        out.write(b, off, len);
+        throughputMeter.add(len);
+    }
+}
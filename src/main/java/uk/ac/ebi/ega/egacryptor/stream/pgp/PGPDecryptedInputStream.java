@@ -0,0 +1,109 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pgp;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyEncryptedData;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Literal data of a decrypted message. The integrity of the message is checked against its
+ * modification detection code once the literal data has been read entirely, a failed check is
+ * reported as an {@link IOException} in place of the end of the stream.
+ */
+public class PGPDecryptedInputStream extends InputStream {
+
+    private final InputStream literalDataInputStream;
+    private final InputStream decryptedDataInputStream;
+    private final PGPPublicKeyEncryptedData pgpPublicKeyEncryptedData;
+    private final InputStream[] inputStreamsToClose;
+    private boolean verified;
+
+    /**
+     * @param literalDataInputStream    Literal data.
+     * @param decryptedDataInputStream  Decrypted data the literal data is read from, possibly through
+     *                                  decompression.
+     * @param pgpPublicKeyEncryptedData Encrypted data of the message.
+     * @param inputStreamsToClose       Closed in order after literal data.
+     */
+    public PGPDecryptedInputStream(final InputStream literalDataInputStream, final InputStream decryptedDataInputStream,
+                                   final PGPPublicKeyEncryptedData pgpPublicKeyEncryptedData,
+                                   final InputStream... inputStreamsToClose) {
+        this.literalDataInputStream = literalDataInputStream;
+        this.decryptedDataInputStream = decryptedDataInputStream;
+        this.pgpPublicKeyEncryptedData = pgpPublicKeyEncryptedData;
+        this.inputStreamsToClose = inputStreamsToClose;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = literalDataInputStream.read();
+        if (b == -1) {
+            verify();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        final int bytesRead = literalDataInputStream.read(bytes, off, len);
+        if (bytesRead == -1) {
+            verify();
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(literalDataInputStream, 0);
+    }
+
+    private void close(final InputStream inputStream, final int nextIndex) throws IOException {
+        try {
+            inputStream.close();
+        } finally {
+            if (nextIndex < inputStreamsToClose.length) {
+                close(inputStreamsToClose[nextIndex], nextIndex + 1);
+            }
+        }
+    }
+
+    private void verify() throws IOException {
+        if (verified) {
+            return;
+        }
+        verified = true;
+        if (!pgpPublicKeyEncryptedData.isIntegrityProtected()) {
+            throw new IOException("Encrypted data is not integrity protected");
+        }
+        //Data following literal data has to be consumed before modification detection code can be checked
+        final byte[] buffer = new byte[8192];
+        while (decryptedDataInputStream.read(buffer) != -1) {
+            //Drains remaining bytes
+        }
+        try {
+            if (!pgpPublicKeyEncryptedData.verify()) {
+                throw new IOException("Integrity check of encrypted data failed");
+            }
+        } catch (PGPException e) {
+            throw new IOException("Integrity check of encrypted data failed - ".concat(e.getMessage()), e);
+        }
+    }
+}
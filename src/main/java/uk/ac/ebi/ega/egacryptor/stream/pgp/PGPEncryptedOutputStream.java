@@ -17,23 +17,31 @@
  */
 package uk.ac.ebi.ega.egacryptor.stream.pgp;
 
-import org.bouncycastle.openpgp.PGPCompressedDataGenerator;
-
 import java.io.IOException;
 import java.io.OutputStream;
 
 public class PGPEncryptedOutputStream extends OutputStream {
 
     private final OutputStream encryptedOutputStream;
-    private final PGPCompressedDataGenerator pgpCompressedDataGenerator;
+    private final OutputStream pgpCompressedDataGeneratorOutputStream;
     private final OutputStream pgpEncryptedDataGeneratorOutputStream;
+    private final Runnable releaseBuffers;
+    private final Runnable discardBuffers;
+    private boolean closed;
 
+    /**
+     * @param releaseBuffers Releases buffers of the packet generators once all streams have been closed.
+     * @param discardBuffers Zeroes buffers of the packet generators without releasing them, if any stream fails to close.
+     */
     public PGPEncryptedOutputStream(final OutputStream encryptedOutputStream,
-                                    final PGPCompressedDataGenerator pgpCompressedDataGenerator,
-                                    final OutputStream pgpEncryptedDataGeneratorOutputStream) {
+                                    final OutputStream pgpCompressedDataGeneratorOutputStream,
+                                    final OutputStream pgpEncryptedDataGeneratorOutputStream,
+                                    final Runnable releaseBuffers, final Runnable discardBuffers) {
         this.encryptedOutputStream = encryptedOutputStream;
-        this.pgpCompressedDataGenerator = pgpCompressedDataGenerator;
+        this.pgpCompressedDataGeneratorOutputStream = pgpCompressedDataGeneratorOutputStream;
         this.pgpEncryptedDataGeneratorOutputStream = pgpEncryptedDataGeneratorOutputStream;
+        this.releaseBuffers = releaseBuffers;
+        this.discardBuffers = discardBuffers;
     }
 
     @Override
@@ -51,11 +59,38 @@ public class PGPEncryptedOutputStream extends OutputStream {
         encryptedOutputStream.write(bytes, off, len);
     }
 
+    /**
+     * Closes packets from innermost to outermost. Every stream is closed even if an inner one fails,
+     * so that no pipeline stage is left waiting for more data. Buffers are only released if every
+     * stream has been closed, as a failed stage may still hold them. Otherwise they are zeroed & left to the
+     * garbage collector, so no plaintext stays in memory.
+     */
     @Override
     public void close() throws IOException {
-        encryptedOutputStream.close();
-        pgpCompressedDataGenerator.close();
-        pgpEncryptedDataGeneratorOutputStream.close();
+        //Releasing buffers twice would hand the same buffer to two streams
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean allClosed = false;
+        try {
+            try {
+                encryptedOutputStream.close();
+            } finally {
+                try {
+                    pgpCompressedDataGeneratorOutputStream.close();
+                } finally {
+                    pgpEncryptedDataGeneratorOutputStream.close();
+                }
+            }
+            allClosed = true;
+        } finally {
+            if (allClosed) {
+                releaseBuffers.run();
+            } else {
+                discardBuffers.run();
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,69 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pgp;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Inflates ZIP or ZLIB compressed data packet with a buffer of given size. Same as stream returned
+ * by {@link org.bouncycastle.openpgp.PGPCompressedData#getDataStream()}, which reads the packet in
+ * blocks of 512 bytes.
+ */
+public class PGPInflaterInputStream extends InflaterInputStream {
+
+    private boolean endOfInput;
+
+    /**
+     * @param nowrap true for raw deflate of ZIP packet, false for ZLIB packet.
+     */
+    public PGPInflaterInputStream(final InputStream compressedInputStream, final boolean nowrap, final int bufferSize) {
+        super(compressedInputStream, new Inflater(nowrap), bufferSize);
+    }
+
+    /**
+     * Raw inflater may need one byte more than the deflate stream holds, which is provided once the
+     * end of the packet is reached.
+     */
+    @Override
+    protected void fill() throws IOException {
+        if (endOfInput) {
+            throw new EOFException("Unexpected end of compressed data packet");
+        }
+        len = in.read(buf, 0, buf.length);
+        if (len == -1) {
+            buf[0] = 0;
+            len = 1;
+            endOfInput = true;
+        }
+        inf.setInput(buf, 0, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            //Inflater is not owned by InflaterInputStream when passed to constructor
+            inf.end();
+        }
+    }
+}
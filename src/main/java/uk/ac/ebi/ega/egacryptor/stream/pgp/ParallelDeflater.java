@@ -0,0 +1,69 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pgp;
+
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens {@link ParallelDeflaterOutputStream}s sharing one pool of compression threads,
+ * so the number of threads deflating at any time stays bounded however many files are
+ * being encrypted. Blocks of all streams are taken from one buffer pool.
+ */
+public class ParallelDeflater {
+
+    private final int noOfThreads;
+    private final BufferPool blockPool;
+    private final ExecutorService executorService;
+
+    public ParallelDeflater(final int noOfThreads, final int blockSize) {
+        this.noOfThreads = noOfThreads;
+        if (isEnabled()) {
+            //Keeps the blocks of two streams, each holding the pending blocks & the block being filled
+            this.blockPool = new BufferPool(blockSize, 2 * (noOfThreads * 2 + 1));
+            final AtomicInteger threadCount = new AtomicInteger();
+            this.executorService = Executors.newFixedThreadPool(noOfThreads, runnable -> {
+                final Thread thread = new Thread(runnable, "deflater-".concat(String.valueOf(threadCount.incrementAndGet())));
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.blockPool = null;
+            this.executorService = null;
+        }
+    }
+
+    /**
+     * @return true if more than one thread has been configured to compress a file.
+     */
+    public boolean isEnabled() {
+        return noOfThreads > 1;
+    }
+
+    public OutputStream open(final OutputStream targetOutputStream, final int compressionLevel) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Parallel compression has not been enabled");
+        }
+        //Keeps every thread busy while the oldest block is being written
+        return new ParallelDeflaterOutputStream(targetOutputStream, compressionLevel, blockPool, noOfThreads * 2, executorService);
+    }
+}
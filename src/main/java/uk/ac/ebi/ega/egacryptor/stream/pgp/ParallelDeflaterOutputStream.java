@@ -0,0 +1,196 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pgp;
+
+import org.bouncycastle.util.Arrays;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a single raw deflate stream (RFC 1951) whose blocks are compressed in parallel.
+ * Input is split into fixed size blocks, each block is deflated on the given executor using the
+ * last 32 KiB of the previous block as dictionary and ends with a sync flush, so the compressed
+ * blocks joined in order form one valid deflate stream. Only the last block is marked final.
+ * Blocks are taken from a buffer pool & released once they have been deflated.
+ */
+public class ParallelDeflaterOutputStream extends OutputStream {
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private final OutputStream targetOutputStream;
+    private final int compressionLevel;
+    private final BufferPool blockPool;
+    private final int blockSize;
+    private final int maxPendingBlocks;
+    private final ExecutorService executorService;
+    private final Deque<Future<CompressedBlock>> pendingBlocks = new ArrayDeque<>();
+
+    private byte[] block;
+    private int position;
+    private byte[] dictionary;
+    private boolean closed;
+
+    /**
+     * @param blockPool Buffers of blocks, of the block size.
+     */
+    public ParallelDeflaterOutputStream(final OutputStream targetOutputStream, final int compressionLevel, final BufferPool blockPool,
+                                        final int maxPendingBlocks, final ExecutorService executorService) {
+        this.targetOutputStream = targetOutputStream;
+        this.compressionLevel = compressionLevel;
+        this.blockPool = blockPool;
+        this.blockSize = blockPool.getBufferSize();
+        this.maxPendingBlocks = maxPendingBlocks;
+        this.executorService = executorService;
+        this.block = blockPool.acquire();
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] bytes, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (len > 0) {
+            final int bytesToCopy = Math.min(len, blockSize - position);
+            System.arraycopy(bytes, off, block, position, bytesToCopy);
+            position += bytesToCopy;
+            off += bytesToCopy;
+            len -= bytesToCopy;
+            if (position == blockSize) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    /**
+     * Writes blocks which have already been compressed. Partially filled block is kept, flushing it
+     * would only make compression worse.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pendingBlocks.isEmpty() && pendingBlocks.peekFirst().isDone()) {
+            writeBlock(pendingBlocks.pollFirst());
+        }
+        targetOutputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            submitBlock(true);
+            while (!pendingBlocks.isEmpty()) {
+                writeBlock(pendingBlocks.pollFirst());
+            }
+        } finally {
+            for (final Future<CompressedBlock> pendingBlock : pendingBlocks) {
+                pendingBlock.cancel(true);
+            }
+            if (dictionary != null) {
+                Arrays.fill(dictionary, (byte) 0);
+            }
+            targetOutputStream.close();
+        }
+    }
+
+    private void submitBlock(final boolean lastBlock) throws IOException {
+        final byte[] input = block;
+        final int length = position;
+        final byte[] blockDictionary = dictionary;
+        //Copied before submitting, input is released by the task once compressed
+        dictionary = Arrays.copyOfRange(input, Math.max(0, length - DICTIONARY_SIZE), length);
+        pendingBlocks.addLast(executorService.submit(() -> deflate(input, length, blockDictionary, lastBlock)));
+
+        block = lastBlock ? null : blockPool.acquire();
+        position = 0;
+
+        while (pendingBlocks.size() > maxPendingBlocks) {
+            writeBlock(pendingBlocks.pollFirst());
+        }
+    }
+
+    private void writeBlock(final Future<CompressedBlock> pendingBlock) throws IOException {
+        try {
+            final CompressedBlock compressedBlock = pendingBlock.get();
+            targetOutputStream.write(compressedBlock.bytes, 0, compressedBlock.length);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for compressed block");
+        } catch (ExecutionException e) {
+            throw new IOException("Error while compressing block - ".concat(String.valueOf(e.getCause())), e.getCause());
+        }
+    }
+
+    private CompressedBlock deflate(final byte[] input, final int length, final byte[] blockDictionary, final boolean lastBlock) {
+        final Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            if (blockDictionary != null && blockDictionary.length > 0) {
+                deflater.setDictionary(blockDictionary);
+            }
+            deflater.setInput(input, 0, length);
+            if (lastBlock) {
+                deflater.finish();
+            }
+            final int flushMode = lastBlock ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            byte[] output = new byte[length + (length >> 3) + 64];
+            int outputLength = 0;
+            while (true) {
+                outputLength += deflater.deflate(output, outputLength, output.length - outputLength, flushMode);
+                if (lastBlock ? deflater.finished() : outputLength < output.length) {
+                    break;
+                }
+                if (outputLength == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+            }
+            return new CompressedBlock(output, outputLength);
+        } finally {
+            deflater.end();
+            blockPool.release(input);
+            if (blockDictionary != null) {
+                Arrays.fill(blockDictionary, (byte) 0);
+            }
+        }
+    }
+
+    private static class CompressedBlock {
+        private final byte[] bytes;
+        private final int length;
+
+        private CompressedBlock(final byte[] bytes, final int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+}
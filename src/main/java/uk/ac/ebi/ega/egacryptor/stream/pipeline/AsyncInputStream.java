@@ -0,0 +1,159 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Pipeline stage boundary on the reading side. A worker thread reads the source stream ahead into
+ * buffers, so the source and the caller run concurrently. Closing this stream waits for the worker
+ * and closes the source.
+ */
+public class AsyncInputStream extends InputStream {
+
+    private final InputStream sourceInputStream;
+    private final BufferQueue bufferQueue;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private BufferQueue.Chunk chunk;
+    private int position;
+
+    public AsyncInputStream(final InputStream sourceInputStream, final int bufferSize, final int noOfBuffers,
+                            final ExecutorService executorService) {
+        this.sourceInputStream = sourceInputStream;
+        this.bufferQueue = new BufferQueue(bufferSize, noOfBuffers);
+        executorService.submit(this::fill);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextChunk()) {
+            return -1;
+        }
+        return chunk.getBuffer()[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        final int bytesToCopy = Math.min(len, chunk.getLength() - position);
+        System.arraycopy(chunk.getBuffer(), position, bytes, off, bytesToCopy);
+        position += bytesToCopy;
+        return bytesToCopy;
+    }
+
+    @Override
+    public int available() {
+        return chunk == null || chunk == BufferQueue.END ? 0 : chunk.getLength() - position;
+    }
+
+    /**
+     * Stops the worker after the buffer it is reading & drains buffers until the worker has ended,
+     * so the source is never closed while it is being read.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            while (chunk != BufferQueue.END) {
+                releaseChunk();
+                chunk = bufferQueue.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            bufferQueue.clear();
+            sourceInputStream.close();
+        }
+    }
+
+    private boolean nextChunk() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (chunk != null && chunk != BufferQueue.END && position < chunk.getLength()) {
+            return true;
+        }
+        if (chunk != BufferQueue.END) {
+            releaseChunk();
+            try {
+                chunk = bufferQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for pipeline stage");
+            }
+            position = 0;
+        }
+        if (chunk == BufferQueue.END) {
+            if (failure != null) {
+                //New instance each time, the same failure may be reported by read & close of one try-with-resources
+                throw new IOException("Pipeline stage failed - ".concat(failure.getMessage()), failure);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void releaseChunk() {
+        if (chunk != null && chunk != BufferQueue.END) {
+            bufferQueue.release(chunk.getBuffer());
+        }
+        chunk = null;
+    }
+
+    private Void fill() {
+        try {
+            boolean endOfStream = false;
+            while (!endOfStream && !closed) {
+                final byte[] buffer = bufferQueue.acquire();
+                int length = 0;
+                int bytesRead;
+                while (length < buffer.length && (bytesRead = sourceInputStream.read(buffer, length, buffer.length - length)) != -1) {
+                    length += bytesRead;
+                }
+                endOfStream = length < buffer.length;
+                if (length > 0) {
+                    bufferQueue.put(buffer, length);
+                } else {
+                    bufferQueue.release(buffer);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Interrupted while reading ahead");
+        } finally {
+            bufferQueue.putEnd();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pipeline stage boundary. Bytes written to this stream are collected into buffers which are
+ * handed to a worker thread that writes them to the target stream, so the caller and the
+ * target run concurrently. Closing this stream waits for the worker and closes the target.
+ */
+public class AsyncOutputStream extends OutputStream {
+
+    private final OutputStream targetOutputStream;
+    private final BufferQueue bufferQueue;
+    private final Future<?> worker;
+    private final AtomicBoolean workerStarted = new AtomicBoolean();
+    private final CountDownLatch workerStopped = new CountDownLatch(1);
+    private volatile IOException failure;
+
+    private byte[] buffer;
+    private int position;
+    private boolean closed;
+
+    public AsyncOutputStream(final OutputStream targetOutputStream, final int bufferSize, final int noOfBuffers,
+                             final ExecutorService executorService) {
+        this.targetOutputStream = targetOutputStream;
+        this.bufferQueue = new BufferQueue(bufferSize, noOfBuffers);
+        this.worker = executorService.submit(this::drain);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureBuffer();
+        buffer[position++] = (byte) b;
+        if (position == buffer.length) {
+            handOff();
+        }
+    }
+
+    @Override
+    public void write(final byte[] bytes, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureBuffer();
+            final int bytesToCopy = Math.min(len, buffer.length - position);
+            System.arraycopy(bytes, off, buffer, position, bytesToCopy);
+            position += bytesToCopy;
+            off += bytesToCopy;
+            len -= bytesToCopy;
+            if (position == buffer.length) {
+                handOff();
+            }
+        }
+    }
+
+    /**
+     * Hands off any partially filled buffer. Target stream is flushed by the worker once
+     * all buffers have been written.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkFailure();
+        if (position > 0) {
+            handOff();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (position > 0 && failure == null) {
+                handOff();
+            }
+            bufferQueue.putEnd();
+            worker.get();
+            checkFailure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for pipeline stage to complete");
+        } catch (ExecutionException e) {
+            throw new IOException("Pipeline stage failed - ".concat(String.valueOf(e.getCause())), e.getCause());
+        } finally {
+            stopWorker();
+            if (buffer != null) {
+                bufferQueue.release(buffer);
+                buffer = null;
+            }
+            bufferQueue.clear();
+            targetOutputStream.close();
+        }
+    }
+
+    /**
+     * Cancels the worker if it's still running, e.g. when close is interrupted, & waits until it no longer writes
+     * to the target stream. Interrupt of the calling thread is restored once the worker has stopped.
+     */
+    private void stopWorker() {
+        worker.cancel(true);
+        if (workerStarted.compareAndSet(false, true)) {
+            //Worker will not run
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                workerStopped.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ensureBuffer() throws IOException {
+        checkFailure();
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (buffer == null) {
+            try {
+                buffer = bufferQueue.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for free buffer");
+            }
+            position = 0;
+        }
+    }
+
+    private void handOff() throws IOException {
+        try {
+            bufferQueue.put(buffer, position);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while handing off buffer");
+        }
+        buffer = null;
+        position = 0;
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            //New instance each time, the same failure may be reported by write & close of one try-with-resources
+            throw new IOException("Pipeline stage failed - ".concat(failure.getMessage()), failure);
+        }
+    }
+
+    private Void drain() throws InterruptedException {
+        if (!workerStarted.compareAndSet(false, true)) {
+            //Stream has been closed before the worker started
+            return null;
+        }
+        try {
+            doDrain();
+        } finally {
+            workerStopped.countDown();
+        }
+        return null;
+    }
+
+    private void doDrain() throws InterruptedException {
+        BufferQueue.Chunk chunk;
+        while ((chunk = bufferQueue.take()) != BufferQueue.END) {
+            // Keeps draining after a failure so that the writer never blocks on a free buffer
+            if (failure == null) {
+                try {
+                    targetOutputStream.write(chunk.getBuffer(), 0, chunk.getLength());
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            bufferQueue.release(chunk.getBuffer());
+        }
+        if (failure == null) {
+            try {
+                targetOutputStream.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of buffers of one size, shared by all threads of a run. A buffer is handed to one
+ * thread at a time & is zeroed when it is released. A new buffer is allocated if none is free, so
+ * acquiring never blocks, & buffers released to a full pool are left to the garbage collector.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final LongAdder noOfAcquisitions = new LongAdder();
+    private final LongAdder noOfAllocations = new LongAdder();
+
+    /**
+     * @param maxFreeBuffers Maximum no. of buffers kept for reuse, 0 allocates a buffer on every acquisition.
+     */
+    public BufferPool(final int bufferSize, final int maxFreeBuffers) {
+        if (bufferSize <= 0 || maxFreeBuffers < 0) {
+            throw new IllegalArgumentException("Buffer size should be greater than 0 & no. of buffers should be 0 or greater");
+        }
+        this.bufferSize = bufferSize;
+        this.freeBuffers = maxFreeBuffers == 0 ? null : new ArrayBlockingQueue<>(maxFreeBuffers);
+    }
+
+    public byte[] acquire() {
+        noOfAcquisitions.increment();
+        final byte[] buffer = freeBuffers == null ? null : freeBuffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        noOfAllocations.increment();
+        return new byte[bufferSize];
+    }
+
+    /**
+     * Buffer must not be used after it has been released.
+     */
+    public void release(final byte[] buffer) {
+        Arrays.fill(buffer, (byte) 0);
+        if (freeBuffers != null && buffer.length == bufferSize) {
+            freeBuffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Zeroes a buffer which may still be used by a failed stream, without returning it to the pool.
+     */
+    public void discard(final byte[] buffer) {
+        Arrays.fill(buffer, (byte) 0);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public long getNoOfAcquisitions() {
+        return noOfAcquisitions.sum();
+    }
+
+    public long getNoOfAllocations() {
+        return noOfAllocations.sum();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import org.bouncycastle.util.Arrays;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Bounded hand-off of filled buffers between two pipeline stages. A fixed number of buffers
+ * is allocated up front, so a producer blocks once all of them are waiting to be consumed.
+ * Buffers are zeroed when they are released back to the queue.
+ */
+class BufferQueue {
+
+    static final Chunk END = new Chunk(new byte[0], 0);
+
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final BlockingQueue<Chunk> filledBuffers;
+
+    BufferQueue(final int bufferSize, final int noOfBuffers) {
+        if (noOfBuffers < 1) {
+            throw new IllegalArgumentException("No. of buffers should be at least 1");
+        }
+        this.freeBuffers = new ArrayBlockingQueue<>(noOfBuffers);
+        this.filledBuffers = new LinkedBlockingQueue<>();
+        for (int i = 0; i < noOfBuffers; i++) {
+            freeBuffers.add(new byte[bufferSize]);
+        }
+    }
+
+    byte[] acquire() throws InterruptedException {
+        return freeBuffers.take();
+    }
+
+    void put(final byte[] buffer, final int length) throws InterruptedException {
+        filledBuffers.put(new Chunk(buffer, length));
+    }
+
+    void putEnd() {
+        filledBuffers.add(END);
+    }
+
+    Chunk take() throws InterruptedException {
+        return filledBuffers.take();
+    }
+
+    void release(final byte[] buffer) {
+        Arrays.fill(buffer, (byte) 0);
+        freeBuffers.offer(buffer);
+    }
+
+    /**
+     * Zeroes and releases every buffer still waiting to be consumed.
+     */
+    void clear() {
+        Chunk chunk;
+        while ((chunk = filledBuffers.poll()) != null) {
+            if (chunk != END) {
+                release(chunk.getBuffer());
+            }
+        }
+    }
+
+    /**
+     * Zeroes and releases buffers until the end has been put, so no buffer put by a stopping producer
+     * is left behind. Keeps waiting if interrupted & restores the interrupt once the end has been taken.
+     */
+    void drainToEnd() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    final Chunk chunk = filledBuffers.take();
+                    if (chunk == END) {
+                        return;
+                    }
+                    release(chunk.getBuffer());
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static class Chunk {
+        private final byte[] buffer;
+        private final int length;
+
+        Chunk(final byte[] buffer, final int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        byte[] getBuffer() {
+            return buffer;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+}
@@ -17,8 +17,6 @@
  */
 package uk.ac.ebi.ega.egacryptor.stream.pipeline;
 
-import org.bouncycastle.util.Arrays;
-
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -27,18 +25,18 @@ public class DefaultStream implements PipelineStream {
 
     private final InputStream sourceInputStream;
     private final OutputStream targetOutputStream;
-    private final int bufferSize;
+    private final BufferPool bufferPool;
 
     public DefaultStream(final InputStream sourceInputStream, final OutputStream targetOutputStream,
-                         final int bufferSize) {
+                         final BufferPool bufferPool) {
         this.sourceInputStream = sourceInputStream;
         this.targetOutputStream = targetOutputStream;
-        this.bufferSize = bufferSize;
+        this.bufferPool = bufferPool;
     }
 
     @Override
     public long execute() throws IOException {
-        final byte[] buffer = new byte[bufferSize];
+        final byte[] buffer = bufferPool.acquire();
         try {
             long totalRead = 0;
             int bytesRead;
@@ -49,7 +47,7 @@ public class DefaultStream implements PipelineStream {
             targetOutputStream.flush();
             return totalRead;
         } finally {
-            Arrays.fill(buffer, (byte) 0);
+            bufferPool.release(buffer);
         }
     }
 
@@ -0,0 +1,52 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Runs every stage on the calling thread.
+ */
+public class DefaultStreamFactory implements PipelineStreamFactory {
+
+    private final BufferPool bufferPool;
+
+    public DefaultStreamFactory(final int bufferSize) {
+        this(new BufferPool(bufferSize, 0));
+    }
+
+    public DefaultStreamFactory(final BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public PipelineStream newPipelineStream(final InputStream sourceInputStream, final OutputStream targetOutputStream) {
+        return new DefaultStream(sourceInputStream, targetOutputStream, bufferPool);
+    }
+
+    @Override
+    public OutputStream newStage(final OutputStream targetOutputStream) {
+        return targetOutputStream;
+    }
+
+    @Override
+    public InputStream newInputStage(final InputStream sourceInputStream) {
+        return sourceInputStream;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface PipelineStreamFactory {
+
+    PipelineStream newPipelineStream(final InputStream sourceInputStream, final OutputStream targetOutputStream);
+
+    /**
+     * Wraps target stream in a stage boundary. Bytes written to the returned stream may be written
+     * to the target by another thread. Closing the returned stream closes the target stream.
+     *
+     * @param targetOutputStream Stream receiving the output of the stage.
+     * @return Stream to be used as input of the stage.
+     */
+    OutputStream newStage(final OutputStream targetOutputStream);
+
+    /**
+     * Wraps source stream in a stage boundary. The source may be read ahead by another thread.
+     * Closing the returned stream closes the source stream.
+     *
+     * @param sourceInputStream Stream producing the input of the stage.
+     * @return Stream to be used as output of the stage.
+     */
+    InputStream newInputStage(final InputStream sourceInputStream);
+}
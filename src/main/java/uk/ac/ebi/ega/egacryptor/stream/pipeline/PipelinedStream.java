@@ -0,0 +1,111 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads the source stream on a separate thread and hands filled buffers to the calling thread
+ * through a bounded queue, so reading overlaps with the work done by the target stream.
+ */
+public class PipelinedStream implements PipelineStream {
+
+    private final InputStream sourceInputStream;
+    private final OutputStream targetOutputStream;
+    private final int bufferSize;
+    private final int noOfBuffers;
+    private final ExecutorService executorService;
+
+    public PipelinedStream(final InputStream sourceInputStream, final OutputStream targetOutputStream,
+                           final int bufferSize, final int noOfBuffers, final ExecutorService executorService) {
+        this.sourceInputStream = sourceInputStream;
+        this.targetOutputStream = targetOutputStream;
+        this.bufferSize = bufferSize;
+        this.noOfBuffers = noOfBuffers;
+        this.executorService = executorService;
+    }
+
+    @Override
+    public long execute() throws IOException {
+        final BufferQueue bufferQueue = new BufferQueue(bufferSize, noOfBuffers);
+        final AtomicBoolean readerStarted = new AtomicBoolean();
+        final Future<Long> reader = executorService.submit(() -> read(bufferQueue, readerStarted));
+        boolean endTaken = false;
+        try {
+            BufferQueue.Chunk chunk;
+            while ((chunk = bufferQueue.take()) != BufferQueue.END) {
+                targetOutputStream.write(chunk.getBuffer(), 0, chunk.getLength());
+                bufferQueue.release(chunk.getBuffer());
+            }
+            endTaken = true;
+            final long totalRead = reader.get();
+            targetOutputStream.flush();
+            return totalRead;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for read stage");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Read stage failed - ".concat(String.valueOf(e.getCause())), e.getCause());
+        } finally {
+            reader.cancel(true);
+            //A reader which has started puts the end once it has stopped, buffers it puts until then are released
+            if (!readerStarted.compareAndSet(false, true) && !endTaken) {
+                bufferQueue.drainToEnd();
+            }
+            bufferQueue.clear();
+        }
+    }
+
+    private long read(final BufferQueue bufferQueue, final AtomicBoolean readerStarted) throws IOException, InterruptedException {
+        if (!readerStarted.compareAndSet(false, true)) {
+            //Stream has already failed
+            return 0;
+        }
+        try {
+            long totalRead = 0;
+            while (true) {
+                final byte[] buffer = bufferQueue.acquire();
+                final int bytesRead = sourceInputStream.read(buffer);
+                if (bytesRead <= 0) {
+                    bufferQueue.release(buffer);
+                    return totalRead;
+                }
+                totalRead += bytesRead;
+                bufferQueue.put(buffer, bytesRead);
+            }
+        } finally {
+            bufferQueue.putEnd();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sourceInputStream.close();
+        targetOutputStream.close();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs reading and every stage boundary on its own thread. Stages are connected by bounded
+ * queues of {@code noOfBuffers} buffers of {@code bufferSize} bytes each.
+ */
+public class PipelinedStreamFactory implements PipelineStreamFactory {
+
+    private final int bufferSize;
+    private final int noOfBuffers;
+    private final ExecutorService executorService;
+
+    public PipelinedStreamFactory(final int bufferSize, final int noOfBuffers) {
+        this(bufferSize, noOfBuffers, "pipeline-stage-");
+    }
+
+    public PipelinedStreamFactory(final int bufferSize, final int noOfBuffers, final String threadNamePrefix) {
+        this.bufferSize = bufferSize;
+        this.noOfBuffers = noOfBuffers;
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executorService = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, threadNamePrefix.concat(String.valueOf(threadCount.incrementAndGet())));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public PipelineStream newPipelineStream(final InputStream sourceInputStream, final OutputStream targetOutputStream) {
+        return new PipelinedStream(sourceInputStream, targetOutputStream, bufferSize, noOfBuffers, executorService);
+    }
+
+    @Override
+    public OutputStream newStage(final OutputStream targetOutputStream) {
+        return new AsyncOutputStream(targetOutputStream, bufferSize, noOfBuffers, executorService);
+    }
+
+    @Override
+    public InputStream newInputStage(final InputStream sourceInputStream) {
+        return new AsyncInputStream(sourceInputStream, bufferSize, noOfBuffers, executorService);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.verify;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.pipeline.CryptographyPipeline;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Verifies discovered .gpg files into a report. Failed verifications are recorded rather than
+ * thrown, so one bad file doesn't stop the verification of the others.
+ */
+public class VerificationPipeline implements CryptographyPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VerificationPipeline.class);
+
+    private final Verifier verifier;
+    private final VerificationReport verificationReport;
+    private final boolean verifyPlaintext;
+
+    public VerificationPipeline(final Verifier verifier, final VerificationReport verificationReport, final boolean verifyPlaintext) {
+        this.verifier = verifier;
+        this.verificationReport = verificationReport;
+        this.verifyPlaintext = verifyPlaintext;
+    }
+
+    @Override
+    public void process(final FileToProcess fileToProcess) {
+        LOGGER.debug("filePathToVerify={}", fileToProcess);
+        try {
+            verificationReport.record(verifier.verify(fileToProcess.getFileToEncryptPath(), verifyPlaintext));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write verification report", e);
+        }
+    }
+}
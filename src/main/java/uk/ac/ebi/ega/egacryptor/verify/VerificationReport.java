@@ -0,0 +1,93 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.verify;
+
+import uk.ac.ebi.ega.egacryptor.constant.VerificationStatus;
+import uk.ac.ebi.ega.egacryptor.journal.Journal;
+import uk.ac.ebi.ega.egacryptor.model.VerificationResult;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tab separated report with one line per verified digest. Columns are status, path of the file
+ * the digest is of, digest algorithm, expected digest, calculated digest & message.
+ */
+public class VerificationReport implements Closeable {
+
+    public static final String HEADER = "#status\tfile\talgorithm\texpected\tactual\tmessage";
+
+    private final BufferedWriter bufferedWriter;
+    private final Map<VerificationStatus, Integer> noOfResults = new EnumMap<>(VerificationStatus.class);
+
+    private VerificationReport(final BufferedWriter bufferedWriter) {
+        this.bufferedWriter = bufferedWriter;
+    }
+
+    public static VerificationReport create(final Path reportFilePath) throws IOException {
+        final VerificationReport verificationReport = new VerificationReport(Files.newBufferedWriter(reportFilePath,
+                StandardCharsets.UTF_8));
+        verificationReport.bufferedWriter.write(HEADER.concat("\n"));
+        return verificationReport;
+    }
+
+    public synchronized void record(final List<VerificationResult> verificationResults) throws IOException {
+        for (final VerificationResult verificationResult : verificationResults) {
+            final String[] columns = {
+                    verificationResult.getVerificationStatus().name(),
+                    verificationResult.getFilePath().toString(),
+                    verificationResult.getDigestAlgorithm() == null ? "" : verificationResult.getDigestAlgorithm().name(),
+                    String.valueOf(verificationResult.getExpectedDigest()),
+                    String.valueOf(verificationResult.getActualDigest()),
+                    String.valueOf(verificationResult.getMessage())};
+            bufferedWriter.write(String.join("\t", escape(columns)).concat("\n"));
+            noOfResults.merge(verificationResult.getVerificationStatus(), 1, Integer::sum);
+        }
+        bufferedWriter.flush();
+    }
+
+    public synchronized int getNoOfResults(final VerificationStatus verificationStatus) {
+        return noOfResults.getOrDefault(verificationStatus, 0);
+    }
+
+    /**
+     * @return true if every recorded digest has passed.
+     */
+    public synchronized boolean isPassed() {
+        return noOfResults.keySet().stream().allMatch(VerificationStatus::isPassed);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        bufferedWriter.close();
+    }
+
+    private static String[] escape(final String[] columns) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Journal.escape(columns[i]);
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.verify;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.VerificationStatus;
+import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculator;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculatorFactory;
+import uk.ac.ebi.ega.egacryptor.cryptography.util.FileUtils;
+import uk.ac.ebi.ega.egacryptor.exception.CryptographyException;
+import uk.ac.ebi.ega.egacryptor.model.VerificationResult;
+import uk.ac.ebi.ega.egacryptor.stream.digest.DigestCalculatorInputStream;
+import uk.ac.ebi.ega.egacryptor.stream.nio.InputStreamFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static uk.ac.ebi.ega.egacryptor.constant.FileExtensionType.GPG;
+
+/**
+ * Re-calculates digests of a .gpg file & compares them with its digest files. Optionally decrypts
+ * the file in memory & compares the digests of the plaintext with the digest files of the original
+ * file. The .gpg file is read once in both cases & plaintext is never written to disk. Digest files
+ * of the configured algorithms which are missing, of either the .gpg or the original file, are reported
+ * as missing, whether the plaintext is verified or not.
+ */
+public class Verifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Verifier.class);
+
+    private final Cryptography cryptography;
+    private final InputStreamFactory inputStreamFactory;
+    private final DigestCalculatorFactory digestCalculatorFactory;
+    private final Supplier<char[]> passphraseSupplier;
+    private final int bufferSize;
+
+    public Verifier(final Cryptography cryptography, final InputStreamFactory inputStreamFactory,
+                    final DigestCalculatorFactory digestCalculatorFactory, final Supplier<char[]> passphraseSupplier,
+                    final int bufferSize) {
+        this.cryptography = cryptography;
+        this.inputStreamFactory = inputStreamFactory;
+        this.digestCalculatorFactory = digestCalculatorFactory;
+        this.passphraseSupplier = passphraseSupplier;
+        this.bufferSize = bufferSize;
+    }
+
+    public List<VerificationResult> verify(final Path filePathGPG, final boolean verifyPlaintext) {
+        final String fileNameGPG = filePathGPG.getFileName().toString();
+        final Path originalFilePath = filePathGPG.resolveSibling(fileNameGPG.substring(0, fileNameGPG.length() -
+                GPG.getFileExtension().length()));
+        try {
+            final Map<DigestAlgorithm, String> expectedDigests = readDigests(filePathGPG);
+            final Map<DigestAlgorithm, String> originalDigests = readDigests(originalFilePath);
+            final Map<DigestAlgorithm, String> expectedPlaintextDigests = verifyPlaintext ? originalDigests : Collections.emptyMap();
+            final List<VerificationResult> verificationResults = new ArrayList<>();
+            addMissingDigests(filePathGPG, expectedDigests, verificationResults);
+            addMissingDigests(originalFilePath, originalDigests, verificationResults);
+            if (expectedDigests.isEmpty() && expectedPlaintextDigests.isEmpty()) {
+                return verificationResults.isEmpty() ? Collections.singletonList(new VerificationResult(VerificationStatus.MISSING,
+                        filePathGPG, null, "", "", "No digest file found")) : verificationResults;
+            }
+
+            try (final DigestCalculator digestCalculator = newDigestCalculator(expectedDigests);
+                 final DigestCalculator plaintextDigestCalculator = newDigestCalculator(expectedPlaintextDigests)) {
+                InputStream inputStream = inputStreamFactory.newInputStream(filePathGPG);
+                if (digestCalculator != null) {
+                    inputStream = new DigestCalculatorInputStream(inputStream, digestCalculator);
+                }
+                if (verifyPlaintext) {
+                    inputStream = decrypt(inputStream);
+                    if (plaintextDigestCalculator != null) {
+                        inputStream = new DigestCalculatorInputStream(inputStream, plaintextDigestCalculator);
+                    }
+                }
+                try (final InputStream streamToDrain = inputStream) {
+                    drain(streamToDrain);
+                }
+                if (digestCalculator != null) {
+                    compare(filePathGPG, expectedDigests, digestCalculator.digest(), verificationResults);
+                }
+                if (plaintextDigestCalculator != null) {
+                    compare(originalFilePath, expectedPlaintextDigests, plaintextDigestCalculator.digest(), verificationResults);
+                }
+            }
+            return verificationResults;
+        } catch (IOException | UncheckedIOException | CryptographyException e) {
+            LOGGER.error("Error while verifying file {} - {}", filePathGPG, e.getMessage());
+            return Collections.singletonList(new VerificationResult(VerificationStatus.ERROR, filePathGPG, null, "", "",
+                    String.valueOf(e.getMessage())));
+        }
+    }
+
+    private InputStream decrypt(final InputStream inputStream) throws IOException, CryptographyException {
+        try {
+            return cryptography.decrypt(inputStream, passphraseSupplier);
+        } catch (CryptographyException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    private void drain(final InputStream inputStream) throws IOException {
+        final byte[] buffer = new byte[bufferSize];
+        while (inputStream.read(buffer) != -1) {
+            //Digests are calculated while reading
+        }
+    }
+
+    private DigestCalculator newDigestCalculator(final Map<DigestAlgorithm, String> expectedDigests) {
+        return expectedDigests.isEmpty() ? null : digestCalculatorFactory.newDigestCalculator(new ArrayList<>(expectedDigests.keySet()));
+    }
+
+    private void addMissingDigests(final Path filePath, final Map<DigestAlgorithm, String> digests,
+                                   final List<VerificationResult> verificationResults) {
+        for (final DigestAlgorithm digestAlgorithm : digestCalculatorFactory.getDigestAlgorithms()) {
+            if (!digests.containsKey(digestAlgorithm)) {
+                verificationResults.add(new VerificationResult(VerificationStatus.MISSING, filePath, digestAlgorithm, "", "",
+                        "Digest file " + toDigestFilePath(filePath, digestAlgorithm).getFileName() + " not found"));
+            }
+        }
+    }
+
+    private void compare(final Path filePath, final Map<DigestAlgorithm, String> expectedDigests,
+                         final Map<DigestAlgorithm, String> actualDigests, final List<VerificationResult> verificationResults) {
+        for (final Map.Entry<DigestAlgorithm, String> expectedDigest : expectedDigests.entrySet()) {
+            final String actualDigest = actualDigests.get(expectedDigest.getKey());
+            final boolean passed = expectedDigest.getValue().equals(actualDigest);
+            verificationResults.add(new VerificationResult(passed ? VerificationStatus.PASS : VerificationStatus.FAIL, filePath,
+                    expectedDigest.getKey(), expectedDigest.getValue(), actualDigest, passed ? "" : "Digest mismatch"));
+        }
+    }
+
+    /**
+     * @return Digests read from the digest files of given file, by algorithm.
+     */
+    private Map<DigestAlgorithm, String> readDigests(final Path filePath) throws IOException {
+        final Map<DigestAlgorithm, String> digests = new EnumMap<>(DigestAlgorithm.class);
+        for (final DigestAlgorithm digestAlgorithm : DigestAlgorithm.values()) {
+            final Path digestFilePath = toDigestFilePath(filePath, digestAlgorithm);
+            if (Files.exists(digestFilePath)) {
+                digests.put(digestAlgorithm, FileUtils.readDigest(digestFilePath));
+            }
+        }
+        return digests;
+    }
+
+    private static Path toDigestFilePath(final Path filePath, final DigestAlgorithm digestAlgorithm) {
+        return filePath.resolveSibling(filePath.getFileName().toString().concat(digestAlgorithm.getFileExtension()));
+    }
+}
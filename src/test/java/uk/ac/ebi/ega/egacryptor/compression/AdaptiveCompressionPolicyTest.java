@@ -0,0 +1,91 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.compression;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveCompressionPolicyTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final CompressionPolicy compressionPolicy = new AdaptiveCompressionPolicy(
+            new FixedCompressionPolicy(CompressionDecision.DEFAULT), CompressionAlgorithm.NONE,
+            Collections.singletonList("bam"), 2, 4096, 0.95);
+
+    @After
+    public void cleanTestEnvironment() {
+        temporaryFolder.delete();
+    }
+
+    @Test
+    public void decide_WhenGivenCompressibleFile_ThenReturnsDelegateAlgorithm() throws IOException {
+        final byte[] content = new byte[20_000];
+        final Random random = new Random(3);
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ("ACGT\n".charAt(random.nextInt(5)));
+        }
+
+        final CompressionDecision compressionDecision = compressionPolicy.decide(newFileToProcess("reads.fastq", content));
+
+        assertEquals(CompressionAlgorithm.ZIP, compressionDecision.getCompressionAlgorithm());
+        assertTrue(compressionDecision.getSampledRatio() < 0.95);
+    }
+
+    @Test
+    public void decide_WhenGivenIncompressibleFile_ThenReturnsIncompressibleAlgorithm() throws IOException {
+        final byte[] content = new byte[20_000];
+        new Random(5).nextBytes(content);
+
+        final CompressionDecision compressionDecision = compressionPolicy.decide(newFileToProcess("reads.fastq.gz", content));
+
+        assertEquals(CompressionAlgorithm.NONE, compressionDecision.getCompressionAlgorithm());
+        assertTrue(compressionDecision.getSampledRatio() >= 0.95);
+    }
+
+    @Test
+    public void decide_WhenGivenListedExtension_ThenSkipsSampling() throws IOException {
+        final CompressionDecision compressionDecision = compressionPolicy.decide(newFileToProcess("sample.BAM", "text".getBytes()));
+
+        assertEquals(CompressionAlgorithm.NONE, compressionDecision.getCompressionAlgorithm());
+        assertTrue(Double.isNaN(compressionDecision.getSampledRatio()));
+    }
+
+    private FileToProcess newFileToProcess(final String fileName, final byte[] content) throws IOException {
+        final File file = temporaryFolder.newFile(fileName);
+        try (final FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+            fileOutputStream.write(content);
+        }
+        return new FileToProcess(file.toPath());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.digest;
+
+import org.junit.Test;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelinedStreamFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DigestCalculatorTest {
+
+    @Test
+    public void digest_WhenUpdatedInParts_ThenReturnsDigestOfWholeInputPerAlgorithm() {
+        final byte[] input = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+        final DigestCalculator digestCalculator = new MultiDigestCalculator(Arrays.asList(DigestAlgorithm.MD5,
+                DigestAlgorithm.SHA1, DigestAlgorithm.SHA256));
+
+        digestCalculator.update(input, 0, 10);
+        digestCalculator.update(input, 10, input.length - 10);
+        final Map<DigestAlgorithm, String> digests = digestCalculator.digest();
+
+        assertEquals(Arrays.asList(DigestAlgorithm.MD5, DigestAlgorithm.SHA1, DigestAlgorithm.SHA256),
+                Arrays.asList(digests.keySet().toArray()));
+        assertEquals("9e107d9d372bb6826bd81d3542a419d6", digests.get(DigestAlgorithm.MD5));
+        assertEquals("2fd4e1c67a2d28fced849ee1bb76e7391b93eb12", digests.get(DigestAlgorithm.SHA1));
+        assertEquals("d7a8fbb307d7809469ca9abcb0082e4f8d5651e46d3cdb762d02d0bf37c9e592", digests.get(DigestAlgorithm.SHA256));
+    }
+
+    @Test
+    public void digest_WhenCalculatedAsync_ThenReturnsSameDigestsAsInline() {
+        final byte[] input = new byte[100_000];
+        new Random(42).nextBytes(input);
+        final List<DigestAlgorithm> digestAlgorithms = Arrays.asList(DigestAlgorithm.MD5, DigestAlgorithm.SHA256);
+        final DigestCalculatorFactory digestCalculatorFactory = new DigestCalculatorFactory(digestAlgorithms,
+                new PipelinedStreamFactory(1024, 2, "digest-"));
+
+        final Map<DigestAlgorithm, String> digests;
+        try (final DigestCalculator digestCalculator = digestCalculatorFactory.newDigestCalculator()) {
+            for (int off = 0; off < input.length; off += 3000) {
+                digestCalculator.update(input, off, Math.min(3000, input.length - off));
+            }
+            digests = digestCalculator.digest();
+        }
+
+        final DigestCalculator inlineDigestCalculator = new MultiDigestCalculator(digestAlgorithms);
+        inlineDigestCalculator.update(input, 0, input.length);
+        assertEquals(inlineDigestCalculator.digest(), digests);
+    }
+}
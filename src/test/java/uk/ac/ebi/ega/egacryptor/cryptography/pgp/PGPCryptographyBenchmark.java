@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.pgp;
+
+import org.springframework.core.io.ClassPathResource;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.SymmetricCipher;
+import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.stream.pgp.ParallelDeflater;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.DefaultStreamFactory;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time & heap allocated per file for encryption of 64 KiB files with a buffer size of
+ * 1 MiB, with buffers allocated per file & taken from a {@link BufferPool}.
+ * Not run as part of the tests, run main with the test classpath.
+ */
+public class PGPCryptographyBenchmark {
+
+    private static final int NO_OF_FILES = 2_000;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final byte[] FILE_CONTENT = new byte[64 * 1024];
+    private static final CompressionDecision COMPRESSION_DECISION = new CompressionDecision(CompressionAlgorithm.UNCOMPRESSED,
+            -1, "benchmark", Double.NaN);
+
+    public static void main(final String[] args) throws Exception {
+        final BufferPool allocatingBufferPool = new BufferPool(BUFFER_SIZE, 0);
+        final BufferPool pooledBufferPool = new BufferPool(BUFFER_SIZE, 8);
+        final Cryptography allocatingCryptography = newCryptography(allocatingBufferPool);
+        final Cryptography pooledCryptography = newCryptography(pooledBufferPool);
+
+        //Warm up both before measuring
+        run(allocatingCryptography, allocatingBufferPool, NO_OF_FILES / 4);
+        run(pooledCryptography, pooledBufferPool, NO_OF_FILES / 4);
+        System.out.println("Allocated per file: " + run(allocatingCryptography, allocatingBufferPool, NO_OF_FILES));
+        System.out.println("Pooled:             " + run(pooledCryptography, pooledBufferPool, NO_OF_FILES));
+    }
+
+    private static Cryptography newCryptography(final BufferPool bufferPool) throws Exception {
+        try (final InputStream inputStream = new ClassPathResource("test-pubring.gpg").getInputStream()) {
+            return new PGPCryptography(inputStream, bufferPool, new DefaultStreamFactory(bufferPool),
+                    new ParallelDeflater(1, BUFFER_SIZE), SymmetricCipher.AES_128, PGPUtils.AUTO_PROVIDER, null);
+        }
+    }
+
+    private static String run(final Cryptography cryptography, final BufferPool bufferPool, final int noOfFiles) throws Exception {
+        final DefaultStreamFactory defaultStreamFactory = new DefaultStreamFactory(bufferPool);
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long startAllocatedBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < noOfFiles; i++) {
+            final OutputStream encryptedOutputStream = cryptography.encrypt(new NullOutputStream(), COMPRESSION_DECISION);
+            try (final PipelineStream pipelineStream = defaultStreamFactory.newPipelineStream(
+                    new ByteArrayInputStream(FILE_CONTENT), encryptedOutputStream)) {
+                pipelineStream.execute();
+            }
+        }
+        final long elapsedNanos = System.nanoTime() - startTime;
+        final long allocatedBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - startAllocatedBytes;
+        return String.format("%.1f us/file, %d KiB allocated/file, %.1f MiB/s allocation rate",
+                elapsedNanos / (double) TimeUnit.MICROSECONDS.toNanos(noOfFiles), allocatedBytes / noOfFiles / 1024,
+                allocatedBytes / (1024.0 * 1024.0) / (elapsedNanos / 1e9));
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(final int b) {
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int off, final int len) {
+        }
+    }
+}
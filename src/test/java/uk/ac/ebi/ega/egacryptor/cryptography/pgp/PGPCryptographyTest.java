@@ -25,17 +25,33 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.test.context.junit4.SpringRunner;
 import uk.ac.ebi.ega.egacryptor.configuration.EgaCryptorConfiguration;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.SymmetricCipher;
 import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
 import uk.ac.ebi.ega.egacryptor.exception.CryptographyException;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.stream.pgp.ParallelDeflater;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.DefaultStreamFactory;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelineStreamFactory;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.PipelinedStreamFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertNotNull;
 import static uk.ac.ebi.ega.egacryptor.cryptography.util.FileUtils.newEmptyPath;
 
@@ -65,6 +81,22 @@ public class PGPCryptographyTest {
         }
     }
 
+    @Test
+    public void encrypt_WhenGivenAESCipherWithAutoProvider_ThenReturnsPGPOutputStream() throws Exception {
+        final Cryptography aesCryptography;
+        try (final InputStream publicKeyInputStream = new ClassPathResource("pubring.gpg").getInputStream()) {
+            aesCryptography = new PGPCryptography(publicKeyInputStream, new BufferPool(256, 0), new DefaultStreamFactory(256),
+                    new ParallelDeflater(1, 256), SymmetricCipher.AES_256, PGPUtils.AUTO_PROVIDER, null);
+        }
+        final File outputFolder = temporaryFolder.newFolder("path", "to", "process", "files");
+        final File createdFile = new File(outputFolder, "fileToProcess.txt.gpg");
+        try (final OutputStream outputStream = new FileOutputStream(createdFile);
+             final OutputStream pgpOutputStream = aesCryptography.encrypt(outputStream)) {
+            assertNotNull(pgpOutputStream);
+            pgpOutputStream.write("File to encrypt".getBytes());
+        }
+    }
+
     @Test(expected = FileNotFoundException.class)
     public void encrypt_WhenGivenInvalidOutputStream_ThenThrowsException() throws IOException, CryptographyException {
         try (final OutputStream outputStream = new FileOutputStream(newEmptyPath().toFile());
@@ -72,4 +104,99 @@ public class PGPCryptographyTest {
             assertNotNull(pgpOutputStream);
         }
     }
+
+    @Test
+    public void decrypt_WhenGivenEncryptedData_ThenReturnsOriginalData() throws Exception {
+        final byte[] input = new byte[100_000];
+        new Random(42).nextBytes(input);
+        Arrays.fill(input, 50_000, 100_000, (byte) 'A');
+
+        for (final PipelineStreamFactory pipelineStreamFactory : Arrays.asList(new DefaultStreamFactory(256),
+                new PipelinedStreamFactory(1024, 2))) {
+            final Cryptography testCryptography = newTestCryptography(pipelineStreamFactory, new ParallelDeflater(1, 256),
+                    SymmetricCipher.AES_256);
+            for (final CompressionAlgorithm compressionAlgorithm : CompressionAlgorithm.values()) {
+                final byte[] encrypted = encrypt(testCryptography, input, compressionAlgorithm);
+                assertArrayEquals(compressionAlgorithm.name(), input, decrypt(testCryptography, encrypted));
+            }
+        }
+    }
+
+    @Test
+    public void decrypt_WhenEncryptedWithParallelDeflate_ThenReturnsOriginalData() throws Exception {
+        final byte[] input = new byte[100_000];
+        new Random(42).nextBytes(input);
+        Arrays.fill(input, 50_000, 100_000, (byte) 'A');
+
+        //Blocks of 256 bytes are deflated on 4 threads & written as one compressed data packet
+        final Cryptography testCryptography = newTestCryptography(new DefaultStreamFactory(256), new ParallelDeflater(4, 256),
+                SymmetricCipher.AES_256);
+        for (final CompressionAlgorithm compressionAlgorithm : CompressionAlgorithm.values()) {
+            final byte[] encrypted = encrypt(testCryptography, input, compressionAlgorithm);
+            assertArrayEquals(compressionAlgorithm.name(), input, decrypt(testCryptography, encrypted));
+        }
+        assertArrayEquals(new byte[0], decrypt(testCryptography, encrypt(testCryptography, new byte[0], CompressionAlgorithm.ZIP)));
+    }
+
+    @Test(expected = IOException.class)
+    public void decrypt_WhenEncryptedDataIsModified_ThenThrowsException() throws Exception {
+        final Cryptography testCryptography = newTestCryptography(new DefaultStreamFactory(256), new ParallelDeflater(1, 256),
+                SymmetricCipher.CAST5);
+        final byte[] encrypted = encrypt(testCryptography, new byte[10_000], CompressionAlgorithm.NONE);
+        encrypted[encrypted.length - 100] ^= 1;
+        decrypt(testCryptography, encrypted);
+    }
+
+    @Test(expected = CryptographyException.class)
+    public void decrypt_WhenKeyIsCachedAndPassphraseIsWrong_ThenThrowsException() throws Exception {
+        final Cryptography testCryptography = newTestCryptography(new DefaultStreamFactory(256), new ParallelDeflater(1, 256),
+                SymmetricCipher.CAST5);
+        final byte[] encrypted = encrypt(testCryptography, new byte[10_000], CompressionAlgorithm.NONE);
+        final Supplier<char[]> passphraseSupplier = "test"::toCharArray;
+        assertArrayEquals(new byte[10_000], decrypt(testCryptography, encrypted, passphraseSupplier));
+        //Key is cached for the supplier instance
+        assertArrayEquals(new byte[10_000], decrypt(testCryptography, encrypted, passphraseSupplier));
+        decrypt(testCryptography, encrypted, "wrong"::toCharArray);
+    }
+
+    private Cryptography newTestCryptography(final PipelineStreamFactory pipelineStreamFactory, final ParallelDeflater parallelDeflater,
+                                             final SymmetricCipher symmetricCipher) throws Exception {
+        try (final InputStream publicKeyInputStream = new ClassPathResource("test-pubring.gpg").getInputStream();
+             final InputStream secretKeyInputStream = new ClassPathResource("test-secring.gpg").getInputStream()) {
+            return new PGPCryptography(publicKeyInputStream, new BufferPool(256, 0), pipelineStreamFactory, parallelDeflater,
+                    symmetricCipher, PGPUtils.AUTO_PROVIDER, secretKeyInputStream);
+        }
+    }
+
+    private byte[] encrypt(final Cryptography testCryptography, final byte[] input,
+                           final CompressionAlgorithm compressionAlgorithm) throws Exception {
+        final ByteArrayOutputStream encryptedOutputStream = new ByteArrayOutputStream();
+        try (final OutputStream pgpOutputStream = testCryptography.encrypt(encryptedOutputStream,
+                new CompressionDecision(compressionAlgorithm, -1, "test", Double.NaN))) {
+            pgpOutputStream.write(input);
+        }
+        return encryptedOutputStream.toByteArray();
+    }
+
+    private byte[] decrypt(final Cryptography testCryptography, final byte[] encrypted) throws Exception {
+        return decrypt(testCryptography, encrypted, "test");
+    }
+
+    private byte[] decrypt(final Cryptography testCryptography, final byte[] encrypted, final String password) throws Exception {
+        return decrypt(testCryptography, encrypted, password::toCharArray);
+    }
+
+    private byte[] decrypt(final Cryptography testCryptography, final byte[] encrypted,
+                           final Supplier<char[]> passphraseSupplier) throws Exception {
+        final ByteArrayOutputStream decryptedOutputStream = new ByteArrayOutputStream();
+        try (final InputStream pgpInputStream = testCryptography.decrypt(new ByteArrayInputStream(encrypted),
+                passphraseSupplier)) {
+            final byte[] buffer = new byte[1000];
+            int bytesRead;
+            while ((bytesRead = pgpInputStream.read(buffer)) != -1) {
+                decryptedOutputStream.write(buffer, 0, bytesRead);
+            }
+        }
+        return decryptedOutputStream.toByteArray();
+    }
 }
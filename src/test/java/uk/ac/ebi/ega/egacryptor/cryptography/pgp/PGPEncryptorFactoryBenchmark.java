@@ -0,0 +1,89 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.cryptography.pgp;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openpgp.PGPEncryptedDataGenerator;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.springframework.core.io.ClassPathResource;
+import uk.ac.ebi.ega.egacryptor.constant.SymmetricCipher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Provider;
+import java.security.Security;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures per file overhead of encryption setup, with the generator built per file as before &
+ * with the shared {@link PGPEncryptorFactory}. Each file is 1 KiB so setup dominates.
+ * Not run as part of the tests, run main with the test classpath.
+ */
+public class PGPEncryptorFactoryBenchmark {
+
+    private static final int NO_OF_FILES = 20_000;
+    private static final byte[] FILE_CONTENT = new byte[1024];
+
+    public static void main(final String[] args) throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        final PGPPublicKey pgpPublicKey;
+        try (final InputStream inputStream = new ClassPathResource("test-pubring.gpg").getInputStream()) {
+            pgpPublicKey = PGPUtils.readPublicKey(inputStream);
+        }
+        final SymmetricCipher symmetricCipher = SymmetricCipher.AES_256;
+        final Provider dataEncryptionProvider = PGPUtils.getDataEncryptionProvider(PGPUtils.AUTO_PROVIDER, symmetricCipher);
+        final PGPEncryptorFactory pgpEncryptorFactory = new PGPEncryptorFactory(pgpPublicKey, symmetricCipher.getAlgorithmTag(),
+                Security.getProvider(BouncyCastleProvider.PROVIDER_NAME), dataEncryptionProvider);
+
+        final Callable<PGPEncryptedDataGenerator> perFileSetup = () -> PGPUtils.getEncryptedGenerator(pgpPublicKey,
+                symmetricCipher.getAlgorithmTag(), dataEncryptionProvider);
+        final Callable<PGPEncryptedDataGenerator> sharedSetup = pgpEncryptorFactory::newEncryptedDataGenerator;
+
+        //Warm up both paths before measuring
+        run(perFileSetup, NO_OF_FILES / 4);
+        run(sharedSetup, NO_OF_FILES / 4);
+        System.out.printf("Per file setup: %.1f us/file%n", run(perFileSetup, NO_OF_FILES));
+        System.out.printf("Shared setup:   %.1f us/file%n", run(sharedSetup, NO_OF_FILES));
+    }
+
+    /**
+     * @return Average microseconds per file.
+     */
+    private static double run(final Callable<PGPEncryptedDataGenerator> generatorSupplier, final int noOfFiles) throws Exception {
+        final byte[] buffer = new byte[8192];
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < noOfFiles; i++) {
+            try (final OutputStream outputStream = generatorSupplier.call().open(new NullOutputStream(), buffer)) {
+                outputStream.write(FILE_CONTENT);
+            }
+        }
+        return (System.nanoTime() - startTime) / (double) TimeUnit.MICROSECONDS.toNanos(noOfFiles);
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(final int b) {
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int off, final int len) throws IOException {
+        }
+    }
+}
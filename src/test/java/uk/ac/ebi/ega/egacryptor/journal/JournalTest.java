@@ -0,0 +1,93 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.journal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.model.ProcessingResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void read_WhenFilesCommittedOrFailed_ThenResumesFilesNotCommitted() throws IOException {
+        final Path outputFolderPath = temporaryFolder.getRoot().toPath();
+        final FileToProcess committedFile = new FileToProcess(outputFolderPath.resolve("committed.txt"), outputFolderPath);
+        final FileToProcess failedFile = new FileToProcess(outputFolderPath.resolve("failed\tfile.txt"), outputFolderPath);
+        final FileToProcess queuedFile = new FileToProcess(outputFolderPath.resolve("queued.txt"), outputFolderPath);
+
+        try (final Journal journal = Journal.open(outputFolderPath)) {
+            for (final FileToProcess fileToProcess : Arrays.asList(committedFile, failedFile, queuedFile)) {
+                journal.queued(fileToProcess);
+            }
+            journal.discovered(3);
+            journal.onStarted(committedFile);
+            journal.onCommitted(committedFile, new ProcessingResult(10, 20,
+                    Collections.singletonMap(DigestAlgorithm.MD5, "a"), Collections.singletonMap(DigestAlgorithm.MD5, "b"),
+                    CompressionDecision.DEFAULT, 1));
+            journal.onStarted(failedFile);
+            journal.onFailed(failedFile, new IOException("Disk\nfull"));
+        }
+
+        final JournalState journalState = Journal.read(outputFolderPath);
+
+        assertTrue(journalState.isDiscoveryComplete());
+        assertEquals(3, journalState.getNoOfFiles());
+        assertEquals(2, journalState.getFilesToResume().size());
+        assertEquals(failedFile.getFileToEncryptPath(), journalState.getFilesToResume().get(0).getFileToEncryptPath());
+        assertEquals(queuedFile.getFileToEncryptPath(), journalState.getFilesToResume().get(1).getFileToEncryptPath());
+    }
+
+    @Test
+    public void read_WhenDiscoveryAndLastRecordCutShort_ThenIgnoresIncompleteRecords() throws IOException {
+        final Path outputFolderPath = temporaryFolder.getRoot().toPath();
+        final FileToProcess fileToProcess = new FileToProcess(outputFolderPath.resolve("file.txt"), outputFolderPath);
+
+        try (final Journal journal = Journal.open(outputFolderPath)) {
+            journal.queued(fileToProcess);
+            journal.discovered(1);
+        }
+        //Simulates a crash while queueing files of a second run
+        Files.write(outputFolderPath.resolve(Journal.JOURNAL_FILE_NAME),
+                "1\tQUEUED\t/other.txt\t/out\t\t\t\t\t\n1\tCOMMITTED\t/other.txt".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        final JournalState journalState = Journal.read(outputFolderPath);
+
+        assertFalse(journalState.isDiscoveryComplete());
+        assertEquals(2, journalState.getFilesToResume().size());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.metrics;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressReporterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void getEtaSeconds_WhenDiscoveryIsComplete_ThenDividesRemainingBytesByAverageThroughput() throws IOException {
+        final ThroughputMeter readMeter = new ThroughputMeter();
+        final ProgressMonitor progressMonitor = new ProgressMonitor(readMeter);
+        final ProgressReporter progressReporter = new ProgressReporter(progressMonitor, 0, null);
+        progressMonitor.queued(newFileToProcess("first.bam", 1000));
+        final FileToProcess skippedFile = newFileToProcess("skipped.bam", 500);
+        progressMonitor.queued(skippedFile);
+        progressMonitor.onSkipped(skippedFile);
+        readMeter.add(250);
+
+        assertEquals(-1, progressReporter.getEtaSeconds(TimeUnit.SECONDS.toNanos(10)));
+
+        progressMonitor.discoveryCompleted();
+
+        //750 bytes left at 25 bytes per second
+        assertEquals(750, progressMonitor.getNoOfBytesRemaining());
+        assertEquals(30, progressReporter.getEtaSeconds(TimeUnit.SECONDS.toNanos(10)));
+    }
+
+    @Test
+    public void writeStatus_WhenFilesAreProcessed_ThenWritesCountersAndEta() throws IOException {
+        final ThroughputMeter readMeter = new ThroughputMeter();
+        final ProgressMonitor progressMonitor = new ProgressMonitor(readMeter);
+        final ProgressReporter progressReporter = new ProgressReporter(progressMonitor, 0, null);
+        final FileToProcess committedFile = newFileToProcess("committed.bam", 100);
+        final FileToProcess failedFile = newFileToProcess("failed.bam", 300);
+        progressMonitor.queued(committedFile);
+        progressMonitor.queued(failedFile);
+        progressMonitor.discoveryCompleted();
+        readMeter.add(100);
+        progressMonitor.getWriteMeter().add(120);
+        progressMonitor.onCommitted(committedFile, null);
+        progressMonitor.onFailed(failedFile, new IOException("failed"));
+
+        final StringWriter status = new StringWriter();
+        progressReporter.writeStatus(status, "completed", TimeUnit.SECONDS.toNanos(1), 0);
+
+        assertTrue(status.toString().contains("\"state\": \"completed\""));
+        assertTrue(status.toString().contains("\"filesExpected\": 2,"));
+        assertTrue(status.toString().contains("\"filesCommitted\": 1,"));
+        assertTrue(status.toString().contains("\"filesFailed\": 1,"));
+        assertTrue(status.toString().contains("\"bytesWritten\": 120,"));
+        assertTrue(status.toString().contains("\"bytesRemaining\": 0,"));
+        assertTrue(status.toString().contains("\"etaSeconds\": 0\n"));
+        assertEquals("1:01:05", ProgressReporter.formatDuration(3665));
+    }
+
+    private FileToProcess newFileToProcess(final String fileName, final int size) throws IOException {
+        final File file = temporaryFolder.newFile(fileName);
+        Files.write(file.toPath(), new byte[size]);
+        return new FileToProcess(file.toPath());
+    }
+}
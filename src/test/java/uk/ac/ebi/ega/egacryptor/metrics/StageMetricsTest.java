@@ -0,0 +1,67 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.metrics;
+
+import org.junit.Test;
+import uk.ac.ebi.ega.egacryptor.constant.Stage;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StageMetricsTest {
+
+    @Test
+    public void add_WhenStagesAreTimed_ThenReportsSlowestStageAndCumulativeBuckets() throws IOException {
+        final StageMetrics stageMetrics = new StageMetrics(true);
+        final StageTimer firstStageTimer = stageMetrics.newStageTimer();
+        firstStageTimer.record(Stage.READ, TimeUnit.MILLISECONDS.toNanos(1), 100);
+        firstStageTimer.record(Stage.COMPRESS, TimeUnit.MILLISECONDS.toNanos(30), 100);
+        //Time of the next stage written to on the same thread
+        firstStageTimer.subtract(Stage.COMPRESS, TimeUnit.MILLISECONDS.toNanos(10));
+        final StageTimer secondStageTimer = stageMetrics.newStageTimer();
+        secondStageTimer.record(Stage.READ, TimeUnit.MILLISECONDS.toNanos(3), 200);
+        stageMetrics.add("first", firstStageTimer);
+        stageMetrics.add("second", secondStageTimer);
+
+        assertEquals(Stage.COMPRESS, stageMetrics.getSlowestStage());
+
+        final StringWriter prometheus = new StringWriter();
+        stageMetrics.writePrometheus(prometheus);
+        assertTrue(prometheus.toString().contains("egacryptor_files_total 2\n"));
+        assertTrue(prometheus.toString().contains("egacryptor_stage_bytes_total{stage=\"read\"} 300\n"));
+        assertTrue(prometheus.toString().contains("egacryptor_stage_seconds_bucket{stage=\"read\",le=\"0.001\"} 1\n"));
+        assertTrue(prometheus.toString().contains("egacryptor_stage_seconds_bucket{stage=\"read\",le=\"0.004\"} 2\n"));
+        assertTrue(prometheus.toString().contains("egacryptor_stage_seconds_sum{stage=\"compress\"} 0.020000\n"));
+        assertTrue(prometheus.toString().contains("egacryptor_stage_seconds_count{stage=\"write\"} 0\n"));
+
+        final StringWriter json = new StringWriter();
+        stageMetrics.writeJson(json);
+        assertTrue(json.toString().contains("\"slowestStage\": \"compress\""));
+        assertTrue(json.toString().contains("\"read\": {\"seconds\": 0.004, \"bytes\": 300,"));
+    }
+
+    @Test
+    public void newStageTimer_WhenDisabled_ThenStagesAreNotTimed() {
+        assertNull(new StageMetrics(false).newStageTimer());
+    }
+}
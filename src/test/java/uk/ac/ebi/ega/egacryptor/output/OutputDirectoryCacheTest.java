@@ -0,0 +1,68 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.output;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OutputDirectoryCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void prepare_WhenDirectoryDoesNotExist_ThenCreatesDirectory() throws Exception {
+        final Path directoryPath = temporaryFolder.getRoot().toPath().resolve("path").resolve("to").resolve("output");
+
+        final Set<String> fileNames = new OutputDirectoryCache().prepare(directoryPath);
+
+        assertTrue(Files.isDirectory(directoryPath));
+        assertTrue(fileNames.isEmpty());
+    }
+
+    @Test
+    public void prepare_WhenDirectoryIsPreparedAgain_ThenReturnsFileNamesListedFirst() throws Exception {
+        final Path directoryPath = temporaryFolder.newFolder("output").toPath();
+        Files.createFile(directoryPath.resolve("file1.bin.gpg"));
+        Files.createFile(directoryPath.resolve("file1.bin.md5"));
+        final OutputDirectoryCache outputDirectoryCache = new OutputDirectoryCache();
+
+        final Set<String> fileNames = outputDirectoryCache.prepare(directoryPath);
+        Files.createFile(directoryPath.resolve("file2.bin.gpg"));
+
+        assertEquals(new HashSet<>(Arrays.asList("file1.bin.gpg", "file1.bin.md5")), fileNames);
+        assertSame(fileNames, outputDirectoryCache.prepare(directoryPath));
+    }
+
+    @Test(expected = IOException.class)
+    public void prepare_WhenPathIsAFile_ThenThrowsException() throws Exception {
+        new OutputDirectoryCache().prepare(temporaryFolder.newFile("output").toPath());
+    }
+}
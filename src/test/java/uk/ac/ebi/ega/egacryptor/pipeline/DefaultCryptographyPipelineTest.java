@@ -34,7 +34,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static uk.ac.ebi.ega.egacryptor.cryptography.util.FileUtils.newEmptyPath;
 
 @TestPropertySource("classpath:application-test.properties")
@@ -80,6 +82,20 @@ public class DefaultCryptographyPipelineTest {
         cryptographyPipeline.process(fileToProcess);
     }
 
+    @Test
+    public void process_WhenInputFileCannotBeRead_ThenLeavesNoOutputFiles() throws IOException {
+        final File outputFolder = temporaryFolder.newFolder("path", "to", "process", "files");
+        final File missingFile = new File(temporaryFolder.getRoot(), "missingFile.txt");
+        final FileToProcess fileToProcess = new FileToProcess(missingFile.toPath().toAbsolutePath(), outputFolder.toPath().toAbsolutePath());
+
+        try {
+            cryptographyPipeline.process(fileToProcess);
+            fail("Expected RuntimeException");
+        } catch (RuntimeException e) {
+            assertArrayEquals(new String[0], outputFolder.list());
+        }
+    }
+
     @Test(expected = RuntimeException.class)
     public void process_WhenGivenInValidOutputPath_ThenThrowsException() {
         final FileToProcess fileToProcess = new FileToProcess(newEmptyPath().toAbsolutePath(), newEmptyPath());
@@ -0,0 +1,220 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.pipeline;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+import uk.ac.ebi.ega.egacryptor.compression.FixedCompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.InputMode;
+import uk.ac.ebi.ega.egacryptor.constant.SymmetricCipher;
+import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculatorFactory;
+import uk.ac.ebi.ega.egacryptor.cryptography.pgp.PGPCryptography;
+import uk.ac.ebi.ega.egacryptor.cryptography.pgp.PGPUtils;
+import uk.ac.ebi.ega.egacryptor.metrics.StageMetrics;
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.model.ProcessingResult;
+import uk.ac.ebi.ega.egacryptor.output.OutputDirectoryCache;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransaction;
+import uk.ac.ebi.ega.egacryptor.output.OutputTransactionFactory;
+import uk.ac.ebi.ega.egacryptor.stream.nio.InputStreamFactory;
+import uk.ac.ebi.ega.egacryptor.stream.pgp.ParallelDeflater;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.DefaultStreamFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Covers the in memory pipeline & the streaming pipeline it passes empty & larger files to.
+ */
+public class SmallFileCryptographyPipelineTest {
+
+    private static final int SMALL_FILE_THRESHOLD = 1000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Cryptography cryptography;
+    private Path inputFolderPath;
+    private Path outputFolderPath;
+    private List<Path> streamedFiles;
+    private List<Path> skippedFiles;
+    private List<Path> committedFiles;
+    private CryptographyPipeline cryptographyPipeline;
+
+    @Before
+    public void setUp() throws Exception {
+        try (final InputStream publicKeyInputStream = new ClassPathResource("test-pubring.gpg").getInputStream();
+             final InputStream secretKeyInputStream = new ClassPathResource("test-secring.gpg").getInputStream()) {
+            cryptography = new PGPCryptography(publicKeyInputStream, new BufferPool(256, 0), new DefaultStreamFactory(256),
+                    new ParallelDeflater(1, 256), SymmetricCipher.AES_256, PGPUtils.AUTO_PROVIDER, secretKeyInputStream);
+        }
+        inputFolderPath = temporaryFolder.newFolder("input").toPath();
+        outputFolderPath = temporaryFolder.getRoot().toPath().resolve("output");
+        streamedFiles = Collections.synchronizedList(new ArrayList<>());
+        skippedFiles = Collections.synchronizedList(new ArrayList<>());
+        committedFiles = Collections.synchronizedList(new ArrayList<>());
+
+        final FixedCompressionPolicy compressionPolicy = new FixedCompressionPolicy(
+                new CompressionDecision(CompressionAlgorithm.ZIP, -1, "test", Double.NaN));
+        final DigestCalculatorFactory digestCalculatorFactory = new DigestCalculatorFactory(
+                Collections.singletonList(DigestAlgorithm.MD5));
+        final OutputTransactionFactory outputTransactionFactory = new OutputTransactionFactory(new DefaultStreamFactory(256),
+                false, false);
+        final ProcessingListener processingListener = new ProcessingListener() {
+            @Override
+            public void onSkipped(final FileToProcess fileToProcess) {
+                skippedFiles.add(fileToProcess.getFileToEncryptPath());
+            }
+
+            @Override
+            public void onCommitted(final FileToProcess fileToProcess, final ProcessingResult processingResult) {
+                committedFiles.add(fileToProcess.getFileToEncryptPath());
+            }
+        };
+        final CryptographyPipelineOptions cryptographyPipelineOptions = new CryptographyPipelineOptions(compressionPolicy,
+                digestCalculatorFactory, outputTransactionFactory, processingListener, new OutputDirectoryCache(),
+                new StageMetrics(false));
+        final CryptographyPipeline streamingPipeline = new DefaultCryptographyPipeline(cryptography, new DefaultStreamFactory(256),
+                new InputStreamFactory(InputMode.STREAM, 256), cryptographyPipelineOptions);
+        cryptographyPipeline = new SmallFileCryptographyPipeline(fileToProcess -> {
+            streamedFiles.add(fileToProcess.getFileToEncryptPath());
+            streamingPipeline.process(fileToProcess);
+        }, cryptography, cryptographyPipelineOptions, new ThroughputMeter(), SMALL_FILE_THRESHOLD, 1);
+    }
+
+    @Test
+    public void process_WhenFileIsSmall_ThenEncryptsInMemory() throws Exception {
+        final Path inputFilePath = newInputFile("small.bin", SMALL_FILE_THRESHOLD);
+
+        process(inputFilePath);
+
+        assertEquals(Collections.emptyList(), streamedFiles);
+        assertEquals(Collections.singletonList(inputFilePath), committedFiles);
+        assertOutputFiles(inputFilePath);
+    }
+
+    @Test
+    public void process_WhenFileIsEmptyOrLargerThanThreshold_ThenStreamsFile() throws Exception {
+        final Path emptyFilePath = newInputFile("empty.bin", 0);
+        final Path largeFilePath = newInputFile("large.bin", SMALL_FILE_THRESHOLD + 1);
+
+        process(emptyFilePath);
+        process(largeFilePath);
+
+        assertEquals(Arrays.asList(emptyFilePath, largeFilePath), streamedFiles);
+        assertEquals(Arrays.asList(emptyFilePath, largeFilePath), committedFiles);
+        assertOutputFiles(emptyFilePath);
+        assertOutputFiles(largeFilePath);
+    }
+
+    @Test
+    public void process_WhenOutputFileExists_ThenSkipsFile() throws Exception {
+        final List<Path> inputFilePaths = Arrays.asList(newInputFile("small.bin", 10),
+                newInputFile("large.bin", SMALL_FILE_THRESHOLD + 1));
+        Files.createDirectories(outputFolderPath);
+        for (final Path inputFilePath : inputFilePaths) {
+            write(outputFolderPath.resolve(inputFilePath.getFileName() + ".gpg.md5"), "existing");
+        }
+
+        for (final Path inputFilePath : inputFilePaths) {
+            process(inputFilePath);
+        }
+
+        assertEquals(inputFilePaths, skippedFiles);
+        assertEquals(Collections.emptyList(), committedFiles);
+        for (final Path inputFilePath : inputFilePaths) {
+            assertFalse(Files.exists(outputFolderPath.resolve(inputFilePath.getFileName() + ".gpg")));
+            assertEquals("existing", read(outputFolderPath.resolve(inputFilePath.getFileName() + ".gpg.md5")));
+        }
+    }
+
+    @Test
+    public void process_WhenCommitHasBeenInterrupted_ThenRegeneratesOutputFiles() throws Exception {
+        final List<Path> inputFilePaths = Arrays.asList(newInputFile("small.bin", 10),
+                newInputFile("large.bin", SMALL_FILE_THRESHOLD + 1));
+        Files.createDirectories(outputFolderPath);
+        for (final Path inputFilePath : inputFilePaths) {
+            final Path outputFileGPG = outputFolderPath.resolve(inputFilePath.getFileName() + ".gpg");
+            write(OutputTransaction.toTempFile(outputFileGPG.toFile()).toPath(), "partial");
+            write(outputFolderPath.resolve(inputFilePath.getFileName() + ".md5"), "stale");
+        }
+
+        for (final Path inputFilePath : inputFilePaths) {
+            process(inputFilePath);
+        }
+
+        assertEquals(Collections.emptyList(), skippedFiles);
+        assertEquals(inputFilePaths, committedFiles);
+        for (final Path inputFilePath : inputFilePaths) {
+            assertOutputFiles(inputFilePath);
+        }
+    }
+
+    private void process(final Path inputFilePath) {
+        cryptographyPipeline.process(new FileToProcess(inputFilePath, outputFolderPath));
+    }
+
+    private Path newInputFile(final String fileName, final int size) throws IOException {
+        final byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return Files.write(inputFolderPath.resolve(fileName), content);
+    }
+
+    private void assertOutputFiles(final Path inputFilePath) throws Exception {
+        final byte[] content = Files.readAllBytes(inputFilePath);
+        final Path outputFileGPG = outputFolderPath.resolve(inputFilePath.getFileName() + ".gpg");
+        try (final InputStream pgpInputStream = cryptography.decrypt(Files.newInputStream(outputFileGPG), "test".toCharArray())) {
+            assertArrayEquals(content, StreamUtils.copyToByteArray(pgpInputStream));
+        }
+        assertEquals(DigestUtils.md5DigestAsHex(content), read(outputFolderPath.resolve(inputFilePath.getFileName() + ".md5")));
+        assertEquals(DigestUtils.md5DigestAsHex(Files.readAllBytes(outputFileGPG)),
+                read(outputFolderPath.resolve(outputFileGPG.getFileName() + ".md5")));
+        assertFalse(Files.exists(OutputTransaction.toTempFile(outputFileGPG.toFile()).toPath()));
+    }
+
+    private static void write(final Path path, final String content) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(final Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}
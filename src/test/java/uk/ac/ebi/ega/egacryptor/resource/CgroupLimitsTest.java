@@ -0,0 +1,70 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+public class CgroupLimitsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void read_WhenParentOfCgroupV2IsLimited_ThenReturnsLowestLimits() throws IOException {
+        final Path rootPath = temporaryFolder.newFolder("cgroup").toPath();
+        write(rootPath.resolve("cgroup.controllers"), "cpu memory");
+        write(rootPath.resolve("job/cpu.max"), "200000 100000");
+        write(rootPath.resolve("job/memory.max"), "1073741824");
+        write(rootPath.resolve("job/step/cpu.max"), "max 100000");
+        write(rootPath.resolve("job/step/memory.max"), "2147483648");
+        final Path procCgroupPath = write(temporaryFolder.getRoot().toPath().resolve("proc-cgroup"), "0::/job/step");
+
+        final CgroupLimits cgroupLimits = CgroupLimits.read(procCgroupPath, rootPath);
+
+        assertEquals(2.0, cgroupLimits.getCpuLimit(), 0.001);
+        assertEquals(1073741824L, cgroupLimits.getMemoryLimit());
+    }
+
+    @Test
+    public void read_WhenCgroupV1HasQuotaOnly_ThenMemoryIsNotLimited() throws IOException {
+        final Path rootPath = temporaryFolder.newFolder("cgroup").toPath();
+        write(rootPath.resolve("cpu/cpu.cfs_quota_us"), "150000");
+        write(rootPath.resolve("cpu/cpu.cfs_period_us"), "100000");
+        write(rootPath.resolve("memory/pod/memory.limit_in_bytes"), "9223372036854771712");
+        final Path procCgroupPath = write(temporaryFolder.getRoot().toPath().resolve("proc-cgroup"),
+                "4:memory:/pod\n1:cpu,cpuacct:/\n0::/");
+
+        final CgroupLimits cgroupLimits = CgroupLimits.read(procCgroupPath, rootPath);
+
+        assertEquals(1.5, cgroupLimits.getCpuLimit(), 0.001);
+        assertEquals(0, cgroupLimits.getMemoryLimit());
+    }
+
+    private Path write(final Path path, final String content) throws IOException {
+        Files.createDirectories(path.getParent());
+        return Files.write(path, content.getBytes());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.resource;
+
+import org.junit.Test;
+import uk.ac.ebi.ega.egacryptor.constant.BufferType;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResourcePlannerTest {
+
+    private static final long MIB = 1024 * 1024;
+
+    @Test
+    public void plan_WhenBuffersDontFitInCgroup_ThenReducesLargestBuffersFirst() {
+        final ResourcePlan resourcePlan = new ResourcePlanner(8, 16 * 1024 * MIB, new CgroupLimits(2.5, 64 * MIB), 0.5)
+                .addBuffer(BufferType.INPUT, 4 * MIB, 1, true)
+                .addBuffer(BufferType.OUTPUT, 4 * MIB, 4, true)
+                .addBuffer(BufferType.ENCRYPTION, 8192, 2, false)
+                .plan();
+
+        assertEquals(3, resourcePlan.getNoOfProcessors());
+        assertEquals(4 * MIB, resourcePlan.getBufferSize(BufferType.INPUT));
+        assertEquals(MIB, resourcePlan.getBufferSize(BufferType.OUTPUT));
+        assertEquals(8192, resourcePlan.getBufferSize(BufferType.ENCRYPTION));
+        assertEquals(3, resourcePlan.getMaxWorkers());
+    }
+
+    @Test
+    public void plan_WhenMemoryIsNotPlanned_ThenKeepsBuffers() {
+        final ResourcePlan resourcePlan = new ResourcePlanner(8, 64 * MIB, CgroupLimits.NONE, 0)
+                .addBuffer(BufferType.OUTPUT, 4 * MIB, 4, true)
+                .plan();
+
+        assertEquals(8, resourcePlan.getNoOfProcessors());
+        assertEquals(4 * MIB, resourcePlan.getBufferSize(BufferType.OUTPUT));
+        assertEquals(Integer.MAX_VALUE, resourcePlan.getMaxWorkers());
+    }
+}
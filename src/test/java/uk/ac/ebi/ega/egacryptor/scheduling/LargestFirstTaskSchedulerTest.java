@@ -0,0 +1,84 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.scheduling;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ega.egacryptor.compression.CompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.compression.ExtensionCompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.compression.FixedCompressionPolicy;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class LargestFirstTaskSchedulerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void cleanTestEnvironment() {
+        temporaryFolder.delete();
+    }
+
+    @Test
+    public void schedule_WhenGivenFilesOfDifferentSize_ThenReturnsLargestFirstKeepingOrderOfEqualFiles() throws IOException {
+        final List<FileToProcess> fileToProcessList = Arrays.asList(newFileToProcess("small", 10),
+                newFileToProcess("equal1", 100), newFileToProcess("large", 1000), newFileToProcess("equal2", 100),
+                new FileToProcess(temporaryFolder.getRoot().toPath().resolve("missing")));
+
+        final List<FileToProcess> scheduledFileToProcessList = new LargestFirstTaskScheduler(new FileSizeCostEstimator())
+                .schedule(fileToProcessList);
+
+        assertEquals(Arrays.asList("large", "equal1", "equal2", "small", "missing"), fileNames(scheduledFileToProcessList));
+    }
+
+    @Test
+    public void schedule_WhenFilesAreCompressed_ThenWeighsTheirSize() throws IOException {
+        final List<FileToProcess> fileToProcessList = Arrays.asList(newFileToProcess("reads.bam", 300),
+                newFileToProcess("reads.fastq", 100));
+        final CompressionPolicy compressionPolicy = new ExtensionCompressionPolicy(
+                new FixedCompressionPolicy(CompressionDecision.DEFAULT), Collections.singletonList("bam:NONE"));
+
+        final List<FileToProcess> scheduledFileToProcessList = new LargestFirstTaskScheduler(
+                new CompressionCostEstimator(new FileSizeCostEstimator(), compressionPolicy, 4))
+                .schedule(fileToProcessList);
+
+        assertEquals(Arrays.asList("reads.fastq", "reads.bam"), fileNames(scheduledFileToProcessList));
+    }
+
+    private FileToProcess newFileToProcess(final String fileName, final int size) throws IOException {
+        return new FileToProcess(Files.write(temporaryFolder.getRoot().toPath().resolve(fileName), new byte[size]));
+    }
+
+    private List<String> fileNames(final List<FileToProcess> fileToProcessList) {
+        return fileToProcessList.stream()
+                .map(fileToProcess -> fileToProcess.getFileToEncryptPath().getFileName().toString())
+                .collect(Collectors.toList());
+    }
+}
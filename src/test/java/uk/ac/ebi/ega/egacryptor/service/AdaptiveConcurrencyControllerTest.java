@@ -0,0 +1,63 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import org.junit.Test;
+import uk.ac.ebi.ega.egacryptor.metrics.ThroughputMeter;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveConcurrencyControllerTest {
+
+    @Test
+    public void nextConcurrencyLimit_WhenThroughputChanges_ThenClimbsUntilThroughputStopsGrowing() {
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(new TaskQueue(null, 10),
+                new ThroughputMeter(), 1000, 4, 16, 0.05, 0.5);
+
+        assertEquals(5, controller.nextConcurrencyLimit(100, true));
+        assertEquals(6, controller.nextConcurrencyLimit(150, true));
+        //One more file didn't pay off
+        assertEquals(5, controller.nextConcurrencyLimit(152, true));
+        assertEquals(2, controller.nextConcurrencyLimit(60, true));
+        //Too few files to tell
+        assertEquals(2, controller.nextConcurrencyLimit(10, false));
+    }
+
+    @Test
+    public void nextConcurrencyLimit_WhenThroughputGrowsWithSameLimit_ThenStartsClimbing() {
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(new TaskQueue(null, 10),
+                new ThroughputMeter(), 1000, 4, 16, 0.05, 0.5);
+
+        assertEquals(5, controller.nextConcurrencyLimit(100, true));
+        assertEquals(2, controller.nextConcurrencyLimit(60, true));
+        //Step down is kept for one interval
+        assertEquals(2, controller.nextConcurrencyLimit(61, true));
+        assertEquals(3, controller.nextConcurrencyLimit(100, true));
+        assertEquals(4, controller.nextConcurrencyLimit(150, true));
+    }
+
+    @Test
+    public void nextConcurrencyLimit_WhenLimitIsReached_ThenStaysWithinBounds() {
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(new TaskQueue(null, 10),
+                new ThroughputMeter(), 1000, 2, 2, 0.05, 0.5);
+
+        assertEquals(2, controller.nextConcurrencyLimit(100, true));
+        assertEquals(1, controller.nextConcurrencyLimit(10, true));
+        assertEquals(1, controller.nextConcurrencyLimit(1, true));
+    }
+}
@@ -21,14 +21,22 @@ import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
 import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -106,4 +114,128 @@ public class FileDiscoveryServiceTest {
         assertNotNull(fileToProcessList);
         assertFalse(fileToProcessList.isEmpty());
     }
+
+    @Test
+    public void discoverFilesRecursively_WhenDigestFileOfConfiguredAlgorithmExists_ThenSkipsFile() throws IOException {
+        final Path inputFolderPath = temporaryFolder.newFolder("input").toPath();
+        temporaryFolder.newFile("input/encrypted.txt");
+        temporaryFolder.newFile("input/encrypted.txt.gpg.sha256");
+        temporaryFolder.newFile("input/toEncrypt.txt");
+
+        final List<FileToProcess> fileToProcessList = new FileDiscoveryService(Arrays.asList(DigestAlgorithm.MD5, DigestAlgorithm.SHA256))
+                .discoverFilesRecursively(Collections.singletonList(inputFolderPath), newEmptyPath());
+
+        assertEquals(1, fileToProcessList.size());
+        assertTrue(fileToProcessList.get(0).getFileToEncryptPath().endsWith("toEncrypt.txt"));
+        //.sha256 files are only looked for & skipped when SHA256 is configured, otherwise they are encrypted too
+        assertEquals(3, new FileDiscoveryService().discoverFilesRecursively(Collections.singletonList(inputFolderPath), newEmptyPath()).size());
+    }
+
+    @Test
+    public void discoverFilesRecursively_WhenFileHasExtensionOfDigestNotConfigured_ThenEncryptsFile() throws IOException {
+        final Path inputFolderPath = temporaryFolder.newFolder("input").toPath();
+        final Path filePath = temporaryFolder.newFile("input/checksums.sha256").toPath();
+
+        assertEquals(Collections.singletonList(filePath), toPaths(new FileDiscoveryService()
+                .discoverFilesRecursively(Collections.singletonList(inputFolderPath), newEmptyPath())));
+        assertEquals(Collections.emptyList(), toPaths(new FileDiscoveryService(Arrays.asList(DigestAlgorithm.MD5, DigestAlgorithm.SHA256))
+                .discoverFilesRecursively(Collections.singletonList(inputFolderPath), newEmptyPath())));
+    }
+
+    @Test
+    public void discoverFilesRecursively_WhenOutputFilesAreInListedDirectory_ThenSkipsFilesByName() throws IOException {
+        final Path inputFolderPath = temporaryFolder.newFolder("input").toPath();
+        for (final String fileName : Arrays.asList("encrypted.txt", "encrypted.txt.gpg", "digested.txt", "digested.txt.md5",
+                "encryptedDigested.txt", "encryptedDigested.txt.gpg.md5", "toEncrypt.txt")) {
+            Files.createFile(inputFolderPath.resolve(fileName));
+        }
+        final FileDiscoveryService fileDiscoveryService = new FileDiscoveryService();
+
+        final List<FileToProcess> fileToProcessList = fileDiscoveryService.discoverFilesRecursively(
+                Collections.singletonList(inputFolderPath), newEmptyPath());
+
+        assertEquals(Collections.singletonList(inputFolderPath.resolve("toEncrypt.txt")), toPaths(fileToProcessList));
+        //Files given one by one are checked on the file system rather than in a listing
+        final List<Path> filePaths = new ArrayList<>();
+        try (final Stream<Path> paths = Files.list(inputFolderPath)) {
+            paths.sorted().forEach(filePaths::add);
+        }
+        assertEquals(Collections.singletonList(inputFolderPath.resolve("toEncrypt.txt")),
+                toPaths(fileDiscoveryService.discoverFilesRecursively(filePaths, newEmptyPath())));
+    }
+
+    @Test
+    public void discoverFilesRecursively_WhenDirectoryHasLinks_ThenFindsSameFilesAsFilesWalk() throws IOException {
+        final Path targetFolderPath = temporaryFolder.newFolder("target").toPath();
+        final Path targetFilePath = Files.createFile(targetFolderPath.resolve("target.txt"));
+        final Path inputFolderPath = temporaryFolder.newFolder("input", "sub").toPath().getParent();
+        Files.createFile(inputFolderPath.resolve("file.txt"));
+        Files.createFile(inputFolderPath.resolve("sub").resolve("subFile.txt"));
+        Files.createSymbolicLink(inputFolderPath.resolve("fileLink.txt"), targetFilePath);
+        Files.createSymbolicLink(inputFolderPath.resolve("directoryLink"), targetFolderPath);
+
+        final List<FileToProcess> fileToProcessList = new FileDiscoveryService().discoverFilesRecursively(
+                Collections.singletonList(inputFolderPath), newEmptyPath());
+
+        final List<Path> walkedFilePaths = new ArrayList<>();
+        try (final Stream<Path> paths = Files.walk(inputFolderPath)) {
+            paths.filter(Files::isRegularFile).forEach(walkedFilePaths::add);
+        }
+        assertEquals(walkedFilePaths, toPaths(fileToProcessList));
+        assertTrue(walkedFilePaths.contains(inputFolderPath.resolve("fileLink.txt")));
+        assertFalse(walkedFilePaths.contains(inputFolderPath.resolve("directoryLink").resolve("target.txt")));
+    }
+
+    @Test
+    public void discoverFilesRecursively_WhenAttributesOfEntryCannotBeRead_ThenSkipsEntry() throws IOException {
+        final Path inputFolderPath = temporaryFolder.newFolder("input").toPath();
+        Files.createFile(inputFolderPath.resolve("vanished.txt"));
+        Files.createFile(inputFolderPath.resolve("toEncrypt.txt"));
+        Files.createSymbolicLink(inputFolderPath.resolve("brokenLink.txt"), inputFolderPath.resolve("missing.txt"));
+        final FileDiscoveryService fileDiscoveryService = new FileDiscoveryService() {
+            @Override
+            protected DirectoryListing listDirectory(final Path directoryPath) {
+                try {
+                    return DirectoryListing.list(directoryPath, path -> {
+                        if (path.endsWith("vanished.txt")) {
+                            throw new NoSuchFileException(path.toString());
+                        }
+                        return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+
+        final List<FileToProcess> fileToProcessList = fileDiscoveryService.discoverFilesRecursively(
+                Collections.singletonList(inputFolderPath), newEmptyPath());
+
+        assertEquals(Collections.singletonList(inputFolderPath.resolve("toEncrypt.txt")), toPaths(fileToProcessList));
+    }
+
+    @Test
+    public void discoverFilesRecursively_WhenFileIsFound_ThenCarriesSizeReadDuringDiscovery() throws IOException {
+        final Path inputFolderPath = temporaryFolder.newFolder("input").toPath();
+        final Path filePath = Files.write(inputFolderPath.resolve("file.txt"), new byte[10]);
+        Files.createSymbolicLink(inputFolderPath.resolve("link.txt"), Files.write(temporaryFolder.newFile("target.txt").toPath(), new byte[20]));
+
+        final List<FileToProcess> fileToProcessList = new FileDiscoveryService().discoverFilesRecursively(
+                Collections.singletonList(inputFolderPath), newEmptyPath());
+        Files.write(filePath, new byte[30]);
+
+        assertEquals(2, fileToProcessList.size());
+        for (final FileToProcess fileToProcess : fileToProcessList) {
+            //Size of a file isn't read again, size of the target of a link is read when needed
+            assertEquals(fileToProcess.getFileToEncryptPath().equals(filePath) ? 10 : 20, fileToProcess.getSize());
+        }
+    }
+
+    private static List<Path> toPaths(final List<FileToProcess> fileToProcessList) {
+        final List<Path> paths = new ArrayList<>();
+        for (final FileToProcess fileToProcess : fileToProcessList) {
+            paths.add(fileToProcess.getFileToEncryptPath());
+        }
+        return paths;
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ParallelFileDiscoveryServiceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private List<Path> rootFilePaths;
+    private Path outputFolderPath;
+
+    @Before
+    public void createTree() throws IOException {
+        final Path rootFolderPath = temporaryFolder.newFolder("root").toPath();
+        for (int i = 0; i < 5; i++) {
+            final Path folderPath = Files.createDirectories(rootFolderPath.resolve("run" + i).resolve("lane" + i));
+            for (int j = 0; j < 20; j++) {
+                Files.createFile(folderPath.resolve("file" + j + ".fastq"));
+            }
+            Files.createFile(rootFolderPath.resolve("run" + i).resolve("sample.txt"));
+        }
+        Files.createFile(rootFolderPath.resolve("top.txt"));
+        rootFilePaths = Collections.singletonList(rootFolderPath);
+        outputFolderPath = temporaryFolder.newFolder("output").toPath();
+    }
+
+    @After
+    public void cleanTestEnvironment() {
+        temporaryFolder.delete();
+    }
+
+    @Test
+    public void discoverFilesRecursively_WhenOrdered_ThenReturnsFilesInWalkOrderWithSameOutputPaths() {
+        final List<String> expectedFiles = toStrings(new FileDiscoveryService().discoverFilesRecursively(rootFilePaths, outputFolderPath));
+
+        final List<String> discoveredFiles = toStrings(new ParallelFileDiscoveryService(4, true)
+                .discoverFilesRecursively(rootFilePaths, outputFolderPath));
+
+        assertEquals(106, expectedFiles.size());
+        assertEquals(expectedFiles, discoveredFiles);
+    }
+
+    @Test
+    public void discoverFilesRecursively_WhenUnordered_ThenReturnsSameFiles() {
+        final List<String> expectedFiles = toStrings(new FileDiscoveryService().discoverFilesRecursively(rootFilePaths, outputFolderPath));
+
+        final List<String> discoveredFiles = toStrings(new ParallelFileDiscoveryService(4, false)
+                .discoverFilesRecursively(rootFilePaths, outputFolderPath));
+
+        assertEquals(expectedFiles.size(), discoveredFiles.size());
+        assertEquals(new HashSet<>(expectedFiles), new HashSet<>(discoveredFiles));
+    }
+
+    @Test
+    public void discoverFilesRecursively_WhenGivenConsumer_ThenHandsOverFilesOnCallingThread() {
+        for (final boolean ordered : new boolean[]{true, false}) {
+            final Thread callingThread = Thread.currentThread();
+            final List<FileToProcess> discoveredFiles = new ArrayList<>();
+
+            new ParallelFileDiscoveryService(4, ordered).discoverFilesRecursively(rootFilePaths, outputFolderPath, fileToProcess -> {
+                assertSame(callingThread, Thread.currentThread());
+                discoveredFiles.add(fileToProcess);
+            });
+
+            assertEquals(106, discoveredFiles.size());
+        }
+    }
+
+    private List<String> toStrings(final List<FileToProcess> fileToProcessList) {
+        return fileToProcessList.stream().map(FileToProcess::toString).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import org.junit.Test;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+import uk.ac.ebi.ega.egacryptor.scheduling.FifoTaskScheduler;
+import uk.ac.ebi.ega.egacryptor.scheduling.LargestFirstTaskScheduler;
+import uk.ac.ebi.ega.egacryptor.scheduling.TaskScheduler;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaskExecutorServiceTest {
+
+    @Test
+    public void execute_WhenGivenFileToProcessSource_ThenProcessesFilesWhileTheyAreDiscovered() throws IOException {
+        for (final TaskScheduler taskScheduler : Arrays.asList(new FifoTaskScheduler(),
+                new LargestFirstTaskScheduler(fileToProcess -> fileToProcess.getFileToEncryptPath().toString().length()))) {
+            final int noOfFiles = 100;
+            final int queueSize = 2;
+            final int noOfThreads = 2;
+            final Set<String> processedFiles = ConcurrentHashMap.newKeySet();
+            final TaskExecutorService taskExecutorService = new TaskExecutorService(taskScheduler, queueSize, null,
+                    new WorkerExecutorFactory(), null);
+
+            final long noOfDiscoveredFiles = taskExecutorService.execute(
+                    fileToProcess -> processedFiles.add(fileToProcess.getFileToEncryptPath().toString()), fileToProcessConsumer -> {
+                for (int i = 0; i < noOfFiles; i++) {
+                    fileToProcessConsumer.accept(new FileToProcess(Paths.get("file" + i), Paths.get("")));
+                }
+                //Discovery can't get ahead of processing by more than the queue & the files being processed
+                assertTrue(processedFiles.size() >= noOfFiles - queueSize - noOfThreads);
+            }, noOfThreads);
+
+            assertEquals(noOfFiles, noOfDiscoveredFiles);
+            assertEquals(noOfFiles, processedFiles.size());
+        }
+    }
+}
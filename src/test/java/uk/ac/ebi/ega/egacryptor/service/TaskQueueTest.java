@@ -0,0 +1,80 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.service;
+
+import org.junit.Test;
+import uk.ac.ebi.ega.egacryptor.device.Device;
+import uk.ac.ebi.ega.egacryptor.device.DeviceResolver;
+import uk.ac.ebi.ega.egacryptor.model.FileToProcess;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TaskQueueTest {
+
+    private static final Device HDD = new Device("hdd", 1);
+    private static final Device NVME = new Device("nvme", 0);
+
+    @Test
+    public void take_WhenDeviceIsAtItsLimit_ThenReturnsFileOfAnotherDevice() throws IOException, InterruptedException {
+        final TaskQueue taskQueue = new TaskQueue(new DeviceResolver(Collections.emptyList(), 0) {
+            @Override
+            public Device resolve(final Path directoryPath) {
+                return directoryPath.startsWith("/hdd") ? HDD : NVME;
+            }
+        }, 10);
+        taskQueue.put(newFileToProcess("/hdd/first"));
+        taskQueue.put(newFileToProcess("/hdd/second"));
+        taskQueue.put(newFileToProcess("/nvme/third"));
+        taskQueue.close();
+
+        final TaskQueue.Task firstTask = taskQueue.take();
+        assertEquals(Paths.get("/hdd/first"), firstTask.getFileToProcess().getFileToEncryptPath());
+        assertEquals(Paths.get("/nvme/third"), taskQueue.take().getFileToProcess().getFileToEncryptPath());
+
+        taskQueue.release(firstTask);
+        assertEquals(Paths.get("/hdd/second"), taskQueue.take().getFileToProcess().getFileToEncryptPath());
+        assertNull(taskQueue.take());
+    }
+
+    @Test
+    public void take_WhenCostEstimatorIsGiven_ThenReturnsMostExpensiveQueuedFileFirst() throws InterruptedException {
+        final TaskQueue taskQueue = new TaskQueue(null, 10,
+                fileToProcess -> fileToProcess.getFileToEncryptPath().getFileName().toString().length());
+        taskQueue.put(newFileToProcess("/nvme/a"));
+        taskQueue.put(newFileToProcess("/nvme/ccc"));
+        taskQueue.put(newFileToProcess("/nvme/bb"));
+        taskQueue.put(newFileToProcess("/nvme/d"));
+        taskQueue.close();
+
+        assertEquals(Paths.get("/nvme/ccc"), taskQueue.take().getFileToProcess().getFileToEncryptPath());
+        assertEquals(Paths.get("/nvme/bb"), taskQueue.take().getFileToProcess().getFileToEncryptPath());
+        assertEquals(Paths.get("/nvme/a"), taskQueue.take().getFileToProcess().getFileToEncryptPath());
+        assertEquals(Paths.get("/nvme/d"), taskQueue.take().getFileToProcess().getFileToEncryptPath());
+        assertNull(taskQueue.take());
+    }
+
+    private FileToProcess newFileToProcess(final String filePath) {
+        return new FileToProcess(Paths.get(filePath), Paths.get("/nvme/output"));
+    }
+}
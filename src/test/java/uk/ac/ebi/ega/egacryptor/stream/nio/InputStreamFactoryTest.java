@@ -0,0 +1,113 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.nio;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ega.egacryptor.constant.InputMode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class InputStreamFactoryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void newInputStream_WhenGivenChannelMode_ThenReadsWholeFile() throws IOException {
+        assertReadsWholeFile(InputMode.CHANNEL);
+    }
+
+    @Test
+    public void newInputStream_WhenGivenMmapMode_ThenReadsWholeFile() throws IOException {
+        assertReadsWholeFile(InputMode.MMAP);
+    }
+
+    @Test
+    public void read_WhenFileIsMappedInSeveralWindows_ThenReadsWholeFile() throws IOException {
+        final byte[] input = new byte[10_500];
+        new Random(42).nextBytes(input);
+        final Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, input);
+
+        assertArrayEquals(input, readAll(new MappedFileInputStream(path, 1000), 300));
+    }
+
+    @Test
+    public void close_WhenChannelStreamIsClosed_ThenReturnsZeroedBufferToPool() throws IOException {
+        final Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, new byte[]{1, 2, 3});
+        final DirectBufferPool directBufferPool = new DirectBufferPool(1000);
+        final ByteBuffer byteBuffer = directBufferPool.acquire();
+        directBufferPool.release(byteBuffer);
+
+        try (final FileChannelInputStream inputStream = new FileChannelInputStream(path, directBufferPool)) {
+            assertEquals(1, inputStream.read());
+        }
+
+        final ByteBuffer reusedByteBuffer = directBufferPool.acquire();
+        assertSame(byteBuffer, reusedByteBuffer);
+        assertEquals(1000, reusedByteBuffer.remaining());
+        while (reusedByteBuffer.hasRemaining()) {
+            assertEquals(0, reusedByteBuffer.get());
+        }
+    }
+
+    @Test
+    public void newInputStream_WhenGivenEmptyFile_ThenReadsNothing() throws IOException {
+        final Path path = temporaryFolder.newFile().toPath();
+        for (final InputMode inputMode : InputMode.values()) {
+            assertArrayEquals(new byte[0], readAll(new InputStreamFactory(inputMode, 1000).newInputStream(path), 10));
+        }
+    }
+
+    private void assertReadsWholeFile(final InputMode inputMode) throws IOException {
+        final byte[] input = new byte[10_500];
+        new Random(42).nextBytes(input);
+        final Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, input);
+
+        //Buffer size is neither a multiple nor a divisor of read size to cover partial copies
+        final InputStreamFactory inputStreamFactory = new InputStreamFactory(inputMode, 1000);
+        assertArrayEquals(input, readAll(inputStreamFactory.newInputStream(path), 300));
+        assertArrayEquals(input, readAll(inputStreamFactory.newInputStream(path), 4096));
+    }
+
+    private byte[] readAll(final InputStream inputStream, final int readSize) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (final InputStream in = inputStream) {
+            final byte[] buffer = new byte[readSize];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                byteArrayOutputStream.write(buffer, 0, bytesRead);
+            }
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pgp;
+
+import org.junit.Test;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class PGPEncryptedOutputStreamTest {
+
+    @Test
+    public void close_WhenAllStreamsAreClosed_ThenReleasesBuffers() throws IOException {
+        final BufferPool bufferPool = new BufferPool(16, 1);
+        final byte[] buffer = acquireFilled(bufferPool);
+
+        newPGPEncryptedOutputStream(new ByteArrayOutputStream(), bufferPool, buffer).close();
+
+        assertArrayEquals(new byte[16], buffer);
+        assertSame(buffer, bufferPool.acquire());
+    }
+
+    @Test
+    public void close_WhenStreamFailsToClose_ThenZeroesBuffersWithoutReleasingThem() {
+        final BufferPool bufferPool = new BufferPool(16, 1);
+        final byte[] buffer = acquireFilled(bufferPool);
+        final OutputStream failingOutputStream = new OutputStream() {
+            @Override
+            public void write(final int b) {
+            }
+
+            @Override
+            public void close() throws IOException {
+                throw new IOException("Failed to close");
+            }
+        };
+
+        try {
+            newPGPEncryptedOutputStream(failingOutputStream, bufferPool, buffer).close();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("Failed to close", e.getMessage());
+        }
+
+        assertArrayEquals(new byte[16], buffer);
+        assertNotSame(buffer, bufferPool.acquire());
+    }
+
+    private static byte[] acquireFilled(final BufferPool bufferPool) {
+        final byte[] buffer = bufferPool.acquire();
+        Arrays.fill(buffer, (byte) 7);
+        return buffer;
+    }
+
+    private static PGPEncryptedOutputStream newPGPEncryptedOutputStream(final OutputStream pgpCompressedDataGeneratorOutputStream,
+                                                                        final BufferPool bufferPool, final byte[] buffer) {
+        return new PGPEncryptedOutputStream(new ByteArrayOutputStream(), pgpCompressedDataGeneratorOutputStream,
+                new ByteArrayOutputStream(), () -> bufferPool.release(buffer), () -> bufferPool.discard(buffer));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pgp;
+
+import org.junit.Test;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelDeflaterOutputStreamTest {
+
+    private final ParallelDeflater parallelDeflater = new ParallelDeflater(4, 1024);
+
+    @Test
+    public void close_WhenGivenCompressibleInput_ThenWritesSingleInflatableStream() throws IOException {
+        final byte[] input = new byte[50_000];
+        final Random random = new Random(7);
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) ("ACGT".charAt(random.nextInt(4)));
+        }
+
+        final byte[] compressed = deflate(input);
+
+        assertTrue(compressed.length < input.length);
+        assertArrayEquals(input, inflate(compressed));
+    }
+
+    @Test
+    public void close_WhenGivenIncompressibleInput_ThenWritesSingleInflatableStream() throws IOException {
+        final byte[] input = new byte[10_001];
+        new Random(11).nextBytes(input);
+
+        assertArrayEquals(input, inflate(deflate(input)));
+    }
+
+    @Test
+    public void close_WhenGivenEmptyInput_ThenWritesSingleInflatableStream() throws IOException {
+        assertArrayEquals(new byte[0], inflate(deflate(new byte[0])));
+    }
+
+    @Test
+    public void close_WhenGivenManyBlocks_ThenReusesBlocksOfPool() throws IOException {
+        final BufferPool blockPool = new BufferPool(1024, 8);
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        final byte[] input = new byte[50 * 1024];
+        new Random(13).nextBytes(input);
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (final OutputStream outputStream = new ParallelDeflaterOutputStream(byteArrayOutputStream, Deflater.DEFAULT_COMPRESSION,
+                blockPool, 4, executorService)) {
+            outputStream.write(input);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertArrayEquals(input, inflate(byteArrayOutputStream.toByteArray()));
+        assertEquals(51, blockPool.getNoOfAcquisitions());
+        //At most the pending blocks, the block waiting to be written & the block being filled
+        assertTrue(blockPool.getNoOfAllocations() <= 6);
+    }
+
+    private byte[] deflate(final byte[] input) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (final OutputStream outputStream = parallelDeflater.open(byteArrayOutputStream, Deflater.DEFAULT_COMPRESSION)) {
+            //Odd sized writes so that blocks are filled across write calls
+            for (int off = 0; off < input.length; off += 777) {
+                outputStream.write(input, off, Math.min(777, input.length - off));
+            }
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private byte[] inflate(final byte[] compressed) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (final InputStream inputStream = new InflaterInputStream(new ByteArrayInputStream(compressed), new Inflater(true))) {
+            final byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) > 0) {
+                byteArrayOutputStream.write(buffer, 0, bytesRead);
+            }
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+}
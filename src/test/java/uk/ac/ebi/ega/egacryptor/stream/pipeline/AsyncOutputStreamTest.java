@@ -0,0 +1,94 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncOutputStreamTest {
+
+    @Test
+    public void close_WhenInterruptedWhileWorkerWrites_ThenClosesTargetOnceWorkerHasStopped() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final AtomicBoolean workerWriting = new AtomicBoolean();
+        final AtomicBoolean closedWhileWriting = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final OutputStream slowOutputStream = new OutputStream() {
+            @Override
+            public void write(final int b) {
+            }
+
+            @Override
+            public void write(final byte[] bytes, final int off, final int len) {
+                workerWriting.set(true);
+                writing.countDown();
+                //Ignores interrupts like a write to a file which can't be interrupted
+                final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+                while (System.nanoTime() < end) {
+                    Thread.yield();
+                }
+                workerWriting.set(false);
+            }
+
+            @Override
+            public void close() {
+                closedWhileWriting.set(workerWriting.get());
+                closed.set(true);
+            }
+        };
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final AtomicReference<IOException> closeException = new AtomicReference<>();
+        final AtomicBoolean interruptRestored = new AtomicBoolean();
+        final Thread writerThread = new Thread(() -> {
+            final AsyncOutputStream asyncOutputStream = new AsyncOutputStream(slowOutputStream, 16, 2, executorService);
+            try {
+                asyncOutputStream.write(new byte[16]);
+                asyncOutputStream.close();
+            } catch (IOException e) {
+                closeException.set(e);
+                interruptRestored.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        try {
+            writerThread.start();
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+            writerThread.interrupt();
+            writerThread.join(10_000);
+
+            assertFalse(writerThread.isAlive());
+            assertTrue(closeException.get() instanceof InterruptedIOException);
+            assertTrue(interruptRestored.get());
+            assertTrue(closed.get());
+            assertFalse(closedWhileWriting.get());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
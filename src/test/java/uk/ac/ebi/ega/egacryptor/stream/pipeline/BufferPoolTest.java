@@ -0,0 +1,58 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class BufferPoolTest {
+
+    @Test
+    public void release_WhenBufferIsAcquiredAgain_ThenBufferIsReusedAndZeroed() {
+        final BufferPool bufferPool = new BufferPool(16, 2);
+        final byte[] buffer = bufferPool.acquire();
+        Arrays.fill(buffer, (byte) 7);
+
+        bufferPool.release(buffer);
+
+        assertSame(buffer, bufferPool.acquire());
+        assertArrayEquals(new byte[16], buffer);
+        assertEquals(2, bufferPool.getNoOfAcquisitions());
+        assertEquals(1, bufferPool.getNoOfAllocations());
+    }
+
+    @Test
+    public void release_WhenPoolIsFull_ThenBufferIsDropped() {
+        final BufferPool bufferPool = new BufferPool(16, 1);
+        final byte[] first = bufferPool.acquire();
+        final byte[] second = bufferPool.acquire();
+
+        bufferPool.release(first);
+        bufferPool.release(second);
+
+        assertSame(first, bufferPool.acquire());
+        assertNotSame(second, bufferPool.acquire());
+        assertEquals(3, bufferPool.getNoOfAllocations());
+    }
+}
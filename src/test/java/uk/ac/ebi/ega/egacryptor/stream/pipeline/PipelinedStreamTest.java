@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.stream.pipeline;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PipelinedStreamTest {
+
+    private final PipelineStreamFactory pipelineStreamFactory = new PipelinedStreamFactory(1024, 3);
+
+    @Test
+    public void execute_WhenGivenInputStream_ThenWritesAllBytesThroughStages() throws IOException {
+        final byte[] input = new byte[100_000];
+        new Random(42).nextBytes(input);
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        final long bytesRead;
+        try (final PipelineStream pipelineStream = pipelineStreamFactory.newPipelineStream(new ByteArrayInputStream(input),
+                pipelineStreamFactory.newStage(pipelineStreamFactory.newStage(byteArrayOutputStream)))) {
+            bytesRead = pipelineStream.execute();
+        }
+
+        assertEquals(input.length, bytesRead);
+        assertArrayEquals(input, byteArrayOutputStream.toByteArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void execute_WhenSourceFails_ThenThrowsException() throws IOException {
+        final InputStream failingInputStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Read failed");
+            }
+        };
+        try (final PipelineStream pipelineStream = pipelineStreamFactory.newPipelineStream(failingInputStream,
+                pipelineStreamFactory.newStage(new ByteArrayOutputStream()))) {
+            pipelineStream.execute();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void close_WhenTargetFails_ThenThrowsException() throws IOException {
+        final OutputStream failingOutputStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Write failed");
+            }
+        };
+        try (final PipelineStream pipelineStream = pipelineStreamFactory.newPipelineStream(new ByteArrayInputStream(new byte[10_000]),
+                pipelineStreamFactory.newStage(failingOutputStream))) {
+            pipelineStream.execute();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ega.egacryptor.verify;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ClassPathResource;
+import uk.ac.ebi.ega.egacryptor.constant.CompressionAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.DigestAlgorithm;
+import uk.ac.ebi.ega.egacryptor.constant.InputMode;
+import uk.ac.ebi.ega.egacryptor.constant.SymmetricCipher;
+import uk.ac.ebi.ega.egacryptor.constant.VerificationStatus;
+import uk.ac.ebi.ega.egacryptor.cryptography.Cryptography;
+import uk.ac.ebi.ega.egacryptor.cryptography.digest.DigestCalculatorFactory;
+import uk.ac.ebi.ega.egacryptor.cryptography.pgp.PGPCryptography;
+import uk.ac.ebi.ega.egacryptor.cryptography.pgp.PGPUtils;
+import uk.ac.ebi.ega.egacryptor.cryptography.util.Hash;
+import uk.ac.ebi.ega.egacryptor.model.CompressionDecision;
+import uk.ac.ebi.ega.egacryptor.model.VerificationResult;
+import uk.ac.ebi.ega.egacryptor.stream.nio.InputStreamFactory;
+import uk.ac.ebi.ega.egacryptor.stream.pgp.ParallelDeflater;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.BufferPool;
+import uk.ac.ebi.ega.egacryptor.stream.pipeline.DefaultStreamFactory;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class VerifierTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Verifier verifier;
+    private Path filePathGPG;
+
+    @Before
+    public void setUp() throws Exception {
+        final Cryptography cryptography;
+        try (final InputStream publicKeyInputStream = new ClassPathResource("test-pubring.gpg").getInputStream();
+             final InputStream secretKeyInputStream = new ClassPathResource("test-secring.gpg").getInputStream()) {
+            cryptography = new PGPCryptography(publicKeyInputStream, new BufferPool(256, 0), new DefaultStreamFactory(256), new ParallelDeflater(1, 256),
+                    SymmetricCipher.AES_256, PGPUtils.AUTO_PROVIDER, secretKeyInputStream);
+        }
+        verifier = new Verifier(cryptography, new InputStreamFactory(InputMode.CHANNEL, 4096),
+                new DigestCalculatorFactory(Arrays.asList(DigestAlgorithm.MD5)), () -> "test".toCharArray(), 4096);
+
+        final byte[] plaintext = new byte[100_000];
+        new Random(7).nextBytes(plaintext);
+        filePathGPG = temporaryFolder.getRoot().toPath().resolve("file.bin.gpg");
+        try (final OutputStream outputStream = cryptography.encrypt(Files.newOutputStream(filePathGPG),
+                new CompressionDecision(CompressionAlgorithm.ZIP, -1, "test", Double.NaN))) {
+            outputStream.write(plaintext);
+        }
+        write("file.bin.gpg.md5", md5(Files.readAllBytes(filePathGPG)));
+        write("file.bin.md5", md5(plaintext).toUpperCase().concat("  file.bin\n"));
+    }
+
+    @Test
+    public void verify_WhenDigestsMatch_ThenPasses() {
+        final List<VerificationResult> verificationResults = verifier.verify(filePathGPG, true);
+
+        assertEquals(2, verificationResults.size());
+        verificationResults.forEach(result -> assertEquals(VerificationStatus.PASS, result.getVerificationStatus()));
+        assertEquals(filePathGPG.resolveSibling("file.bin"), verificationResults.get(1).getFilePath());
+    }
+
+    @Test
+    public void verify_WhenDigestDoesNotMatch_ThenFails() throws Exception {
+        write("file.bin.gpg.md5", "00000000000000000000000000000000");
+
+        final List<VerificationResult> verificationResults = verifier.verify(filePathGPG, false);
+
+        assertEquals(1, verificationResults.size());
+        assertEquals(VerificationStatus.FAIL, verificationResults.get(0).getVerificationStatus());
+    }
+
+    @Test
+    public void verify_WhenNoDigestFile_ThenMissing() throws Exception {
+        Files.delete(filePathGPG.resolveSibling("file.bin.gpg.md5"));
+
+        final List<VerificationResult> verificationResults = verifier.verify(filePathGPG, false);
+
+        assertEquals(VerificationStatus.MISSING, verificationResults.get(0).getVerificationStatus());
+    }
+
+    @Test
+    public void verify_WhenDigestFileOfOriginalIsMissing_ThenReportsMissing() throws Exception {
+        Files.delete(filePathGPG.resolveSibling("file.bin.md5"));
+
+        for (final boolean verifyPlaintext : new boolean[]{false, true}) {
+            final List<VerificationResult> verificationResults = verifier.verify(filePathGPG, verifyPlaintext);
+
+            assertEquals(2, verificationResults.size());
+            assertEquals(VerificationStatus.MISSING, verificationResults.get(0).getVerificationStatus());
+            assertEquals(filePathGPG.resolveSibling("file.bin"), verificationResults.get(0).getFilePath());
+            assertEquals(DigestAlgorithm.MD5, verificationResults.get(0).getDigestAlgorithm());
+            assertEquals(VerificationStatus.PASS, verificationResults.get(1).getVerificationStatus());
+        }
+    }
+
+    private void write(final String fileName, final String content) throws Exception {
+        Files.write(filePathGPG.resolveSibling(fileName), content.getBytes());
+    }
+
+    private String md5(final byte[] bytes) {
+        final MessageDigest messageDigest = Hash.getMD5();
+        messageDigest.update(bytes);
+        return Hash.normalize(messageDigest);
+    }
+}